@@ -0,0 +1,20 @@
+package ru.nsu.sidey383.lab1.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Выводит рядом с основным результатом бенчмарка время обработки одного файла дерева.
+ * <p> Выделение памяти на файл равно {@code gc.alloc.rate.norm}, делённому на {@link GeneratedTree#getEntries()}.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class EntryCounter {
+
+    public long entries;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        entries = 0;
+    }
+
+}
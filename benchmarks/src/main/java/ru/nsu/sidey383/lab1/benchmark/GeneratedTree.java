@@ -0,0 +1,49 @@
+package ru.nsu.sidey383.lab1.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Дерево файлов формы {@link #shape}, созданное в хранилище {@link #storage} один раз на запуск бенчмарка.
+ */
+@State(Scope.Benchmark)
+public class GeneratedTree {
+
+    @Param({"WIDE", "DEEP", "SYMLINKS"})
+    public TreeShape shape;
+
+    @Param({"MEMORY", "TEMP_DIR"})
+    public StorageKind storage;
+
+    private StorageKind.Storage opened;
+
+    private Path root;
+
+    private int entries;
+
+    @Setup(Level.Trial)
+    public void create() throws IOException {
+        opened = storage.open();
+        root = opened.root();
+        entries = 1 + shape.create(root);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        opened.close();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * @return количество файлов в дереве, включая корень.
+     */
+    public int getEntries() {
+        return entries;
+    }
+
+}
@@ -0,0 +1,37 @@
+package ru.nsu.sidey383.lab1.benchmark;
+
+import ru.nsu.sidey383.lab1.write.size.DefaultSizeSuffix;
+
+import java.text.DecimalFormat;
+
+/**
+ * Прежняя реализация {@link DefaultSizeSuffix#getValue(long)}: рекурсия по цепочке единиц и общий {@link DecimalFormat}.
+ * <p> Используется как точка отсчёта в {@link SizeSuffixBenchmark}.
+ */
+final class LegacySizeFormat {
+
+    private static final DecimalFormat decimalFormat = new DecimalFormat("0.00");
+
+    private LegacySizeFormat() {}
+
+    static String getValue(DefaultSizeSuffix suffix, long size) {
+        return getSuffix(suffix, size, 0);
+    }
+
+    private static String getSuffix(DefaultSizeSuffix suffix, long size, double prevPart) {
+        if (size < 0 || prevPart < 0 || prevPart > 1)
+            throw new IllegalArgumentException(
+                    String.format("%s size=%d previsionPart=%f", suffix, size, prevPart)
+            );
+        DefaultSizeSuffix next = suffix.getNextSuffix();
+        if (next == null || suffix.getNextSize() <= 0 || size < suffix.getNextSize()) {
+            if (suffix.isIsAtomic()) {
+                return size + " " + suffix.getSuffix();
+            } else {
+                return decimalFormat.format(size + prevPart) + " " + suffix.getSuffix();
+            }
+        }
+        return getSuffix(next, size / suffix.getNextSize(), ((double) (size % suffix.getNextSize())) / suffix.getNextSize());
+    }
+
+}
@@ -0,0 +1,47 @@
+package ru.nsu.sidey383.lab1.benchmark;
+
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.write.FileTreePrinter;
+
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.Stack;
+
+/**
+ * Прежний способ вывода {@link FileTreePrinter#printTree(PrintStream, DUFile)}: отдельные print и println для каждой строки.
+ * <p> Используется как точка отсчёта в {@link PrinterBenchmark}.
+ */
+final class LegacyTreePrinter {
+
+    private final FileTreePrinter printer;
+
+    private final int maxDepth;
+
+    LegacyTreePrinter(FileTreePrinter printer, int maxDepth) {
+        this.printer = printer;
+        this.maxDepth = maxDepth;
+    }
+
+    void printTree(PrintStream stream, DUFile root) {
+        Stack<Iterator<DUFile>> dirStack = new Stack<>();
+        DUFile now = root;
+        do {
+            stream.print("  ".repeat(dirStack.size()));
+            stream.println(printer.prettyFileString(now));
+            if (now instanceof ParentDUFile dir && dirStack.size() < maxDepth) {
+                dirStack.add(printer.largestChildren(dir.getChildren()).iterator());
+            }
+            now = null;
+            while (!dirStack.isEmpty()) {
+                Iterator<DUFile> iterator = dirStack.peek();
+                if (iterator.hasNext()) {
+                    now = iterator.next();
+                    break;
+                }
+                dirStack.pop();
+            }
+        } while (now != null);
+    }
+
+}
@@ -0,0 +1,98 @@
+package ru.nsu.sidey383.lab1.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.ConcurrentDirectoryDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.RegularDUFile;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Добавление потомков в одну директорию из нескольких потоков, как при обходе широкой директории.
+ * <p> Сравнивает директорию под монитором с {@link ConcurrentDirectoryDUFile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParentContentionBenchmark {
+
+    private static final int CHILDREN = 1 << 16;
+
+    private static final Path ROOT = Path.of("/benchmark");
+
+    /**
+     * Directory that is attached to
+     * **/
+    public enum ParentKind {
+        LOCKED,
+        CONCURRENT
+    }
+
+    @Param({"1", "2", "4", "8", "16", "32", "64"})
+    public int threads;
+
+    @Param({"LOCKED", "CONCURRENT"})
+    public ParentKind kind;
+
+    private ExecutorService executor;
+
+    private DUFile[] children;
+
+    @Setup(Level.Trial)
+    public void createChildren() {
+        executor = Executors.newFixedThreadPool(threads);
+        children = new DUFile[CHILDREN];
+        for (int i = 0; i < CHILDREN; i++)
+            children[i] = new RegularDUFile(i, ROOT.resolve("file" + i));
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHILDREN)
+    public long addChildren() throws InterruptedException, ExecutionException {
+        ParentDUFile parent = kind == ParentKind.LOCKED ?
+                new DirectoryDUFile(0, ROOT) :
+                new ConcurrentDirectoryDUFile(0, ROOT, null);
+        List<Callable<Void>> tasks = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            int from = CHILDREN * t / threads;
+            int to = CHILDREN * (t + 1) / threads;
+            tasks.add(() -> {
+                for (int i = from; i < to; i++)
+                    addChild(parent, children[i]);
+                return null;
+            });
+        }
+        for (Future<Void> future : executor.invokeAll(tasks))
+            future.get();
+        return parent.getSize();
+    }
+
+    private void addChild(ParentDUFile parent, DUFile child) {
+        if (kind == ParentKind.CONCURRENT) {
+            parent.addChild(child);
+            return;
+        }
+        synchronized (parent) {
+            parent.addChild(child);
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package ru.nsu.sidey383.lab1.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.RegularDUFile;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.write.FileTreePrinter;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Скорость вывода дерева {@link FileTreePrinter}. Деревья строятся в памяти без файловой системы.
+ * <p> Методы *Legacy выводят те же деревья прежним способом, см. {@link LegacyTreePrinter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrinterBenchmark {
+
+    /**
+     * Количество файлов в директории {@link #flat}.
+     */
+    @Param({"100000", "1000000"})
+    public int flatEntries;
+
+    @Param({"10", "2147483647"})
+    public int limit;
+
+    /**
+     * Одна директория с {@link #flatEntries} файлами.
+     */
+    private ParentDUFile flat;
+
+    /**
+     * 100 директорий по 100 директорий по 20 файлов.
+     */
+    private ParentDUFile tree;
+
+    private FileTreePrinter printer;
+
+    private LegacyTreePrinter legacyPrinter;
+
+    /**
+     * Discards the output, but is buffered and flushed like {@link System#out}
+     * **/
+    private PrintStream stream;
+
+    @Setup(Level.Trial)
+    public void createTrees() {
+        SplittableRandom random = new SplittableRandom(42);
+        flat = new DirectoryDUFile(0, Path.of("/flat"));
+        addFiles(flat, flatEntries, random);
+        tree = new DirectoryDUFile(0, Path.of("/tree"));
+        for (int i = 0; i < 100; i++) {
+            DirectoryDUFile dir = new DirectoryDUFile(0, tree, name("dir" + i));
+            for (int j = 0; j < 100; j++) {
+                DirectoryDUFile subdir = new DirectoryDUFile(0, dir, name("dir" + j));
+                addFiles(subdir, 20, random);
+                dir.addChild(subdir);
+            }
+            tree.addChild(dir);
+        }
+        printer = new FileTreePrinter(DiskUsageOptions.builder()
+                .withMaxDepth(Integer.MAX_VALUE)
+                .withFileInDirLimit(limit)
+                .build());
+        legacyPrinter = new LegacyTreePrinter(printer, Integer.MAX_VALUE);
+        stream = new PrintStream(new BufferedOutputStream(OutputStream.nullOutputStream(), 128), true);
+    }
+
+    private static void addFiles(ParentDUFile parent, int count, SplittableRandom random) {
+        for (int i = 0; i < count; i++)
+            parent.addChild(new RegularDUFile(random.nextLong(1L << 40), parent, name("file" + i)));
+    }
+
+    private static Path name(String name) {
+        return Path.of(name);
+    }
+
+    /**
+     * Вывод огромной плоской директории.
+     */
+    @Benchmark
+    public void printFlat() {
+        printer.printTree(stream, flat);
+    }
+
+    /**
+     * Вывод большого дерева.
+     */
+    @Benchmark
+    public void printTree() {
+        printer.printTree(stream, tree);
+    }
+
+    @Benchmark
+    public void printFlatLegacy() {
+        legacyPrinter.printTree(stream, flat);
+    }
+
+    @Benchmark
+    public void printTreeLegacy() {
+        legacyPrinter.printTree(stream, tree);
+    }
+
+}
@@ -0,0 +1,46 @@
+package ru.nsu.sidey383.lab1.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.options.WalkerMode;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Скорость построения {@link FileTree} разными способами обхода.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScanBenchmark {
+
+    @Param({"SEQUENTIAL", "FORK_JOIN", "VIRTUAL_THREADS", "PIPELINED"})
+    public WalkerMode mode;
+
+    @Param({"false", "true"})
+    public boolean statistics;
+
+    private DiskUsageOptions options;
+
+    @Setup(Level.Trial)
+    public void createOptions() {
+        options = DiskUsageOptions.builder()
+                .withFollowLinks(true)
+                .withWalkerMode(mode)
+                .withThreadCount(Runtime.getRuntime().availableProcessors())
+                .withStatistics(statistics)
+                .build();
+    }
+
+    @Benchmark
+    public DUFileView buildTree(GeneratedTree tree, EntryCounter counter) {
+        counter.entries += tree.getEntries();
+        return FileTree.calculateTree(tree.getRoot(), options).getBaseFile();
+    }
+
+}
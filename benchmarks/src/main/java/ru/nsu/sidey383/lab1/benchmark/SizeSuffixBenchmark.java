@@ -0,0 +1,68 @@
+package ru.nsu.sidey383.lab1.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.nsu.sidey383.lab1.write.size.DefaultSizeSuffix;
+import ru.nsu.sidey383.lab1.write.size.SizeSuffix;
+import ru.nsu.sidey383.lab1.write.size.SizeSuffixIEC;
+import ru.nsu.sidey383.lab1.write.size.SizeSuffixISU;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Скорость {@link SizeSuffix#getValue(long)} для размеров разных порядков.
+ * <p> getValueLegacy выводит те же размеры прежней реализацией, см. {@link LegacySizeFormat}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SizeSuffixBenchmark {
+
+    private static final int SIZES_COUNT = 1024;
+
+    @Param({"IEC", "ISU"})
+    public String format;
+
+    private DefaultSizeSuffix suffix;
+
+    private final StringBuilder builder = new StringBuilder();
+
+    private long[] sizes;
+
+    @Setup(Level.Trial)
+    public void createSizes() {
+        suffix = format.equals("IEC") ? SizeSuffixIEC.BYTE : SizeSuffixISU.BYTE;
+        SplittableRandom random = new SplittableRandom(42);
+        sizes = new long[SIZES_COUNT];
+        for (int i = 0; i < SIZES_COUNT; i++)
+            sizes[i] = random.nextLong(1L << random.nextInt(1, 63));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZES_COUNT)
+    public void getValue(Blackhole blackhole) {
+        for (long size : sizes)
+            blackhole.consume(suffix.getValue(size));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZES_COUNT)
+    public void appendValue(Blackhole blackhole) {
+        for (long size : sizes) {
+            builder.setLength(0);
+            blackhole.consume(suffix.appendValue(builder, size).length());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZES_COUNT)
+    public void getValueLegacy(Blackhole blackhole) {
+        for (long size : sizes)
+            blackhole.consume(LegacySizeFormat.getValue(suffix, size));
+    }
+
+}
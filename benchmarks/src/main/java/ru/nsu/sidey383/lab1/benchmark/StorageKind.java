@@ -0,0 +1,76 @@
+package ru.nsu.sidey383.lab1.benchmark;
+
+import com.github.marschall.memoryfilesystem.MemoryFileSystemBuilder;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Хранилище, в котором создаётся дерево файлов для бенчмарка.
+ */
+public enum StorageKind {
+
+    /**
+     * Файловая система в памяти, не зависит от диска и кеша ОС.
+     */
+    MEMORY {
+        @Override
+        Storage open() throws IOException {
+            FileSystem fileSystem = MemoryFileSystemBuilder.newLinux().build("benchmark");
+            Path root = Files.createDirectory(fileSystem.getPath("/root"));
+            return new Storage(root, fileSystem::close);
+        }
+    },
+
+    /**
+     * Временная директория реальной файловой системы.
+     */
+    TEMP_DIR {
+        @Override
+        Storage open() throws IOException {
+            Path root = Files.createTempDirectory("jdu-benchmark").toRealPath();
+            return new Storage(root, () -> deleteTree(root));
+        }
+    };
+
+    abstract Storage open() throws IOException;
+
+    /**
+     * Корень пустой директории и способ её удаления.
+     */
+    record Storage(Path root, Cleanup cleanup) implements AutoCloseable {
+
+        @Override
+        public void close() throws IOException {
+            cleanup.run();
+        }
+
+    }
+
+    @FunctionalInterface
+    interface Cleanup {
+        void run() throws IOException;
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+}
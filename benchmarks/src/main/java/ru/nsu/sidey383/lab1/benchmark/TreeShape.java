@@ -0,0 +1,80 @@
+package ru.nsu.sidey383.lab1.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Форма генерируемого дерева файлов.
+ */
+public enum TreeShape {
+
+    /**
+     * Несколько директорий с большим количеством файлов.
+     */
+    WIDE {
+        @Override
+        int create(Path root) throws IOException {
+            int count = 0;
+            for (int i = 0; i < 20; i++) {
+                Path dir = Files.createDirectory(root.resolve("dir" + i));
+                count += 1 + createFiles(dir, 1000);
+            }
+            return count;
+        }
+    },
+
+    /**
+     * Цепочка вложенных директорий.
+     */
+    DEEP {
+        @Override
+        int create(Path root) throws IOException {
+            int count = 0;
+            Path dir = root;
+            for (int i = 0; i < 200; i++) {
+                dir = Files.createDirectory(dir.resolve("level" + i));
+                count += 1 + createFiles(dir, 50);
+            }
+            return count;
+        }
+    },
+
+    /**
+     * Директории, в которых кроме файлов есть ссылки на соседние директории и файлы.
+     */
+    SYMLINKS {
+        @Override
+        int create(Path root) throws IOException {
+            int dirs = 50;
+            int count = 0;
+            for (int i = 0; i < dirs; i++) {
+                Path dir = Files.createDirectory(root.resolve("dir" + i));
+                count += 1 + createFiles(dir, 100);
+            }
+            for (int i = 0; i < dirs; i++) {
+                Path dir = root.resolve("dir" + i);
+                for (int j = 0; j < 20; j++)
+                    Files.createSymbolicLink(dir.resolve("dirLink" + j), root.resolve("dir" + (i + j + 1) % dirs));
+                for (int j = 0; j < 50; j++)
+                    Files.createSymbolicLink(dir.resolve("fileLink" + j), root.resolve("dir" + (i + 1) % dirs).resolve("file" + j));
+                count += 70;
+            }
+            return count;
+        }
+    };
+
+    /**
+     * Создаёт дерево в пустой директории.
+     *
+     * @return количество созданных файлов, не считая корня.
+     */
+    abstract int create(Path root) throws IOException;
+
+    private static int createFiles(Path dir, int count) throws IOException {
+        for (int i = 0; i < count; i++)
+            Files.write(dir.resolve("file" + i), new byte[(i * 7919) % 1024]);
+        return count;
+    }
+
+}
@@ -0,0 +1,129 @@
+package ru.nsu.sidey383.lab1.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.DUFileType;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.walker.DUAction;
+import ru.nsu.sidey383.lab1.walker.DUFileVisitor;
+import ru.nsu.sidey383.lab1.walker.DUSystemFileWalker;
+import ru.nsu.sidey383.lab1.walker.node.DUDirectoryNode;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Скорость {@link DUSystemFileWalker} без построения дерева: только чтение директорий и атрибутов файлов.
+ * <p> Ссылки не обходятся.
+ * <p> {@link #readChildren} и {@link #readFiles} сравнивают чтение атрибутов записей относительно открытой директории
+ * с чтением по полному пути через {@link DUFile#readFile(Path)}. В хранилище без
+ * {@link java.nio.file.SecureDirectoryStream} оба способа читают файлы по полному пути.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WalkerBenchmark {
+
+    @Benchmark
+    public long walk(GeneratedTree tree, EntryCounter counter) {
+        counter.entries += tree.getEntries();
+        CountingVisitor visitor = new CountingVisitor();
+        DUSystemFileWalker.walkFiles(tree.getRoot(), visitor);
+        return visitor.visited;
+    }
+
+    /**
+     * One fstatat per entry relative to the open directory
+     * **/
+    @Benchmark
+    public void readChildren(TreeDirectories directories, EntryCounter counter, Blackhole blackhole) throws DUPathException, IOException {
+        for (Path directory : directories.paths) {
+            try (DUDirectoryNode node = new DUDirectoryNode(new DirectoryDUFile(0, directory))) {
+                Iterator<Path> iterator = node.getPathIterator();
+                while (iterator.hasNext()) {
+                    blackhole.consume(node.readChild(iterator.next()));
+                    counter.entries++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolving of the real path and lstat of the full path per entry
+     * **/
+    @Benchmark
+    public void readFiles(TreeDirectories directories, EntryCounter counter, Blackhole blackhole) throws IOException {
+        for (Path directory : directories.paths) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path path : stream) {
+                    blackhole.consume(DUFile.readFile(path));
+                    counter.entries++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Directories of the generated tree, links aren't followed
+     * **/
+    @State(Scope.Benchmark)
+    public static class TreeDirectories {
+
+        private final List<Path> paths = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void collect(GeneratedTree tree) throws IOException {
+            paths.clear();
+            collect(tree.getRoot().toRealPath());
+        }
+
+        private void collect(Path directory) throws IOException {
+            paths.add(directory);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path path : stream)
+                    if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS))
+                        collect(path);
+            }
+        }
+
+    }
+
+    private static class CountingVisitor implements DUFileVisitor {
+
+        private long visited = 0;
+
+        @Override
+        public void visitFile(DUFile file) {
+            visited++;
+        }
+
+        @Override
+        public DUAction preVisitParentFile(ParentDUFile directory) {
+            visited++;
+            return directory.getFileType() == DUFileType.LINK ? DUAction.STOP : DUAction.CONTINUE;
+        }
+
+        @Override
+        public void postVisitParentFile(ParentDUFile directory) {}
+
+        @Override
+        public void pathVisitError(Path path, DUPathException e) {}
+
+        @Override
+        public void directoryCloseError(Path path, DUPathException e) {}
+
+    }
+
+}
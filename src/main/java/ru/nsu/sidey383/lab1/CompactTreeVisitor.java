@@ -0,0 +1,189 @@
+package ru.nsu.sidey383.lab1;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.compact.CompactFileTree;
+import ru.nsu.sidey383.lab1.model.compact.CompactTreeStorage;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.DUFileType;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.WrongDUFile;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.options.FilesScanOptions;
+import ru.nsu.sidey383.lab1.walker.DUAction;
+import ru.nsu.sidey383.lab1.walker.DUFileVisitor;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Строит {@link CompactFileTree}. Объекты {@link DUFile} не сохраняются после посещения.
+ * <p> Потомки ссылок не учитываются в размере ссылки, повторно встреченные ссылки не обходятся, как и в {@link TreeVisitor}.
+ * <p> Методы синхронизированы, поэтому visitor можно использовать с параллельными способами обхода.
+ */
+final class CompactTreeVisitor implements DUFileVisitor {
+
+    private final boolean followLinks;
+
+    private final int retainDepth;
+
+    private final boolean readsUnixAttributes;
+
+    private final Collection<DUPathException> errors;
+
+    private CompactFileTree compactTree = null;
+
+    /**
+     * Directories that are being walked now
+     **/
+    private final Map<ParentDUFile, OpenParent> openParents = new IdentityHashMap<>();
+
+    private final Set<DUFile> visitedLinks = new HashSet<>();
+
+    /**
+     * @param errors коллекция, в которую собираются ошибки.
+     */
+    CompactTreeVisitor(FilesScanOptions options, Collection<DUPathException> errors) {
+        this.followLinks = options.followLink();
+        this.retainDepth = options.getRetainDepth();
+        this.readsUnixAttributes = options.readsUnixAttributes();
+        this.errors = errors;
+    }
+
+    private static final class OpenParent {
+
+        /**
+         * Node of the directory, or {@link CompactTreeStorage#NO_NODE} if the directory is folded
+         * **/
+        private final int node;
+
+        private final boolean isLink;
+
+        /**
+         * Size of the folded directory
+         * **/
+        private long foldedSize = 0;
+
+        private OpenParent(int node, boolean isLink) {
+            this.node = node;
+            this.isLink = isLink;
+        }
+
+    }
+
+    /**
+     * @return построенное дерево или null, если корень не был посещён.
+     */
+    @Nullable
+    synchronized CompactFileTree getCompactTree() {
+        return compactTree;
+    }
+
+    private void readErrors(DUFile f) {
+        if (f instanceof WrongDUFile wrf)
+            errors.add(wrf.getPathException());
+    }
+
+    @Override
+    public synchronized void visitFile(DUFile file) {
+        readErrors(file);
+        addNode(file, file.getSize());
+    }
+
+    @Override
+    public boolean readsUnixAttributes() {
+        return readsUnixAttributes;
+    }
+
+    @Override
+    public synchronized DUAction preVisitParentFile(ParentDUFile directory) {
+        readErrors(directory);
+        boolean isLink = directory.getFileType() == DUFileType.LINK;
+        if (isLink && (!followLinks || !visitedLinks.add(directory))) {
+            addNode(directory, 0);
+            return DUAction.STOP;
+        }
+        int node = addNode(directory, 0);
+        if (node != CompactTreeStorage.NO_NODE && directory instanceof DirectoryDUFile dir) {
+            compactTree.setModifiedTime(node, dir.getModifiedTime());
+            compactTree.setChangeTime(node, dir.getChangeTime());
+        }
+        openParents.put(directory, new OpenParent(node, isLink));
+        return DUAction.CONTINUE;
+    }
+
+    @Override
+    public synchronized void postVisitParentFile(ParentDUFile directory) {
+        OpenParent open = openParents.remove(directory);
+        if (open == null)
+            return;
+        if (open.node != CompactTreeStorage.NO_NODE && directory instanceof DirectoryDUFile dir && dir.hasMissingChildren())
+            // the filtered listing can't be reused by a scan with other filters
+            compactTree.setModifiedTime(open.node, CompactTreeStorage.NO_TIME);
+        long size = open.node == CompactTreeStorage.NO_NODE ? open.foldedSize : compactTree.getSize(open.node);
+        directory.getParent().map(openParents::get).ifPresent(p -> addSize(p, size));
+    }
+
+    /**
+     * @return index of the new node or {@link CompactTreeStorage#NO_NODE} if the file is folded
+     * **/
+    private int addNode(DUFile file, long size) {
+        Optional<ParentDUFile> parentFile = file.getParent();
+        if (parentFile.isEmpty()) {
+            compactTree = new CompactFileTree(file.getPath());
+            return compactTree.addNode(CompactTreeStorage.NO_NODE, file.getFileType(), CompactFileTree.nameBytes(file), size);
+        }
+        OpenParent parent = openParents.get(parentFile.get());
+        if (parent == null)
+            return CompactTreeStorage.NO_NODE;
+        addSize(parent, size);
+        if (parent.node == CompactTreeStorage.NO_NODE)
+            return CompactTreeStorage.NO_NODE;
+        if (!TreeVisitor.keepsChildren(parentFile.get(), retainDepth)) {
+            // the listing of the parent is incomplete, so it can't be reused
+            compactTree.setModifiedTime(parent.node, CompactTreeStorage.NO_TIME);
+            return CompactTreeStorage.NO_NODE;
+        }
+        return compactTree.addNode(parent.node, file.getFileType(), CompactFileTree.nameBytes(file), size);
+    }
+
+    private void addSize(OpenParent parent, long size) {
+        if (parent.isLink)
+            return;
+        if (parent.node == CompactTreeStorage.NO_NODE)
+            parent.foldedSize += size;
+        else
+            compactTree.addSize(parent.node, size);
+    }
+
+    @Override
+    public synchronized void pathVisitError(@Nullable Path path, @NotNull DUPathException e) {
+        errors.add(e);
+    }
+
+    /**
+     * Узел директории остаётся без потомков, поэтому ни её список, ни список её родителя не сохраняются.
+     */
+    @Override
+    public synchronized void parentVisitError(@NotNull ParentDUFile directory, @NotNull DUPathException e) {
+        errors.add(e);
+        OpenParent open = openParents.remove(directory);
+        if (open != null && open.node != CompactTreeStorage.NO_NODE)
+            compactTree.setModifiedTime(open.node, CompactTreeStorage.NO_TIME);
+        directory.getParent().map(openParents::get)
+                .filter(p -> p.node != CompactTreeStorage.NO_NODE)
+                .ifPresent(p -> compactTree.setModifiedTime(p.node, CompactTreeStorage.NO_TIME));
+    }
+
+    @Override
+    public synchronized void directoryCloseError(@NotNull Path path, @NotNull DUPathException e) {
+        errors.add(e);
+    }
+
+}
@@ -0,0 +1,36 @@
+package ru.nsu.sidey383.lab1;
+
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.ConcurrentParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.options.FilesScanOptions;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Потокобезопасный вариант {@link TreeVisitor} для параллельных способов обхода.
+ * <p> Потомки добавляются в {@link ConcurrentParentDUFile} без блокировки, а в остальные директории под их монитором.
+ * <p> Коллекция ошибок должна быть потокобезопасной.
+ */
+final class ConcurrentTreeVisitor extends TreeVisitor {
+
+    ConcurrentTreeVisitor(FilesScanOptions options, Collection<DUPathException> errors, @Nullable Consumer<DUFile> finishedSubtrees) {
+        super(options, errors, finishedSubtrees, new ConcurrentHashMap<>());
+    }
+
+    @Override
+    protected void addChild(ParentDUFile parent, DUFile child, boolean retain) {
+        if (parent instanceof ConcurrentParentDUFile) {
+            super.addChild(parent, child, retain);
+            return;
+        }
+        synchronized (parent) {
+            super.addChild(parent, child, retain);
+        }
+    }
+
+}
@@ -1,133 +1,323 @@
 package ru.nsu.sidey383.lab1;
 
-import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import ru.nsu.sidey383.lab1.model.file.DUFileType;
+import ru.nsu.sidey383.lab1.model.compact.CompactFileTree;
+import ru.nsu.sidey383.lab1.model.compact.CompactTreeStorage;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
 import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
 import ru.nsu.sidey383.lab1.model.file.DUFile;
-import ru.nsu.sidey383.lab1.model.file.base.WrongDUFile;
+import ru.nsu.sidey383.lab1.model.file.UnixFileAttributes;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
 import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.model.top.TopFilesCollector;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.options.FilesScanOptions;
+import ru.nsu.sidey383.lab1.stats.ScanProgress;
+import ru.nsu.sidey383.lab1.stats.ScanStatistics;
+import ru.nsu.sidey383.lab1.walker.DUDeadlineFileVisitor;
 import ru.nsu.sidey383.lab1.walker.DUFileVisitor;
-import ru.nsu.sidey383.lab1.walker.DUAction;
+import ru.nsu.sidey383.lab1.walker.DUFileWalker;
+import ru.nsu.sidey383.lab1.walker.DUFilterFileVisitor;
+import ru.nsu.sidey383.lab1.walker.DUForkJoinFileWalker;
+import ru.nsu.sidey383.lab1.walker.DUHardLinkFileVisitor;
+import ru.nsu.sidey383.lab1.walker.DUPathFilter;
+import ru.nsu.sidey383.lab1.walker.DUPipelinedFileWalker;
+import ru.nsu.sidey383.lab1.walker.DUProgressFileVisitor;
+import ru.nsu.sidey383.lab1.walker.DUStatisticsFileVisitor;
 import ru.nsu.sidey383.lab1.walker.DUSystemFileWalker;
+import ru.nsu.sidey383.lab1.walker.DUTopFilesFileVisitor;
+import ru.nsu.sidey383.lab1.walker.DUVirtualThreadFileWalker;
 
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
 
+/**
+ * Результат обхода: дерево файлов и собранные при обходе данные.
+ * <p> Каждая возможность обхода реализована отдельным {@link DUFileVisitor}, который передаёт вызовы следующему.
+ */
 public class FileTree {
 
-    private final boolean followLinks;
+    private final DUFileWalker walker;
 
-    private DUSystemFileWalker walker = null;
+    @Nullable
+    private final CompactFileTree compactTree;
+
+    private final List<TopFilesCollector.TopFile> topFiles;
+
+    private final long reusedDirectoryCount;
+
+    private final int unfinishedDirectoryCount;
+
+    private final Collection<DUPathException> errors;
 
-    private final List<DUPathException> errors;
+    @Nullable
+    private final ScanStatistics statistics;
 
-    private FileTree(boolean followLinks) {
-        this.followLinks = followLinks;
-        this.errors = new ArrayList<>();
+    private FileTree(DUFileWalker walker, @Nullable CompactFileTree compactTree, List<TopFilesCollector.TopFile> topFiles,
+                     long reusedDirectoryCount, int unfinishedDirectoryCount,
+                     Collection<DUPathException> errors, @Nullable ScanStatistics statistics) {
+        this.walker = walker;
+        this.compactTree = compactTree;
+        this.topFiles = topFiles;
+        this.reusedDirectoryCount = reusedDirectoryCount;
+        this.unfinishedDirectoryCount = unfinishedDirectoryCount;
+        this.errors = errors;
+        this.statistics = statistics;
     }
 
     public static FileTree calculateTree(Path path, boolean followLinks) {
-        // CR(minor): i think it would be better to create FIleTree after walkFiles:
-        // CR(minor): this way we avoid non-static class
-        FileTree tree = new FileTree(followLinks);
-        tree.walker = DUSystemFileWalker.walkFiles(path, tree.new TreeVisitor());
-        return tree;
+        return calculateTree(path, DiskUsageOptions.builder().withFollowLinks(followLinks).build());
     }
 
     /**
-     * @return корневой файл дерева.
+     * Строит дерево файлов способом обхода {@link FilesScanOptions#getWalkerMode()}.
+     * <p> Файлы глубже {@link FilesScanOptions#getRetainDepth()} учитываются только в размере предка.
+     * <p> При {@link FilesScanOptions#isCompactTree()} дерево сохраняется в {@link CompactFileTree}.
+     * <p> При {@link FilesScanOptions#getTopFilesCount()} больше нуля собираются самые большие файлы.
+     * <p> При {@link FilesScanOptions#followLink()} директория, к которой ведут несколько ссылок, обходится один раз.
+     * <p> При {@link FilesScanOptions#dedupHardLinks()} файл с несколькими жёсткими ссылками сохраняется только при первой встрече.
+     * <p> Файлы {@link FilesScanOptions#getExcludeGlobs()} и директории других файловых систем при {@link FilesScanOptions#oneFileSystem()}
+     * не читаются, см. {@link DUPathFilter}.
+     * <p> После {@link FilesScanOptions#getTimeBudget()} директории не открываются, а их размеры оцениваются,
+     * см. {@link FileTree#getUnfinishedDirectoryCount()}.
      */
-    @Nullable
-    public DUFile getBaseFile() {
-        return walker == null ? null : walker.getRootFile();
+    public static FileTree calculateTree(Path path, FilesScanOptions options) {
+        return calculateTree(path, options, null);
     }
 
     /**
-     * @return все {@link DUPathException}, созданные и подавленные при построении дерева.
+     * Строит дерево файлов, повторно используя предыдущее дерево.
+     * <p> Директории, время изменения которых совпадает с сохранённым в предыдущем дереве, не читаются:
+     * их потомки берутся из предыдущего дерева, а атрибуты потомков читаются заново.
+     *
+     * @param previous предыдущее дерево того же пути или null для полного обхода.
+     *
+     * @see FileTree#getReusedDirectoryCount()
      */
-    public List<DUPathException> getErrors() {
-        return List.copyOf(errors);
+    public static FileTree calculateTree(Path path, FilesScanOptions options, @Nullable CompactTreeStorage previous) {
+        return calculateTree(path, options, previous, null);
     }
 
     /**
-     * Проверяет {@link FileTree#getErrors()} на пустой список.
+     * Строит дерево файлов и передаёт каждого потомка корня, как только обход его поддерева завершён.
+     * <p> Ход обхода доступен по JMX, см. {@link ru.nsu.sidey383.lab1.stats.ScanProgressMXBean}.
+     * <p> Размер переданного файла и его поддерево больше не меняются.
+     * <p> При параллельных способах обхода finishedSubtrees вызывается из потоков обхода, возможно одновременно.
+     * <p> При {@link FilesScanOptions#isCompactTree()} объекты {@link DUFile} не сохраняются, и finishedSubtrees не вызывается.
+     *
+     * @param finishedSubtrees получатель завершённых поддеревьев или null.
      */
-    public boolean hasErrors() {
-        return !errors.isEmpty();
+    public static FileTree calculateTree(Path path, FilesScanOptions options, @Nullable CompactTreeStorage previous,
+                                         @Nullable Consumer<DUFile> finishedSubtrees) {
+        return calculateTree(path, options, previous, finishedSubtrees, new ScanProgress());
     }
 
-    private class TreeVisitor implements DUFileVisitor {
-
-        /**
-         * The key and value in this map are the same object
-         **/
-        // CR: IdentityHashMap? (haven't checked, mb ok)
-        private final Map<DUFile, DUFile> visitedLinks = new HashMap<>();
-
-        void readErrors(DUFile f) {
-            if (f instanceof WrongDUFile wrf)
-                errors.add(wrf.getPathException());
+    /**
+     * Строит дерево файлов, отмечая ход обхода в progress.
+     * <p> На время обхода progress регистрируется как {@link ru.nsu.sidey383.lab1.stats.ScanProgressMXBean}.
+     * Оставшееся время оценивается по размеру предыдущего дерева или по занятому месту файловой системы,
+     * если путь - её корень.
+     *
+     * @param progress ход обхода или null, если он не нужен.
+     */
+    public static FileTree calculateTree(Path path, FilesScanOptions options, @Nullable CompactTreeStorage previous,
+                                         @Nullable Consumer<DUFile> finishedSubtrees, @Nullable ScanProgress progress) {
+        Collection<DUPathException> errors = !options.getWalkerMode().hasSingleThreadVisitor() ?
+                new ConcurrentLinkedQueue<>() :
+                new ArrayList<>();
+        // the visitors are built from the tree outwards, the outer ones decide first
+        CompactTreeVisitor compactVisitor = null;
+        DUFileVisitor visitor;
+        if (options.isCompactTree())
+            visitor = compactVisitor = new CompactTreeVisitor(options, errors);
+        else if (options.getWalkerMode().hasSingleThreadVisitor())
+            visitor = new TreeVisitor(options, errors, finishedSubtrees);
+        else
+            visitor = new ConcurrentTreeVisitor(options, errors, finishedSubtrees);
+        DUTopFilesFileVisitor topFiles = null;
+        if (options.getTopFilesCount() > 0)
+            visitor = topFiles = new DUTopFilesFileVisitor(visitor, options.getTopFilesCount());
+        DUDeadlineFileVisitor deadline = null;
+        if (!options.getTimeBudget().isZero())
+            visitor = deadline = new DUDeadlineFileVisitor(visitor, options.getTimeBudget());
+        IncrementalFileVisitor incremental = null;
+        if (previous != null)
+            visitor = incremental = new IncrementalFileVisitor(visitor, previous);
+        boolean linkTargets = options.followLink() && UnixFileAttributes.isSupported(path);
+        if (options.dedupHardLinks() || linkTargets)
+            visitor = new DUHardLinkFileVisitor(visitor, options.dedupHardLinks(), linkTargets);
+        DUPathFilter filter = DUPathFilter.create(path, options.getExcludeGlobs(), options.oneFileSystem());
+        if (filter != null)
+            visitor = new DUFilterFileVisitor(visitor, filter);
+        if (progress != null) {
+            visitor = new DUProgressFileVisitor(visitor, progress);
+            progress.scanStarted(expectedBytes(path, previous));
+            progress.register();
         }
-
-        /**
-         * If this child contains a parent adds a parent-child relationship
-         *
-         * @param child child file
-         * **/
-        private static void addChildToParent(DUFile child) {
-            child.getParent().ifPresent(p -> p.addChild(child));
+        ScanStatistics statistics = options.collectStatistics() ? new ScanStatistics() : null;
+        if (statistics != null) {
+            visitor = new DUStatisticsFileVisitor(visitor, statistics);
+            statistics.walkStarted();
         }
-
-        /**
-         * Синхронизует отношения файлов потомок-родитель.
-         */
-        @Override
-        public void visitFile(DUFile file) {
-            readErrors(file);
-            addChildToParent(file);
+        DUFileWalker walker;
+        try {
+            walker = switch (options.getWalkerMode()) {
+                case SEQUENTIAL -> DUSystemFileWalker.walkFiles(path, visitor);
+                case FORK_JOIN -> DUForkJoinFileWalker.walkFiles(path, visitor, options.getThreadCount());
+                case VIRTUAL_THREADS -> DUVirtualThreadFileWalker.walkFiles(path, visitor, options.getMaxConcurrentStats());
+                case PIPELINED -> DUPipelinedFileWalker.walkFiles(path, visitor, options.getThreadCount());
+            };
+        } finally {
+            if (progress != null)
+                progress.unregister();
         }
+        if (deadline != null && deadline.getUnfinishedDirectoryCount() > 0)
+            deadline.extrapolateUnfinished();
+        FileTree tree = new FileTree(walker,
+                compactVisitor == null ? null : compactVisitor.getCompactTree(),
+                topFiles == null ? List.of() : topFiles.getTopFiles(),
+                incremental == null ? 0 : incremental.getReusedDirectoryCount(),
+                deadline == null ? 0 : deadline.getUnfinishedDirectoryCount(),
+                errors, statistics);
+        if (statistics != null)
+            tree.finishStatistics();
+        return tree;
+    }
 
-        @Override
-        public DUAction preVisitParentFile(ParentDUFile directory) {
-            readErrors(directory);
-            if (directory.getFileType() == DUFileType.LINK) {
-                if (followLinks) {
-                    // CR: let's discuss on next offline code review
-                    DUFile link = visitedLinks.merge(directory, directory, (duFile, duFile2) -> {
-                        duFile2.getParent().ifPresent(p -> p.addChild(duFile));
-                        return duFile;
-                    });
-                    if (link != directory)
-                        return DUAction.STOP;
-                } else {
-                    addChildToParent(directory);
-                    return DUAction.STOP;
-                }
-            }
-            return DUAction.CONTINUE;
+    /**
+     * Size of the previous tree or the used space of the file store, if the path is its root
+     * **/
+    private static long expectedBytes(Path path, @Nullable CompactTreeStorage previous) {
+        if (previous != null && previous.getNodeCount() > 0)
+            return previous.getSize(0);
+        try {
+            Path realPath = path.toRealPath();
+            FileStore store = Files.getFileStore(realPath);
+            Path parent = realPath.getParent();
+            if (parent != null && store.equals(Files.getFileStore(parent)))
+                return -1;
+            return store.getTotalSpace() - store.getUnallocatedSpace();
+        } catch (IOException e) {
+            return -1;
         }
+    }
 
-        @Override
-        public void postVisitParentFile(ParentDUFile directory) {
-            addChildToParent(directory);
+    private void finishStatistics() {
+        long nodeCount;
+        long retainedBytes;
+        if (compactTree != null) {
+            nodeCount = compactTree.getNodeCount();
+            retainedBytes = compactTree.getRetainedBytes();
+        } else {
+            nodeCount = countNodes(getRootFile());
+            retainedBytes = -1;
         }
+        statistics.walkFinished(nodeCount, retainedBytes, errors);
+    }
 
-        /**
-         * Собирает все ошибки.
-         *
-         * @see FileTree#getErrors()
-         */
-        @Override
-        public void pathVisitError(@Nullable Path path, @NotNull DUPathException e) {
-            errors.add(e);
+    private static long countNodes(@Nullable DUFile root) {
+        if (root == null)
+            return 0;
+        long count = 0;
+        Deque<DUFile> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            DUFile file = stack.pop();
+            count++;
+            if (file instanceof ParentDUFile parent)
+                parent.getChildren().forEach(stack::push);
         }
+        return count;
+    }
 
-        @Override
-        public void directoryCloseError(@NotNull Path path, @NotNull DUPathException e) {
-            errors.add(e);
-        }
+    /**
+     * @return корневой файл дерева, построенного любым способом, для вывода.
+     */
+    @Nullable
+    public DUFileView getBaseFile() {
+        if (compactTree != null)
+            return compactTree.getRootFile();
+        return getRootFile();
+    }
 
+    /**
+     * @return корень дерева объектов {@link DUFile}, которое можно изменять,
+     * или null, если дерево построено при {@link FilesScanOptions#isCompactTree()}.
+     */
+    @Nullable
+    public DUFile getRootFile() {
+        return compactTree != null ? null : walker.getRootFile();
+    }
+
+    /**
+     * @return дерево, построенное при {@link FilesScanOptions#isCompactTree()}, иначе null.
+     */
+    @Nullable
+    public CompactFileTree getCompactTree() {
+        return compactTree;
+    }
+
+    /**
+     * @return дерево в виде {@link CompactTreeStorage}. Если дерево было построено из объектов, то возвращает его копию.
+     */
+    @Nullable
+    public CompactTreeStorage toCompactTree() {
+        if (compactTree != null)
+            return compactTree;
+        DUFile root = getRootFile();
+        return root == null ? null : CompactFileTree.copyOf(root);
+    }
+
+    /**
+     * @return самые большие файлы в порядке уменьшения размера
+     * или пустой список, если {@link FilesScanOptions#getTopFilesCount()} равен нулю.
+     */
+    public List<TopFilesCollector.TopFile> getTopFiles() {
+        return topFiles;
+    }
+
+    /**
+     * @return количество директорий, список потомков которых был взят из предыдущего дерева.
+     */
+    public long getReusedDirectoryCount() {
+        return reusedDirectoryCount;
+    }
+
+    /**
+     * Необойдённые директории и их предки отмечены {@link DirectoryDUFile#isIncomplete()},
+     * а их размеры оценены по соседним директориям.
+     *
+     * @return количество директорий, не открытых из-за {@link FilesScanOptions#getTimeBudget()}.
+     */
+    public int getUnfinishedDirectoryCount() {
+        return unfinishedDirectoryCount;
+    }
+
+    /**
+     * @return все {@link DUPathException}, созданные и подавленные при построении дерева.
+     */
+    public List<DUPathException> getErrors() {
+        return List.copyOf(errors);
+    }
+
+    /**
+     * @return статистика сканирования при {@link FilesScanOptions#collectStatistics()}, иначе null.
+     */
+    @Nullable
+    public ScanStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Проверяет {@link FileTree#getErrors()} на пустой список.
+     */
+    public boolean hasErrors() {
+        return !errors.isEmpty();
     }
 
 }
@@ -0,0 +1,99 @@
+package ru.nsu.sidey383.lab1;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.compact.CompactTreeStorage;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.stats.ScanStatistics;
+import ru.nsu.sidey383.lab1.walker.DUAction;
+import ru.nsu.sidey383.lab1.walker.DUFileVisitor;
+import ru.nsu.sidey383.lab1.walker.DUPathFilter;
+
+import java.nio.file.Path;
+import java.util.Collection;
+
+/**
+ * Передаёт вызовы другому visitor и берёт списки потомков неизменённых директорий из предыдущего дерева,
+ * см. {@link IncrementalScan}.
+ * <p> Директория, которую visitor не обходит, не сопоставляется с предыдущим деревом.
+ * <p> Потокобезопасен, если потокобезопасен исходный visitor.
+ */
+final class IncrementalFileVisitor implements DUFileVisitor {
+
+    private final DUFileVisitor visitor;
+
+    private final IncrementalScan incremental;
+
+    IncrementalFileVisitor(@NotNull DUFileVisitor visitor, @NotNull CompactTreeStorage previous) {
+        this.visitor = visitor;
+        this.incremental = new IncrementalScan(previous);
+    }
+
+    /**
+     * @return количество директорий, список потомков которых был взят из предыдущего дерева.
+     */
+    long getReusedDirectoryCount() {
+        return incremental.getReusedDirectoryCount();
+    }
+
+    @Override
+    public void visitFile(DUFile file) {
+        visitor.visitFile(file);
+    }
+
+    @Override
+    public DUAction preVisitParentFile(ParentDUFile directory) {
+        DUAction action = visitor.preVisitParentFile(directory);
+        if (action == DUAction.STOP)
+            return action;
+        return incremental.preVisit(directory);
+    }
+
+    @Override
+    public @Nullable Collection<Path> getCachedChildren(ParentDUFile directory) {
+        return incremental.getChildren(directory);
+    }
+
+    /**
+     * Время изменения метаданных сравнивается с сохранённым, см. {@link IncrementalScan}.
+     */
+    @Override
+    public boolean readsUnixAttributes() {
+        return true;
+    }
+
+    @Override
+    public @Nullable DUPathFilter getPathFilter() {
+        return visitor.getPathFilter();
+    }
+
+    @Override
+    public @Nullable ScanStatistics getStatistics() {
+        return visitor.getStatistics();
+    }
+
+    @Override
+    public void postVisitParentFile(ParentDUFile directory) {
+        incremental.postVisit(directory);
+        visitor.postVisitParentFile(directory);
+    }
+
+    @Override
+    public void pathVisitError(@Nullable Path path, @NotNull DUPathException e) {
+        visitor.pathVisitError(path, e);
+    }
+
+    @Override
+    public void parentVisitError(@NotNull ParentDUFile directory, @NotNull DUPathException e) {
+        incremental.postVisit(directory);
+        visitor.parentVisitError(directory, e);
+    }
+
+    @Override
+    public void directoryCloseError(@NotNull Path path, @NotNull DUPathException e) {
+        visitor.directoryCloseError(path, e);
+    }
+
+}
@@ -0,0 +1,152 @@
+package ru.nsu.sidey383.lab1;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.compact.CompactFileTree;
+import ru.nsu.sidey383.lab1.model.compact.CompactTreeStorage;
+import ru.nsu.sidey383.lab1.model.file.DUFileType;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.util.NativeNames;
+import ru.nsu.sidey383.lab1.walker.DUAction;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystem;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Сопоставляет директории текущего обхода с узлами предыдущего дерева.
+ * <p> Если время изменения директории и время изменения её метаданных совпадают с сохранёнными,
+ * то список её потомков берётся из предыдущего дерева. Время изменения метаданных сравнивается, только если оно сохранено,
+ * и не даёт пропустить изменение, после которого время изменения директории восстановили.
+ * <p> Пути потомков собираются из байтов имён, поэтому имена не в UTF-8 не теряются.
+ * <p> Потокобезопасно.
+ */
+final class IncrementalScan {
+
+    private final CompactTreeStorage previous;
+
+    /**
+     * Directories that are being walked now and their nodes in the previous tree
+     * **/
+    private final Map<ParentDUFile, PreviousDirectory> directories = new ConcurrentHashMap<>();
+
+    private final LongAdder reusedDirectories = new LongAdder();
+
+    IncrementalScan(@NotNull CompactTreeStorage previous) {
+        this.previous = previous;
+    }
+
+    private final class PreviousDirectory {
+
+        private final int node;
+
+        /**
+         * Child directories by the bytes of the name, built on the first lookup
+         * **/
+        private Map<ByteBuffer, Integer> childDirectories = null;
+
+        private PreviousDirectory(int node) {
+            this.node = node;
+        }
+
+        private synchronized int findChildDirectory(byte[] name) {
+            if (childDirectories == null) {
+                childDirectories = new HashMap<>();
+                for (int child = previous.getFirstChild(node); child != CompactTreeStorage.NO_NODE; child = previous.getNextSibling(child))
+                    if (previous.getType(child) == DUFileType.DIRECTORY)
+                        childDirectories.put(ByteBuffer.wrap(previous.getNameBytes(child)), child);
+            }
+            return childDirectories.getOrDefault(ByteBuffer.wrap(name), CompactTreeStorage.NO_NODE);
+        }
+
+    }
+
+    /**
+     * @return {@link DUAction#REUSE_LISTING}, если директория не изменилась с предыдущего обхода, иначе {@link DUAction#CONTINUE}.
+     */
+    DUAction preVisit(ParentDUFile directory) {
+        if (!(directory instanceof DirectoryDUFile dir))
+            return DUAction.CONTINUE;
+        int node;
+        try {
+            node = findNode(dir);
+        } catch (UncheckedIOException e) {
+            // the listing of the parent in the previous tree is corrupted
+            return DUAction.CONTINUE;
+        }
+        if (node == CompactTreeStorage.NO_NODE)
+            return DUAction.CONTINUE;
+        directories.put(dir, new PreviousDirectory(node));
+        long time = previous.getModifiedTime(node);
+        if (time == CompactTreeStorage.NO_TIME || time != dir.getModifiedTime())
+            return DUAction.CONTINUE;
+        long changeTime = previous.getChangeTime(node);
+        if (changeTime != CompactTreeStorage.NO_TIME && changeTime != dir.getChangeTime())
+            return DUAction.CONTINUE;
+        return DUAction.REUSE_LISTING;
+    }
+
+    /**
+     * @return пути потомков директории в предыдущем дереве или null, если директорию нужно прочитать.
+     */
+    @Nullable
+    Collection<Path> getChildren(ParentDUFile directory) {
+        PreviousDirectory previousDirectory = directories.get(directory);
+        if (previousDirectory == null)
+            return null;
+        Path path = directory.getPath();
+        FileSystem fileSystem = path.getFileSystem();
+        List<Path> children = new ArrayList<>();
+        try {
+            for (int child = previous.getFirstChild(previousDirectory.node); child != CompactTreeStorage.NO_NODE; child = previous.getNextSibling(child))
+                children.add(path.resolve(NativeNames.toPath(fileSystem, previous.getNameBytes(child))));
+        } catch (InvalidPathException e) {
+            // the saved name isn't a valid name of this file system
+            return null;
+        } catch (UncheckedIOException e) {
+            // the listing in the previous tree is corrupted
+            return null;
+        }
+        reusedDirectories.increment();
+        return children;
+    }
+
+    void postVisit(ParentDUFile directory) {
+        directories.remove(directory);
+    }
+
+    /**
+     * @return количество директорий, которые не были прочитаны.
+     */
+    long getReusedDirectoryCount() {
+        return reusedDirectories.sum();
+    }
+
+    private int findNode(DirectoryDUFile directory) {
+        Optional<ParentDUFile> parent = directory.getParent();
+        if (parent.isEmpty()) {
+            // the previous root is restored in the default file system, so compare bytes
+            boolean sameRoot = previous.getNodeCount() > 0 &&
+                    previous.getType(0) == DUFileType.DIRECTORY &&
+                    Arrays.equals(NativeNames.toBytes(previous.getRootPath()), NativeNames.toBytes(directory.getPath()));
+            return sameRoot ? 0 : CompactTreeStorage.NO_NODE;
+        }
+        PreviousDirectory previousParent = directories.get(parent.get());
+        if (previousParent == null)
+            return CompactTreeStorage.NO_NODE;
+        return previousParent.findChildDirectory(CompactFileTree.nameBytes(directory));
+    }
+
+}
@@ -1,11 +1,22 @@
 package ru.nsu.sidey383.lab1;
 
 import ru.nsu.sidey383.lab1.exception.DUOptionReadException;
+import ru.nsu.sidey383.lab1.model.compact.SnapshotFileTree;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
 import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
 import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.stats.ScanOperation;
+import ru.nsu.sidey383.lab1.stats.ScanProgress;
+import ru.nsu.sidey383.lab1.stats.ScanStatistics;
+import ru.nsu.sidey383.lab1.watch.TreeWatcher;
 import ru.nsu.sidey383.lab1.write.FileTreePrinter;
+import ru.nsu.sidey383.lab1.write.ScanProgressReporter;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class Main {
 
@@ -26,14 +37,116 @@ public class Main {
             return;
         }
 
-        FileTree fileTree = FileTree.calculateTree(options.getFilePath(), options.followLink());
-
-        if (fileTree.hasErrors())
-            for (DUPathException error : fileTree.getErrors())
-                System.err.println(error.toUserMessage());
         FileTreePrinter printer = new FileTreePrinter(options);
 
-        printer.printTree(System.out, fileTree.getBaseFile());
+        if (options.getFromSnapshotPath() != null) {
+            SnapshotFileTree snapshot;
+            try {
+                snapshot = SnapshotFileTree.open(options.getFromSnapshotPath());
+            } catch (IOException e) {
+                System.err.println("Can't read snapshot " + options.getFromSnapshotPath() + ": " + e.getMessage());
+                return;
+            }
+            try {
+                printer.printTree(System.out, snapshot.getRootFile());
+            } catch (UncheckedIOException e) {
+                System.err.println("Can't read snapshot " + options.getFromSnapshotPath() + ": " + e.getCause().getMessage());
+            }
+            return;
+        }
+
+        SnapshotFileTree previous = null;
+        if (options.getIncrementalSnapshotPath() != null) {
+            try {
+                previous = SnapshotFileTree.open(options.getIncrementalSnapshotPath());
+            } catch (NoSuchFileException e) {
+                // the first incremental scan
+            } catch (IOException e) {
+                System.err.println("Can't read snapshot " + options.getIncrementalSnapshotPath() + ": " + e.getMessage());
+            }
+        }
+
+        ScanProgress progress = new ScanProgress();
+        FileTree fileTree;
+        ScanProgressReporter reporter = !options.trackProgress() ? null :
+                ScanProgressReporter.start(progress, System.err, options.getByteSizeSuffix().getByteSuffix());
+        try {
+            if (options.isStreamOutput()) {
+                // subtrees can be finished in several threads at once
+                Object outputLock = new Object();
+                fileTree = FileTree.calculateTree(options.getFilePath(), options, previous, subtree -> {
+                    synchronized (outputLock) {
+                        printer.printSubtree(System.out, subtree, 1);
+                    }
+                }, progress);
+            } else {
+                fileTree = FileTree.calculateTree(options.getFilePath(), options, previous, null, progress);
+            }
+        } finally {
+            if (reporter != null)
+                reporter.close();
+        }
+
+        if (previous != null)
+            System.err.println("Reused directory listings: " + fileTree.getReusedDirectoryCount());
+        if (fileTree.getUnfinishedDirectoryCount() > 0)
+            System.err.println("Time budget expired, directories not scanned: " + fileTree.getUnfinishedDirectoryCount()
+                    + ", sizes marked with ~ are estimated");
+
+        printErrors(fileTree.getErrors());
+        if (options.getSaveSnapshotPath() != null) {
+            try {
+                SnapshotFileTree.write(fileTree.toCompactTree(), options.getSaveSnapshotPath());
+            } catch (IOException e) {
+                System.err.println("Can't save snapshot " + options.getSaveSnapshotPath() + ": " + e.getMessage());
+            }
+        }
+
+        long printStart = System.nanoTime();
+        if (options.getTopFilesCount() > 0)
+            printer.printTopFiles(System.out, fileTree.getTopFiles());
+        else if (options.isStreamOutput())
+            printer.printFile(System.out, fileTree.getBaseFile());
+        else
+            printer.printTree(System.out, fileTree.getBaseFile());
+
+        ScanStatistics statistics = fileTree.getStatistics();
+        if (statistics != null) {
+            statistics.record(ScanOperation.PRINT, printStart);
+            statistics.printReport(System.err);
+        }
+
+        if (options.getWatchInterval() > 0)
+            watch(options, printer, fileTree.getRootFile());
+    }
+
+    /**
+     * Выводит дерево заново после изменений, но не чаще {@link DiskUsageOptions#getWatchInterval()}.
+     */
+    private static void watch(DiskUsageOptions options, FileTreePrinter printer, DUFile root) {
+        try (TreeWatcher watcher = new TreeWatcher(root, options)) {
+            long interval = TimeUnit.SECONDS.toNanos(options.getWatchInterval());
+            while (true) {
+                printErrors(watcher.pollErrors());
+                long deadline = System.nanoTime() + interval;
+                boolean changed = false;
+                for (long left = interval; left > 0; left = deadline - System.nanoTime())
+                    changed |= watcher.processEvents(left, TimeUnit.NANOSECONDS);
+                if (changed) {
+                    System.out.println();
+                    printer.printTree(System.out, watcher.getRoot());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Can't watch " + root.getPath() + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void printErrors(List<DUPathException> errors) {
+        for (DUPathException error : errors)
+            System.err.println(error.toUserMessage());
     }
 
     private static String usage() {
@@ -41,10 +154,50 @@ public class Main {
                 jdu [options] <path to file>
                     --depth n
                         depth of recursion
+                    --fold-hidden
+                        don't keep files deeper than the depth of recursion in memory
+                    -s, --summarize
+                        show only the total size of the file
+                    --top-files n
+                        show the n heaviest files under the path instead of the tree
+                    --dedup-hard-links
+                        count a file with several hard links only once
+                    --exclude glob
+                        skip the files whose name matches the glob, can be repeated
+                    -x, --one-file-system
+                        skip the directories on other file systems
+                    --compact
+                        keep the file tree in compact arrays instead of objects,
+                        can't be used with --watch, --stream or --time-budget
                     -L
                         check symlink
+                    --threads n
+                        scan directories in n threads
+                    --virtual-threads n
+                        scan directories in virtual threads with at most n concurrent file stats
+                    --prefetch n
+                        walk in one thread while n threads read directories ahead, can't be used with --threads
                     --limit n
                         show the n heaviest files and/or directories
+                    --stream
+                        print each child of the path as soon as it is scanned and the path itself at the end,
+                        can't be used with --summarize, --top-files or --time-budget
+                    --stats
+                        print the scan statistics to the standard error stream
+                    --progress
+                        show the scan progress on the standard error stream, it is a JMX bean anyway
+                    --watch n
+                        keep watching the file tree and print it again at most every n seconds after changes,
+                        can't be used with --fold-hidden, --top-files or --time-budget
+                    --time-budget n
+                        stop opening directories after n seconds and estimate the sizes of the rest
+                    --save-snapshot file
+                        save the file tree to the snapshot file
+                    --from-snapshot file
+                        print the file tree from the snapshot file instead of scanning
+                    --incremental file
+                        don't list the directories that haven't changed since the snapshot file was saved,
+                        the tree is walked fully if the file doesn't exist
                     --size-format [IEC | ISU]
                         file size format
                 """;
@@ -0,0 +1,183 @@
+package ru.nsu.sidey383.lab1;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.DUFileType;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.WrongDUFile;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.options.FilesScanOptions;
+import ru.nsu.sidey383.lab1.walker.DUAction;
+import ru.nsu.sidey383.lab1.walker.DUFileVisitor;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Строит дерево объектов {@link DUFile}, добавляя каждый посещённый файл к его родителю.
+ * <p> Файлы глубже {@link FilesScanOptions#getRetainDepth()} учитываются только в размере предка.
+ * <p> Директория, к которой ведут несколько ссылок, обходится один раз.
+ */
+class TreeVisitor implements DUFileVisitor {
+
+    private final boolean followLinks;
+
+    private final int retainDepth;
+
+    private final boolean readsUnixAttributes;
+
+    private final Collection<DUPathException> errors;
+
+    @Nullable
+    private final Consumer<DUFile> finishedSubtrees;
+
+    /**
+     * The key and value in this map are the same object
+     **/
+    // CR: IdentityHashMap? (haven't checked, mb ok)
+    private final Map<DUFile, DUFile> visitedLinks;
+
+    /**
+     * @param errors           коллекция, в которую собираются ошибки.
+     * @param finishedSubtrees получатель потомков корня, обход которых завершён, или null.
+     */
+    TreeVisitor(FilesScanOptions options, Collection<DUPathException> errors, @Nullable Consumer<DUFile> finishedSubtrees) {
+        this(options, errors, finishedSubtrees, new HashMap<>());
+    }
+
+    protected TreeVisitor(FilesScanOptions options, Collection<DUPathException> errors,
+                          @Nullable Consumer<DUFile> finishedSubtrees, Map<DUFile, DUFile> visitedLinks) {
+        this.followLinks = options.followLink();
+        this.retainDepth = options.getRetainDepth();
+        this.readsUnixAttributes = options.readsUnixAttributes();
+        this.errors = errors;
+        this.finishedSubtrees = finishedSubtrees;
+        this.visitedLinks = visitedLinks;
+    }
+
+    /**
+     * If this child contains a parent adds a parent-child relationship
+     *
+     * @param child child file
+     * **/
+    private void addChildToParent(DUFile child) {
+        child.getParent().ifPresent(p -> {
+            addChild(p, child, keepsChildren(p, retainDepth));
+            finishChild(p, child);
+        });
+    }
+
+    /**
+     * @param retain сохранить потомка или только учесть его размер.
+     */
+    protected void addChild(ParentDUFile parent, DUFile child, boolean retain) {
+        if (retain)
+            parent.addChild(child);
+        else
+            parent.foldChild(child);
+    }
+
+    private void finishChild(ParentDUFile parent, DUFile child) {
+        if (finishedSubtrees != null && parent.getParent().isEmpty())
+            finishedSubtrees.accept(child);
+    }
+
+    /**
+     * Проверяет, что глубина директории меньше retainDepth.
+     * <p> Поднимается по дереву не выше этой глубины.
+     */
+    static boolean keepsChildren(ParentDUFile parent, int retainDepth) {
+        if (retainDepth == Integer.MAX_VALUE)
+            return true;
+        int depth = 0;
+        for (Optional<ParentDUFile> p = parent.getParent(); p.isPresent(); p = p.get().getParent())
+            if (++depth >= retainDepth)
+                return false;
+        return depth < retainDepth;
+    }
+
+    /**
+     * Отмечает, что список потомков родителя директории неполон, см. {@link DirectoryDUFile#markMissingChildren()}.
+     */
+    private static void markMissingChild(ParentDUFile directory) {
+        directory.getParent().ifPresent(p -> {
+            if (p instanceof DirectoryDUFile parent)
+                parent.markMissingChildren();
+        });
+    }
+
+    private void readErrors(DUFile f) {
+        if (f instanceof WrongDUFile wrf)
+            errors.add(wrf.getPathException());
+    }
+
+    /**
+     * Синхронизует отношения файлов потомок-родитель.
+     */
+    @Override
+    public void visitFile(DUFile file) {
+        readErrors(file);
+        addChildToParent(file);
+    }
+
+    @Override
+    public boolean readsUnixAttributes() {
+        return readsUnixAttributes;
+    }
+
+    @Override
+    public DUAction preVisitParentFile(ParentDUFile directory) {
+        readErrors(directory);
+        if (directory.getFileType() == DUFileType.LINK) {
+            if (followLinks) {
+                // CR: let's discuss on next offline code review
+                DUFile link = visitedLinks.merge(directory, directory, (duFile, duFile2) -> {
+                    duFile2.getParent().ifPresent(p -> addChild(p, duFile, keepsChildren(p, retainDepth)));
+                    return duFile;
+                });
+                if (link != directory)
+                    return DUAction.STOP;
+            } else {
+                addChildToParent(directory);
+                return DUAction.STOP;
+            }
+        }
+        return DUAction.CONTINUE;
+    }
+
+    @Override
+    public void postVisitParentFile(ParentDUFile directory) {
+        addChildToParent(directory);
+    }
+
+    /**
+     * Собирает все ошибки.
+     *
+     * @see FileTree#getErrors()
+     */
+    @Override
+    public void pathVisitError(@Nullable Path path, @NotNull DUPathException e) {
+        errors.add(e);
+    }
+
+    /**
+     * Директория не попадает в дерево, поэтому список потомков её родителя неполон.
+     */
+    @Override
+    public void parentVisitError(@NotNull ParentDUFile directory, @NotNull DUPathException e) {
+        errors.add(e);
+        markMissingChild(directory);
+    }
+
+    @Override
+    public void directoryCloseError(@NotNull Path path, @NotNull DUPathException e) {
+        errors.add(e);
+    }
+
+}
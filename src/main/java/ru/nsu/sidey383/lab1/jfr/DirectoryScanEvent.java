@@ -0,0 +1,49 @@
+package ru.nsu.sidey383.lab1.jfr;
+
+import jdk.jfr.*;
+
+import java.nio.file.Path;
+
+/**
+ * Чтение директории от открытия до закрытия.
+ * <p> Объект создаётся, только если событие включено, см. {@link #beginIfEnabled()}.
+ */
+@Name("ru.nsu.sidey383.jdu.DirectoryScan")
+@Label("Directory Scan")
+@Category("jdu")
+@Description("Directory stream from opening to closing")
+public final class DirectoryScanEvent extends Event {
+
+    @Label("Path")
+    private String path;
+
+    @Label("Entries")
+    @Description("Entries read from the directory")
+    private int entryCount;
+
+    /**
+     * Проверочный объект события не покидает метод, поэтому при выключенном событии ничего не создаётся.
+     *
+     * @return начатое событие или null, если событие выключено.
+     */
+    public static DirectoryScanEvent beginIfEnabled() {
+        if (!new DirectoryScanEvent().isEnabled())
+            return null;
+        DirectoryScanEvent event = new DirectoryScanEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Завершает событие и записывает его, если оно проходит настройки записи.
+     */
+    public void commit(Path path, int entryCount) {
+        end();
+        if (shouldCommit()) {
+            this.path = path.toString();
+            this.entryCount = entryCount;
+            commit();
+        }
+    }
+
+}
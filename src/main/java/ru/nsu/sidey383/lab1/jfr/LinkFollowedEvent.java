@@ -0,0 +1,34 @@
+package ru.nsu.sidey383.lab1.jfr;
+
+import jdk.jfr.*;
+
+import java.nio.file.Path;
+
+/**
+ * Переход по символической ссылке: разрешение цели и чтение её атрибутов.
+ */
+@Name("ru.nsu.sidey383.jdu.LinkFollowed")
+@Label("Link Followed")
+@Category("jdu")
+@Description("Resolution of the target of a symbolic link and reading of its attributes")
+public final class LinkFollowedEvent extends Event {
+
+    @Label("Path")
+    private String path;
+
+    @Label("Target")
+    private String target;
+
+    /**
+     * Завершает событие и записывает его, если оно проходит настройки записи.
+     */
+    public void commit(Path path, Path target) {
+        end();
+        if (shouldCommit()) {
+            this.path = path.toString();
+            this.target = target.toString();
+            commit();
+        }
+    }
+
+}
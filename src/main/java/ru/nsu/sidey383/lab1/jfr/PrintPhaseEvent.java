@@ -0,0 +1,51 @@
+package ru.nsu.sidey383.lab1.jfr;
+
+import jdk.jfr.*;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
+
+/**
+ * Вывод результата: дерево, поддерево, один файл или самые большие файлы.
+ * <p> Объект создаётся, только если событие включено, см. {@link #beginIfEnabled()}.
+ */
+@Name("ru.nsu.sidey383.jdu.PrintPhase")
+@Label("Print Phase")
+@Category("jdu")
+@Description("Printing of the scan result")
+public final class PrintPhaseEvent extends Event {
+
+    @Label("Path")
+    @Description("Root of the printed files")
+    private String path;
+
+    @Label("Phase")
+    private String phase;
+
+    /**
+     * @return начатое событие или null, если событие выключено.
+     *
+     * @see DirectoryScanEvent#beginIfEnabled()
+     */
+    public static PrintPhaseEvent beginIfEnabled() {
+        if (!new PrintPhaseEvent().isEnabled())
+            return null;
+        PrintPhaseEvent event = new PrintPhaseEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Завершает событие и записывает его, если оно проходит настройки записи.
+     * <p> Путь корня, который у компактного дерева собирается из имён, читается только для записываемого события.
+     *
+     * @param root корень выведенных файлов или null, если он неизвестен.
+     */
+    public void commit(DUFileView root, String phase) {
+        end();
+        if (shouldCommit()) {
+            this.path = root == null ? null : root.getPath().toString();
+            this.phase = phase;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package ru.nsu.sidey383.lab1.jfr;
+
+import jdk.jfr.*;
+
+import java.nio.file.Path;
+
+/**
+ * Чтение атрибутов записи директории дольше порога.
+ * <p> Объект создаётся, только если событие включено, см. {@link #beginIfEnabled()}.
+ */
+@Name("ru.nsu.sidey383.jdu.SlowStat")
+@Label("Slow Stat")
+@Category("jdu")
+@Description("Reading of the attributes of a directory entry that took longer than the threshold")
+@Threshold("10 ms")
+public final class SlowStatEvent extends Event {
+
+    @Label("Path")
+    private String path;
+
+    /**
+     * @return начатое событие или null, если событие выключено.
+     *
+     * @see DirectoryScanEvent#beginIfEnabled()
+     */
+    public static SlowStatEvent beginIfEnabled() {
+        if (!new SlowStatEvent().isEnabled())
+            return null;
+        SlowStatEvent event = new SlowStatEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Завершает событие и записывает его, если оно дольше порога.
+     */
+    public void commit(Path path) {
+        end();
+        if (shouldCommit()) {
+            this.path = path.toString();
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package ru.nsu.sidey383.lab1.model.compact;
+
+import org.jetbrains.annotations.NotNull;
+import ru.nsu.sidey383.lab1.model.file.BaseDUFile;
+import ru.nsu.sidey383.lab1.model.file.DUFileType;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
+import ru.nsu.sidey383.lab1.util.NativeNames;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Представление узла {@link CompactTreeStorage} в виде {@link DUFileView}.
+ * <p> Объекты создаются по запросу и не хранятся в дереве. Дерево доступно только для чтения.
+ * <p> Путь узла восстанавливается по цепочке родителей, поэтому для потомков ссылок он отличается от реального пути.
+ */
+public class CompactDUFile implements DUFileView {
+
+    protected final CompactTreeStorage storage;
+
+    protected final int node;
+
+    protected CompactDUFile(@NotNull CompactTreeStorage storage, int node) {
+        this.storage = storage;
+        this.node = node;
+    }
+
+    /**
+     * @return {@link CompactParentDUFile} для директорий и ссылок, иначе {@link CompactDUFile}.
+     */
+    public static CompactDUFile of(@NotNull CompactTreeStorage storage, int node) {
+        return switch (storage.getType(node)) {
+            case DIRECTORY, LINK -> new CompactParentDUFile(storage, node);
+            case REGULAR_FILE, OTHER -> new CompactDUFile(storage, node);
+        };
+    }
+
+    public int getNode() {
+        return node;
+    }
+
+    @Override
+    public long getSize() {
+        return storage.getSize(node);
+    }
+
+    @NotNull
+    public Optional<CompactParentDUFile> getParent() {
+        int parent = storage.getParent(node);
+        return parent == CompactTreeStorage.NO_NODE ?
+                Optional.empty() :
+                Optional.of(new CompactParentDUFile(storage, parent));
+    }
+
+    @Override
+    public @NotNull DUFileType getFileType() {
+        return storage.getType(node);
+    }
+
+    @Override
+    public @NotNull Path getPath() {
+        int parent = storage.getParent(node);
+        if (parent == CompactTreeStorage.NO_NODE)
+            return storage.getRootPath();
+        return new CompactParentDUFile(storage, parent).getPath().resolve(getFileName());
+    }
+
+    @Override
+    public @NotNull Path getFileName() {
+        return NativeNames.toPath(storage.getRootPath().getFileSystem(), storage.getNameBytes(node));
+    }
+
+    @Override
+    public @NotNull String getSimpleName() {
+        return storage.getName(node);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof CompactDUFile file && file.storage == storage)
+            return file.node == node;
+        return (obj instanceof DUFileView file) && getPath().equals(file.getPath());
+    }
+
+    @Override
+    public int hashCode() {
+        return BaseDUFile.pathHash(getPath());
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + "{" +
+                "node=" + node +
+                ", size=" + getSize() +
+                ", path=" + getPath() +
+                '}';
+    }
+}
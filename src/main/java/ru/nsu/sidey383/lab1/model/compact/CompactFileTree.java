@@ -0,0 +1,262 @@
+package ru.nsu.sidey383.lab1.model.compact;
+
+import org.jetbrains.annotations.NotNull;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.DUFileType;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.util.NativeNames;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+
+/**
+ * Дерево файлов в виде набора примитивных массивов.
+ * <p> Узел занимает 45 байт и байты имени в кодировке файловой системы: размер, индексы родителя, первого потомка и следующего брата,
+ * тип, время изменения директории и её метаданных и смещение имени в общем пуле имён.
+ * <p> Пул имён состоит из частей по 1 МиБ, поэтому его рост не копирует уже сохранённые имена,
+ * а его размер не ограничен размером массива.
+ * <p> Не потокобезопасно.
+ */
+public class CompactFileTree implements CompactTreeStorage {
+
+    private static final DUFileType[] TYPES = DUFileType.values();
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Size of the name pool parts, only the last part grows up to it
+     * **/
+    private static final int NAME_CHUNK = 1 << 20;
+
+    /**
+     * Largest array length that the VM allocates, the name offsets take one more element
+     * **/
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 9;
+
+    private final Path rootPath;
+
+    private int count = 0;
+
+    private long[] sizes = new long[INITIAL_CAPACITY];
+
+    private int[] parents = new int[INITIAL_CAPACITY];
+
+    private int[] firstChildren = new int[INITIAL_CAPACITY];
+
+    private int[] nextSiblings = new int[INITIAL_CAPACITY];
+
+    private byte[] types = new byte[INITIAL_CAPACITY];
+
+    private long[] modifiedTimes = new long[INITIAL_CAPACITY];
+
+    private long[] changeTimes = new long[INITIAL_CAPACITY];
+
+    /**
+     * Имя узла i занимает байты [nameOffsets[i], nameOffsets[i + 1]) пула имён.
+     */
+    private long[] nameOffsets = new long[INITIAL_CAPACITY + 1];
+
+    private byte[][] nameChunks = {new byte[INITIAL_CAPACITY * 16]};
+
+    public CompactFileTree(@NotNull Path rootPath) {
+        this.rootPath = rootPath;
+    }
+
+    /**
+     * Добавляет узел первым потомком родителя.
+     *
+     * @param parent индекс родителя или {@link CompactTreeStorage#NO_NODE} для корня.
+     * @param name байты имени, см. {@link #nameBytes(DUFile)}.
+     *
+     * @return индекс нового узла.
+     *
+     * @throws IllegalStateException если количество узлов достигло наибольшего размера массива.
+     */
+    public int addNode(int parent, @NotNull DUFileType type, byte @NotNull [] name, long size) {
+        if (parent == NO_NODE && count != 0)
+            throw new IllegalStateException("Tree already has root");
+        if (count == sizes.length)
+            grow();
+        appendName(name);
+
+        int node = count++;
+        sizes[node] = size;
+        parents[node] = parent;
+        firstChildren[node] = NO_NODE;
+        types[node] = (byte) type.ordinal();
+        modifiedTimes[node] = NO_TIME;
+        changeTimes[node] = NO_TIME;
+        if (parent == NO_NODE) {
+            nextSiblings[node] = NO_NODE;
+        } else {
+            nextSiblings[node] = firstChildren[parent];
+            firstChildren[parent] = node;
+        }
+        return node;
+    }
+
+    /**
+     * Копирует дерево объектов {@link DUFile} с уже посчитанными размерами.
+     * <p> Потомки ссылок получают путь относительно ссылки, как и при построении дерева обходом.
+     */
+    public static CompactFileTree copyOf(@NotNull DUFile root) {
+        CompactFileTree tree = new CompactFileTree(root.getPath());
+        Deque<Map.Entry<DUFile, Integer>> stack = new ArrayDeque<>();
+        stack.push(Map.entry(root, NO_NODE));
+        while (!stack.isEmpty()) {
+            Map.Entry<DUFile, Integer> entry = stack.pop();
+            DUFile file = entry.getKey();
+            int node = tree.addNode(entry.getValue(), file.getFileType(), nameBytes(file), file.getSize());
+            if (file instanceof DirectoryDUFile dir && !dir.hasFoldedChildren() && !dir.hasMissingChildren() && !dir.isIncomplete()) {
+                tree.setModifiedTime(node, dir.getModifiedTime());
+                tree.setChangeTime(node, dir.getChangeTime());
+            }
+            if (file instanceof ParentDUFile parent)
+                for (DUFile child : parent.getChildren())
+                    stack.push(Map.entry(child, node));
+        }
+        return tree;
+    }
+
+    /**
+     * @return байты имени файла, для корня файловой системы байты его пути.
+     */
+    public static byte @NotNull [] nameBytes(@NotNull DUFile file) {
+        Path name = file.getFileName();
+        return NativeNames.toBytes(name == null ? file.getPath() : name);
+    }
+
+    public void addSize(int node, long delta) {
+        sizes[node] += delta;
+    }
+
+    /**
+     * @param time время изменения директории в наносекундах или {@link #NO_TIME}, если не все её потомки сохранены.
+     */
+    public void setModifiedTime(int node, long time) {
+        modifiedTimes[node] = time;
+    }
+
+    /**
+     * @param time время изменения метаданных директории в наносекундах или {@link #NO_TIME}.
+     */
+    public void setChangeTime(int node, long time) {
+        changeTimes[node] = time;
+    }
+
+    /**
+     * Name can cross the border of the chunks
+     * **/
+    private void appendName(byte[] name) {
+        long offset = nameOffsets[count];
+        int copied = 0;
+        while (copied < name.length) {
+            long position = offset + copied;
+            int chunk = (int) (position / NAME_CHUNK);
+            int chunkOffset = (int) (position % NAME_CHUNK);
+            if (chunk == nameChunks.length) {
+                nameChunks = Arrays.copyOf(nameChunks, chunk + 1);
+                nameChunks[chunk] = new byte[NAME_CHUNK];
+            }
+            int length = Math.min(name.length - copied, NAME_CHUNK - chunkOffset);
+            byte[] target = nameChunks[chunk];
+            if (target.length < chunkOffset + length) {
+                target = Arrays.copyOf(target, Math.min(NAME_CHUNK, Math.max(target.length * 2, chunkOffset + length)));
+                nameChunks[chunk] = target;
+            }
+            System.arraycopy(name, copied, target, chunkOffset, length);
+            copied += length;
+        }
+        nameOffsets[count + 1] = offset + name.length;
+    }
+
+    private void grow() {
+        if (sizes.length >= MAX_CAPACITY)
+            throw new IllegalStateException("Compact tree can't hold more than " + MAX_CAPACITY + " files");
+        int capacity = (int) Math.min(MAX_CAPACITY, sizes.length * 3L / 2);
+        sizes = Arrays.copyOf(sizes, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        types = Arrays.copyOf(types, capacity);
+        modifiedTimes = Arrays.copyOf(modifiedTimes, capacity);
+        changeTimes = Arrays.copyOf(changeTimes, capacity);
+        nameOffsets = Arrays.copyOf(nameOffsets, capacity + 1);
+    }
+
+    @Override
+    public int getNodeCount() {
+        return count;
+    }
+
+    /**
+     * @return размер массивов дерева в байтах вместе с незанятой ёмкостью, без заголовков массивов.
+     */
+    public long getRetainedBytes() {
+        long perNode = Long.BYTES * 4L + Integer.BYTES * 3L + Byte.BYTES;
+        long names = 0;
+        for (byte[] chunk : nameChunks)
+            names += chunk.length;
+        return perNode * sizes.length + Long.BYTES + names;
+    }
+
+    @Override
+    public @NotNull Path getRootPath() {
+        return rootPath;
+    }
+
+    @Override
+    public long getSize(int node) {
+        return sizes[node];
+    }
+
+    @Override
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    @Override
+    public int getFirstChild(int node) {
+        return firstChildren[node];
+    }
+
+    @Override
+    public int getNextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    @Override
+    public @NotNull DUFileType getType(int node) {
+        return TYPES[types[node]];
+    }
+
+    @Override
+    public long getModifiedTime(int node) {
+        return modifiedTimes[node];
+    }
+
+    @Override
+    public long getChangeTime(int node) {
+        return changeTimes[node];
+    }
+
+    @Override
+    public byte @NotNull [] getNameBytes(int node) {
+        long start = nameOffsets[node];
+        byte[] name = new byte[(int) (nameOffsets[node + 1] - start)];
+        int copied = 0;
+        while (copied < name.length) {
+            long position = start + copied;
+            int chunkOffset = (int) (position % NAME_CHUNK);
+            int length = Math.min(name.length - copied, NAME_CHUNK - chunkOffset);
+            System.arraycopy(nameChunks[(int) (position / NAME_CHUNK)], chunkOffset, name, copied, length);
+            copied += length;
+        }
+        return name;
+    }
+
+}
@@ -0,0 +1,30 @@
+package ru.nsu.sidey383.lab1.model.compact;
+
+import org.jetbrains.annotations.NotNull;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFileView;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Представление директории или ссылки из {@link CompactTreeStorage}.
+ */
+public class CompactParentDUFile extends CompactDUFile implements ParentDUFileView {
+
+    protected CompactParentDUFile(@NotNull CompactTreeStorage storage, int node) {
+        super(storage, node);
+    }
+
+    /**
+     * @return новый список представлений потомков.
+     */
+    @Override
+    public @NotNull Collection<CompactDUFile> getChildren() {
+        List<CompactDUFile> children = new ArrayList<>();
+        for (int child = storage.getFirstChild(node); child != CompactTreeStorage.NO_NODE; child = storage.getNextSibling(child))
+            children.add(CompactDUFile.of(storage, child));
+        return children;
+    }
+
+}
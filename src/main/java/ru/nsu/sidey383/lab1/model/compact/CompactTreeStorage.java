@@ -0,0 +1,84 @@
+package ru.nsu.sidey383.lab1.model.compact;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.DUFileType;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.util.NativeNames;
+
+import java.nio.file.Path;
+
+/**
+ * Дерево файлов, узлы которого адресуются индексами.
+ * <p> Корень дерева имеет индекс 0. Отсутствие узла обозначается {@link CompactTreeStorage#NO_NODE}.
+ *
+ * @see CompactDUFile
+ */
+public interface CompactTreeStorage {
+
+    int NO_NODE = -1;
+
+    /**
+     * Время изменения неизвестно.
+     */
+    long NO_TIME = DirectoryDUFile.NO_TIME;
+
+    int getNodeCount();
+
+    /**
+     * @return путь до корня дерева.
+     */
+    @NotNull
+    Path getRootPath();
+
+    long getSize(int node);
+
+    int getParent(int node);
+
+    int getFirstChild(int node);
+
+    int getNextSibling(int node);
+
+    @NotNull
+    DUFileType getType(int node);
+
+    /**
+     * Имя хранится без декодирования, поэтому путь файла с именем не в UTF-8 восстанавливается без потерь.
+     *
+     * @return новый массив с байтами имени в кодировке файловой системы, см. {@link NativeNames#toBytes(Path)}.
+     */
+    byte @NotNull [] getNameBytes(int node);
+
+    /**
+     * @return имя узла для вывода.
+     */
+    @NotNull
+    default String getName(int node) {
+        return NativeNames.toString(getRootPath().getFileSystem(), getNameBytes(node));
+    }
+
+    /**
+     * Время известно только для директорий, все потомки которых сохранены в дереве.
+     *
+     * @return время изменения директории в наносекундах или {@link #NO_TIME}.
+     *
+     * @see DirectoryDUFile#getModifiedTime()
+     */
+    long getModifiedTime(int node);
+
+    /**
+     * @return время изменения метаданных директории в наносекундах или {@link #NO_TIME}, если оно не было прочитано.
+     *
+     * @see DirectoryDUFile#getChangeTime()
+     */
+    long getChangeTime(int node);
+
+    /**
+     * @return корень дерева в виде {@link CompactDUFile} или null для пустого дерева.
+     */
+    @Nullable
+    default CompactDUFile getRootFile() {
+        return getNodeCount() == 0 ? null : CompactDUFile.of(this, 0);
+    }
+
+}
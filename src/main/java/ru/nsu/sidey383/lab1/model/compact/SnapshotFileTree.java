@@ -0,0 +1,368 @@
+package ru.nsu.sidey383.lab1.model.compact;
+
+import org.jetbrains.annotations.NotNull;
+import ru.nsu.sidey383.lab1.model.file.DUFileType;
+import ru.nsu.sidey383.lab1.util.NativeNames;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Снимок дерева файлов, отображённый в память.
+ * <p> Файл читается операционной системой по мере обращения к узлам. При открытии проверяются только заголовок
+ * и границы секций, а индексы и смещения узла проверяются при каждом обращении к нему.
+ * Индексы узлов упорядочены, как их создаёт {@link CompactFileTree#addNode(int, DUFileType, byte[], long)}:
+ * родитель меньше узла, первый потомок больше узла, следующий брат меньше узла, но больше их общего родителя.
+ * Поэтому обход повреждённого снимка не зацикливается, а ошибка обнаруживается без просмотра всего снимка.
+ * <p> Формат файла, все числа little-endian, каждая секция выровнена на 8 байт:
+ * <ul>
+ *     <li> заголовок: магическое число, версия, количество узлов n, длина пути корня, длина пула имён, байты пути корня;
+ *     <li> размеры узлов с учётом потомков, long[n];
+ *     <li> время изменения директорий, long[n];
+ *     <li> время изменения метаданных директорий, long[n];
+ *     <li> индексы родителей, первых потомков и следующих братьев, три int[n];
+ *     <li> смещения имён, long[n + 1];
+ *     <li> типы узлов, byte[n];
+ *     <li> пул имён в кодировке файловой системы.
+ * </ul>
+ *
+ * @see SnapshotFileTree#write(CompactTreeStorage, Path)
+ */
+public class SnapshotFileTree implements CompactTreeStorage {
+
+    private static final int MAGIC = 0x4A445553;
+
+    private static final int VERSION = 4;
+
+    private static final int HEADER_SIZE = 24;
+
+    /**
+     * Size of the mapped parts of the name pool, a name can cross their border
+     * **/
+    private static final int NAMES_CHUNK = 1 << 30;
+
+    private static final DUFileType[] TYPES = DUFileType.values();
+
+    private final Path rootPath;
+
+    private final int count;
+
+    private final long namesLength;
+
+    private final LongBuffer sizes;
+
+    private final LongBuffer modifiedTimes;
+
+    private final LongBuffer changeTimes;
+
+    private final IntBuffer parents;
+
+    private final IntBuffer firstChildren;
+
+    private final IntBuffer nextSiblings;
+
+    private final LongBuffer nameOffsets;
+
+    private final ByteBuffer types;
+
+    private final ByteBuffer[] names;
+
+    private SnapshotFileTree(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, header, 0);
+        if (header.getInt(0) != MAGIC)
+            throw new IOException("File isn't a jdu snapshot");
+        int version = header.getInt(4);
+        if (version != VERSION)
+            throw new IOException("Unsupported snapshot version " + version);
+        count = header.getInt(8);
+        int rootPathLength = header.getInt(12);
+        namesLength = header.getLong(16);
+        if (count < 0 || rootPathLength <= 0 || namesLength < 0)
+            throw new IOException("Corrupted snapshot header");
+        if (HEADER_SIZE + (long) rootPathLength > channel.size())
+            throw new IOException("Snapshot is truncated");
+
+        ByteBuffer rootPathBytes = ByteBuffer.allocate(rootPathLength);
+        readFully(channel, rootPathBytes, HEADER_SIZE);
+        rootPath = NativeNames.toPath(FileSystems.getDefault(), rootPathBytes.array());
+
+        long offset = align(HEADER_SIZE + rootPathLength);
+        sizes = map(channel, offset, 8L * count).asLongBuffer();
+        offset = align(offset + 8L * count);
+        modifiedTimes = map(channel, offset, 8L * count).asLongBuffer();
+        offset = align(offset + 8L * count);
+        changeTimes = map(channel, offset, 8L * count).asLongBuffer();
+        offset = align(offset + 8L * count);
+        parents = map(channel, offset, 4L * count).asIntBuffer();
+        offset = align(offset + 4L * count);
+        firstChildren = map(channel, offset, 4L * count).asIntBuffer();
+        offset = align(offset + 4L * count);
+        nextSiblings = map(channel, offset, 4L * count).asIntBuffer();
+        offset = align(offset + 4L * count);
+        nameOffsets = map(channel, offset, 8L * (count + 1)).asLongBuffer();
+        offset = align(offset + 8L * (count + 1));
+        types = map(channel, offset, count);
+        offset = align(offset + count);
+        if (offset + namesLength != channel.size())
+            throw new IOException("Snapshot size doesn't match its header");
+        names = new ByteBuffer[(int) ((namesLength + NAMES_CHUNK - 1) / NAMES_CHUNK)];
+        for (int i = 0; i < names.length; i++)
+            names[i] = map(channel, offset + (long) i * NAMES_CHUNK, Math.min(NAMES_CHUNK, namesLength - (long) i * NAMES_CHUNK));
+    }
+
+    /**
+     * Отображает снимок в память. Файл можно удалять или изменять только после окончания работы со снимком.
+     * <p> Повреждённый узел обнаруживается при обращении к нему, тогда методы снимка бросают {@link UncheckedIOException}.
+     *
+     * @throws IOException если файл не удалось прочитать или он не является снимком.
+     */
+    public static SnapshotFileTree open(@NotNull Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new SnapshotFileTree(channel);
+        }
+    }
+
+    /**
+     * Сохраняет дерево в файл.
+     * <p> Снимок записывается во временный файл, который затем заменяет указанный.
+     * Поэтому уже отображённый в память снимок этого файла остаётся корректным, и предыдущий снимок можно перезаписать.
+     */
+    public static void write(@NotNull CompactTreeStorage tree, @NotNull Path path) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        writeSnapshot(tree, tempPath);
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeSnapshot(CompactTreeStorage tree, Path path) throws IOException {
+        int count = tree.getNodeCount();
+        byte[] rootPath = NativeNames.toBytes(tree.getRootPath().toAbsolutePath());
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            SectionWriter writer = new SectionWriter(channel);
+            writer.putInt(MAGIC);
+            writer.putInt(VERSION);
+            writer.putInt(count);
+            writer.putInt(rootPath.length);
+            // the length of the names is known after the offsets are written
+            writer.putLong(0);
+            writer.putBytes(rootPath);
+            writer.align();
+            for (int i = 0; i < count; i++)
+                writer.putLong(tree.getSize(i));
+            writer.align();
+            for (int i = 0; i < count; i++)
+                writer.putLong(tree.getModifiedTime(i));
+            writer.align();
+            for (int i = 0; i < count; i++)
+                writer.putLong(tree.getChangeTime(i));
+            writer.align();
+            for (int i = 0; i < count; i++)
+                writer.putInt(tree.getParent(i));
+            writer.align();
+            for (int i = 0; i < count; i++)
+                writer.putInt(tree.getFirstChild(i));
+            writer.align();
+            for (int i = 0; i < count; i++)
+                writer.putInt(tree.getNextSibling(i));
+            writer.align();
+            long namesLength = 0;
+            writer.putLong(0);
+            for (int i = 0; i < count; i++) {
+                namesLength += tree.getNameBytes(i).length;
+                writer.putLong(namesLength);
+            }
+            writer.align();
+            for (int i = 0; i < count; i++)
+                writer.putByte((byte) tree.getType(i).ordinal());
+            writer.align();
+            for (int i = 0; i < count; i++)
+                writer.putBytes(tree.getNameBytes(i));
+            writer.flush();
+            ByteBuffer length = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, namesLength);
+            while (length.hasRemaining())
+                channel.write(length, 16 + length.position());
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+        if (length > Integer.MAX_VALUE)
+            throw new IOException("Snapshot is too large");
+        if (offset + length > channel.size())
+            throw new IOException("Snapshot is truncated");
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0)
+                throw new IOException("Snapshot is truncated");
+        }
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return count;
+    }
+
+    @Override
+    public @NotNull Path getRootPath() {
+        return rootPath;
+    }
+
+    @Override
+    public long getSize(int node) {
+        return sizes.get(node);
+    }
+
+    @Override
+    public int getParent(int node) {
+        int parent = parents.get(node);
+        if (node == 0 ? parent != NO_NODE : parent < 0 || parent >= node)
+            throw corrupted("parent", node);
+        return parent;
+    }
+
+    @Override
+    public int getFirstChild(int node) {
+        int child = firstChildren.get(node);
+        if (child != NO_NODE && (child <= node || child >= count || parents.get(child) != node))
+            throw corrupted("children", node);
+        return child;
+    }
+
+    @Override
+    public int getNextSibling(int node) {
+        int sibling = nextSiblings.get(node);
+        if (sibling == NO_NODE)
+            return NO_NODE;
+        int parent = parents.get(node);
+        if (sibling >= node || parent < 0 || sibling <= parent || parents.get(sibling) != parent)
+            throw corrupted("sibling", node);
+        return sibling;
+    }
+
+    @Override
+    public @NotNull DUFileType getType(int node) {
+        int type = types.get(node);
+        if (type < 0 || type >= TYPES.length)
+            throw corrupted("type", node);
+        return TYPES[type];
+    }
+
+    @Override
+    public long getModifiedTime(int node) {
+        return modifiedTimes.get(node);
+    }
+
+    @Override
+    public long getChangeTime(int node) {
+        return changeTimes.get(node);
+    }
+
+    @Override
+    public byte @NotNull [] getNameBytes(int node) {
+        long start = nameOffsets.get(node);
+        long end = nameOffsets.get(node + 1);
+        if (start < 0 || end < start || end > namesLength || end - start > NAMES_CHUNK)
+            throw corrupted("name", node);
+        byte[] name = new byte[(int) (end - start)];
+        int copied = 0;
+        while (copied < name.length) {
+            long position = start + copied;
+            ByteBuffer chunk = names[(int) (position / NAMES_CHUNK)];
+            int chunkOffset = (int) (position % NAMES_CHUNK);
+            int length = Math.min(name.length - copied, chunk.limit() - chunkOffset);
+            chunk.get(chunkOffset, name, copied, length);
+            copied += length;
+        }
+        return name;
+    }
+
+    private static UncheckedIOException corrupted(String field, int node) {
+        return new UncheckedIOException(new IOException("Corrupted " + field + " of snapshot node " + node));
+    }
+
+    /**
+     * Buffered writer of the snapshot sections
+     * **/
+    private static final class SectionWriter {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+        private long written = 0;
+
+        private SectionWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes)
+                flush();
+        }
+
+        private void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+            written += 8;
+        }
+
+        private void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+            written += 4;
+        }
+
+        private void putByte(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+            written++;
+        }
+
+        private void putBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+            written += bytes.length;
+        }
+
+        private void align() throws IOException {
+            while ((written & 7) != 0)
+                putByte((byte) 0);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+
+    }
+
+}
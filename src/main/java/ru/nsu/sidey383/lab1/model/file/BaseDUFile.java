@@ -1,34 +1,75 @@
 package ru.nsu.sidey383.lab1.model.file;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.Optional;
 
 /**
  * Базовая реализация {@link DUFile}.
+ * <p> Файл хранит либо полный путь, либо только своё имя, а полный путь восстанавливается по цепочке родителей.
+ * Имя хранится как путь из одного сегмента, поэтому байты имени в кодировке файловой системы не теряются,
+ * даже если они не являются корректным UTF-8.
+ * Хеш считается по сегментам пути, поэтому он совпадает для обоих способов хранения.
  */
 public abstract class BaseDUFile implements DUFile {
 
     protected ParentDUFile parent;
 
+    /**
+     * Полный путь файла или null, если файл хранит только имя относительно {@link #parent}.
+     */
+    @Nullable
     protected Path path;
 
+    /**
+     * Имя файла из одного сегмента или null, если файл хранит полный путь.
+     */
+    @Nullable
+    protected final Path name;
+
+    /**
+     * Name in UTF-8 for the printer, filled on the first request
+     * **/
+    private byte @Nullable [] nameBytes;
+
     protected long size;
 
+    private int hash;
+
     protected BaseDUFile(long size, Path path) {
         this.parent = null;
         this.size = size;
         this.path = path;
+        this.name = null;
+    }
+
+    /**
+     * Создаёт файл, хранящий только имя относительно родителя.
+     *
+     * @param name имя файла, путь из одного сегмента, см. {@link Path#getFileName()}.
+     */
+    protected BaseDUFile(long size, @NotNull ParentDUFile parent, @NotNull Path name) {
+        this.parent = parent;
+        this.size = size;
+        this.path = null;
+        this.name = name;
     }
 
     public @NotNull Optional<ParentDUFile> getParent() {
         return Optional.ofNullable(parent);
     }
 
+    /**
+     * Если файл хранит только имя, то перед сменой родителя запоминает полный путь.
+     */
     @NotNull
     public Optional<ParentDUFile> setParent(ParentDUFile parent) {
         Optional<ParentDUFile> p = Optional.ofNullable(this.parent);
+        if (path == null && this.parent != parent)
+            path = getPath();
         this.parent = parent;
         return p;
     }
@@ -40,7 +81,12 @@ public abstract class BaseDUFile implements DUFile {
 
     @Override
     public boolean equals(Object obj) {
-        return (obj instanceof DUFile file) && getPath().equals(file.getPath());
+        if (this == obj)
+            return true;
+        // names inside one directory are unique, so the full paths are not needed
+        if (obj instanceof BaseDUFile file && path == null && file.path == null && parent == file.parent)
+            return name.equals(file.name);
+        return (obj instanceof DUFileView file) && getPath().equals(file.getPath());
     }
 
     @Override
@@ -54,11 +100,67 @@ public abstract class BaseDUFile implements DUFile {
 
     @Override
     public @NotNull Path getPath() {
-        return path;
+        Path p = path;
+        if (p != null)
+            return p;
+        return parent.getPath().resolve(name);
+    }
+
+    /**
+     * Массив нельзя изменять.
+     *
+     * @return имя файла в UTF-8 для вывода или null, если файл хранит полный путь.
+     */
+    public byte @Nullable [] getNameBytes() {
+        if (path != null)
+            return null;
+        byte[] bytes = nameBytes;
+        if (bytes == null) {
+            bytes = name.toString().getBytes(StandardCharsets.UTF_8);
+            nameBytes = bytes;
+        }
+        return bytes;
+    }
+
+    @Override
+    public @Nullable Path getFileName() {
+        if (path == null)
+            return name;
+        return DUFile.super.getFileName();
+    }
+
+    @Override
+    public @NotNull String getSimpleName() {
+        if (path == null)
+            return name.toString();
+        return DUFile.super.getSimpleName();
     }
 
     @Override
     public int hashCode() {
-        return path.hashCode();
+        int h = hash;
+        if (h == 0) {
+            if (path == null)
+                h = 31 * parentHash(parent) + name.hashCode();
+            else
+                h = pathHash(path);
+            hash = h;
+        }
+        return h;
+    }
+
+    private static int parentHash(ParentDUFile parent) {
+        return parent instanceof BaseDUFile file ? file.hashCode() : pathHash(parent.getPath());
+    }
+
+    /**
+     * Хеш пути по его сегментам, совпадающий с {@link BaseDUFile#hashCode()} файла с этим путём.
+     */
+    public static int pathHash(@NotNull Path path) {
+        Path root = path.getRoot();
+        int h = root == null ? 0 : root.toString().hashCode();
+        for (Path segment : path)
+            h = 31 * h + segment.hashCode();
+        return h;
     }
 }
@@ -0,0 +1,9 @@
+package ru.nsu.sidey383.lab1.model.file;
+
+/**
+ * {@link ParentDUFile}, потомков которого можно добавлять и удалять из нескольких потоков без внешней блокировки.
+ * <p> Потомки-директории и ссылки такого файла тоже создаются потокобезопасными,
+ * см. {@link DUFile#fromAttributes(ParentDUFile, java.nio.file.Path, java.nio.file.attribute.BasicFileAttributes)}.
+ * **/
+public interface ConcurrentParentDUFile extends ParentDUFile {
+}
@@ -7,15 +7,12 @@ import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.util.Objects;
 import java.util.Optional;
 
 /**
  * Базовый инетрфейс файла.
  */
-public interface DUFile {
-
-    long getSize();
+public interface DUFile extends DUFileView {
 
     /**
      * Получить родительский файл.
@@ -36,31 +33,25 @@ public interface DUFile {
     @SuppressWarnings("UnusedReturnValue")
     Optional<ParentDUFile> setParent(ParentDUFile file);
 
-    @NotNull
-    DUFileType getFileType();
-
-    @NotNull
-    Path getPath();
-
-    /**
-     * @return simple name of file
-     **/
-    @NotNull
-    default String getSimpleName() {
-        Path fileName = getPath().getFileName();
-        // getFileName() will return null for root of file system, check this
-        return Objects.requireNonNullElseGet(fileName, this::getPath).toString();
-    }
-
     /**
      * Фабричный метод для создания {@link DUFile}.
      * <p> Перед созданием объекта разрешает путь до файла, а для ссылок переходит по ссылке с помощью {@link Path#toRealPath(LinkOption...)}.
      * <p> Все ошибки создания отражаются в созданном файле {@link ExceptionDUFile}
+     * <p> Читает {@link UnixFileAttributes}, если файловая система их поддерживает, чтобы сохранить время изменения метаданных директории.
      *
      * @see Path#toRealPath(LinkOption...)
      * @see Files#readAttributes(Path, Class, LinkOption...)
      */
     static DUFile readFile(Path path) {
+        return readFile(path, false);
+    }
+
+    /**
+     * Аналог {@link DUFile#readFile(Path)}.
+     *
+     * @param concurrent создать директорию или ссылку как {@link ConcurrentParentDUFile}.
+     */
+    static DUFile readFile(Path path, boolean concurrent) {
         LinkOption[] linkOptions = new LinkOption[]{LinkOption.NOFOLLOW_LINKS};
         Path originalPath;
         try {
@@ -72,24 +63,131 @@ public interface DUFile {
         BasicFileAttributes originalAttributes;
 
         try {
-            originalAttributes = Files.readAttributes(originalPath, BasicFileAttributes.class, linkOptions);
+            originalAttributes = UnixFileAttributes.isSupported(originalPath) ?
+                    UnixFileAttributes.read(originalPath) :
+                    Files.readAttributes(originalPath, BasicFileAttributes.class, linkOptions);
         } catch (IOException e) {
             return new WrongDUFile(0, originalPath, new DUPathException(path, e));
         }
 
-        DUFileType fileType = DUFileType.toSimpleType(originalAttributes);
+        return fromAttributes(originalPath, originalAttributes, concurrent);
+    }
+
+    /**
+     * Фабричный метод для создания {@link DUFile} по уже разрешённому пути, например для потомка разрешённой директории.
+     * <p> В отличие от {@link DUFile#readFile(Path)} не вызывает {@link Path#toRealPath(LinkOption...)}.
+     * <p> При {@link NotDirectoryException} использует {@link DUFile#readFile(Path)}.
+     *
+     * @see Files#readAttributes(Path, Class, LinkOption...)
+     */
+    static DUFile readResolvedFile(Path realPath) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(realPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NotDirectoryException e) {
+            return readFile(realPath);
+        } catch (IOException e) {
+            return new WrongDUFile(0, realPath, new DUPathException(realPath, e));
+        }
+        return fromAttributes(realPath, attributes);
+    }
+
+    /**
+     * Аналог {@link DUFile#readResolvedFile(Path)} для потомка разрешённой директории.
+     *
+     * @see DUFile#fromAttributes(ParentDUFile, Path, BasicFileAttributes)
+     */
+    static DUFile readResolvedFile(ParentDUFile parent, Path realPath) {
+        return readResolvedFile(parent, realPath, false);
+    }
+
+    /**
+     * Аналог {@link DUFile#readResolvedFile(ParentDUFile, Path)}, который может прочитать жёсткие ссылки файла.
+     *
+     * @param readUnixAttributes прочитать {@link UnixFileAttributes}, чтобы создать {@link HardLinkDUFile} для файла
+     *                           с несколькими жёсткими ссылками и сохранить время изменения метаданных директории.
+     *                           Игнорируется, если файловая система не поддерживает эти атрибуты.
+     */
+    static DUFile readResolvedFile(ParentDUFile parent, Path realPath, boolean readUnixAttributes) {
+        BasicFileAttributes attributes;
+        try {
+            if (readUnixAttributes && UnixFileAttributes.isSupported(realPath))
+                attributes = UnixFileAttributes.read(realPath);
+            else
+                attributes = Files.readAttributes(realPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NotDirectoryException e) {
+            return readFile(realPath, parent instanceof ConcurrentParentDUFile);
+        } catch (IOException e) {
+            return new WrongDUFile(0, realPath, new DUPathException(realPath, e));
+        }
+        return fromAttributes(parent, realPath, attributes);
+    }
+
+    /**
+     * Фабричный метод для создания {@link DUFile} по уже прочитанным атрибутам.
+     * <p> Путь должен быть разрешён заранее, см. {@link Path#toRealPath(LinkOption...)}.
+     * <p> Ошибки чтения ссылки отражаются в созданном файле {@link ExceptionDUFile}
+     */
+    static DUFile fromAttributes(Path realPath, BasicFileAttributes attributes) {
+        return fromAttributes(realPath, attributes, false);
+    }
+
+    /**
+     * Аналог {@link DUFile#fromAttributes(Path, BasicFileAttributes)}.
+     *
+     * @param concurrent создать директорию или ссылку как {@link ConcurrentParentDUFile}.
+     */
+    static DUFile fromAttributes(Path realPath, BasicFileAttributes attributes, boolean concurrent) {
+        DUFileType fileType = DUFileType.toSimpleType(attributes);
+
+        return switch (fileType) {
+            case REGULAR_FILE -> new RegularDUFile(attributes.size(), realPath);
+            case DIRECTORY -> concurrent ?
+                    new ConcurrentDirectoryDUFile(0, realPath, attributes) :
+                    new DirectoryDUFile(0, realPath, attributes);
+            case LINK -> {
+                try {
+                    Path reference = Files.readSymbolicLink(realPath);
+                    yield concurrent ? new ConcurrentLinkDUFile(0, realPath, reference) : new LinkDUFile(0, realPath, reference);
+                } catch (IOException e) {
+                    yield new WrongDUFile(0, realPath, new DUPathException(realPath, e));
+                }
+            }
+            case OTHER -> new OtherDUFile(0, realPath);
+        };
+    }
+
+    /**
+     * Фабричный метод для создания потомка разрешённой директории, хранящего только своё имя.
+     * <p> Созданный файл уже привязан к родителю, см. {@link DUFile#getParent()}.
+     * <p> Ошибки чтения ссылки отражаются в созданном файле {@link ExceptionDUFile}
+     * <p> Для {@link UnixFileAttributes} файла с несколькими жёсткими ссылками создаёт {@link HardLinkDUFile}.
+     * <p> Потомки-директории и ссылки {@link ConcurrentParentDUFile} тоже создаются потокобезопасными.
+     *
+     * @param parent директория, в которой находится файл.
+     * @param realPath разрешённый путь файла.
+     */
+    static DUFile fromAttributes(ParentDUFile parent, Path realPath, BasicFileAttributes attributes) {
+        DUFileType fileType = DUFileType.toSimpleType(attributes);
+        Path name = realPath.getFileName();
+        boolean concurrent = parent instanceof ConcurrentParentDUFile;
 
         return switch (fileType) {
-            case REGULAR_FILE -> new RegularDUFile(originalAttributes.size(), originalPath);
-            case DIRECTORY -> new DirectoryDUFile(0, originalPath);
+            case REGULAR_FILE -> attributes instanceof UnixFileAttributes unix && unix.getLinkCount() > 1 ?
+                    new HardLinkDUFile(attributes.size(), parent, name, unix.getDevice(), unix.getInode()) :
+                    new RegularDUFile(attributes.size(), parent, name);
+            case DIRECTORY -> concurrent ?
+                    new ConcurrentDirectoryDUFile(0, parent, name, attributes) :
+                    new DirectoryDUFile(0, parent, name, attributes);
             case LINK -> {
                 try {
-                    yield new LinkDUFile(0, originalPath, Files.readSymbolicLink(originalPath));
+                    Path reference = Files.readSymbolicLink(realPath);
+                    yield concurrent ? new ConcurrentLinkDUFile(0, parent, name, reference) : new LinkDUFile(0, parent, name, reference);
                 } catch (IOException e) {
-                    yield new WrongDUFile(0, originalPath, new DUPathException(originalPath, e));
+                    yield new WrongDUFile(0, realPath, new DUPathException(realPath, e));
                 }
             }
-            case OTHER -> new OtherDUFile(0, originalPath);
+            case OTHER -> new OtherDUFile(0, parent, name);
         };
     }
 
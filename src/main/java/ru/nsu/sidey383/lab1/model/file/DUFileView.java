@@ -0,0 +1,45 @@
+package ru.nsu.sidey383.lab1.model.file;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Файл, доступный только для чтения.
+ * <p> Этого достаточно для вывода дерева, поэтому так выводятся и деревья, которые нельзя изменять.
+ *
+ * @see DUFile
+ */
+public interface DUFileView {
+
+    long getSize();
+
+    @NotNull
+    DUFileType getFileType();
+
+    @NotNull
+    Path getPath();
+
+    /**
+     * @return simple name of file
+     **/
+    @NotNull
+    default String getSimpleName() {
+        Path fileName = getPath().getFileName();
+        // getFileName() will return null for root of file system, check this
+        return Objects.requireNonNullElseGet(fileName, this::getPath).toString();
+    }
+
+    /**
+     * @return имя файла, путь из одного сегмента, или null для корня файловой системы.
+     *
+     * @see Path#getFileName()
+     */
+    @Nullable
+    default Path getFileName() {
+        return getPath().getFileName();
+    }
+
+}
@@ -1,17 +1,19 @@
 package ru.nsu.sidey383.lab1.model.file;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 
 /**
  * Расширенный файловый интерфейс для работы с дочерними файлами
  * **/
-public interface ParentDUFile extends DUFile {
+public interface ParentDUFile extends DUFile, ParentDUFileView {
 
     /**
      * @return коллекцию дочерних файлов
      * **/
+    @Override
     @NotNull
     Collection<DUFile> getChildren();
 
@@ -21,4 +23,23 @@ public interface ParentDUFile extends DUFile {
      * **/
     void addChild(DUFile file);
 
+    /**
+     * Учесть потомка в размере данного файла, не сохраняя его в {@link ParentDUFile#getChildren()}.
+     * <p> В отличие от {@link ParentDUFile#addChild(DUFile)} не проверяет копии.
+     * **/
+    void foldChild(DUFile file);
+
+    /**
+     * Удалить потомка, равного данному файлу, и вычесть его размер.
+     *
+     * @return удалённый потомок или null, если такого потомка нет.
+     * **/
+    @Nullable
+    DUFile removeChild(DUFile file);
+
+    /**
+     * Изменить размер файла, не меняя потомков. Используется для учёта изменений в потомках потомков.
+     * **/
+    void addSize(long delta);
+
 }
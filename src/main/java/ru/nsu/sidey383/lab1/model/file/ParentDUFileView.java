@@ -0,0 +1,20 @@
+package ru.nsu.sidey383.lab1.model.file;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+
+/**
+ * Директория или ссылка, доступная только для чтения.
+ *
+ * @see ParentDUFile
+ */
+public interface ParentDUFileView extends DUFileView {
+
+    /**
+     * @return коллекцию дочерних файлов
+     * **/
+    @NotNull
+    Collection<? extends DUFileView> getChildren();
+
+}
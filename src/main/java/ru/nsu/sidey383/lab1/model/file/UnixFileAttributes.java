@@ -0,0 +1,107 @@
+package ru.nsu.sidey383.lab1.model.file;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+/**
+ * Атрибуты файла вместе с устройством, inode, количеством жёстких ссылок и временем изменения метаданных,
+ * прочитанные одним вызовом stat.
+ * <p> Требует представления атрибутов "unix", см. {@link UnixFileAttributes#isSupported(Path)}.
+ */
+public final class UnixFileAttributes implements BasicFileAttributes {
+
+    private static final String ATTRIBUTES = "unix:size,lastModifiedTime,lastAccessTime,creationTime," +
+            "isRegularFile,isDirectory,isSymbolicLink,isOther,fileKey,dev,ino,nlink,ctime";
+
+    private final Map<String, Object> attributes;
+
+    private UnixFileAttributes(Map<String, Object> attributes) {
+        this.attributes = attributes;
+    }
+
+    /**
+     * Читает атрибуты, не переходя по ссылкам.
+     */
+    public static UnixFileAttributes read(@NotNull Path path) throws IOException {
+        return new UnixFileAttributes(Files.readAttributes(path, ATTRIBUTES, LinkOption.NOFOLLOW_LINKS));
+    }
+
+    /**
+     * @return поддерживает ли файловая система пути представление атрибутов "unix".
+     */
+    public static boolean isSupported(@NotNull Path path) {
+        return path.getFileSystem().supportedFileAttributeViews().contains("unix");
+    }
+
+    public long getDevice() {
+        return (Long) attributes.get("dev");
+    }
+
+    public long getInode() {
+        return (Long) attributes.get("ino");
+    }
+
+    public int getLinkCount() {
+        return (Integer) attributes.get("nlink");
+    }
+
+    /**
+     * @return время изменения метаданных, st_ctime.
+     */
+    public FileTime changeTime() {
+        return (FileTime) attributes.get("ctime");
+    }
+
+    @Override
+    public FileTime lastModifiedTime() {
+        return (FileTime) attributes.get("lastModifiedTime");
+    }
+
+    @Override
+    public FileTime lastAccessTime() {
+        return (FileTime) attributes.get("lastAccessTime");
+    }
+
+    @Override
+    public FileTime creationTime() {
+        return (FileTime) attributes.get("creationTime");
+    }
+
+    @Override
+    public boolean isRegularFile() {
+        return (Boolean) attributes.get("isRegularFile");
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return (Boolean) attributes.get("isDirectory");
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+        return (Boolean) attributes.get("isSymbolicLink");
+    }
+
+    @Override
+    public boolean isOther() {
+        return (Boolean) attributes.get("isOther");
+    }
+
+    @Override
+    public long size() {
+        return (Long) attributes.get("size");
+    }
+
+    @Override
+    public Object fileKey() {
+        return attributes.get("fileKey");
+    }
+
+}
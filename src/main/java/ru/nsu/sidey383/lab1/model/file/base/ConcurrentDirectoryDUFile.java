@@ -0,0 +1,54 @@
+package ru.nsu.sidey383.lab1.model.file.base;
+
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.ConcurrentParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Потокобезопасная директория.
+ * <p> Потомки хранятся в {@link ConcurrentHashMap}, а размер меняется атомарным сложением,
+ * поэтому потоки обхода добавляют потомков без блокировки директории.
+ */
+public class ConcurrentDirectoryDUFile extends DirectoryDUFile implements ConcurrentParentDUFile {
+
+    private static final VarHandle SIZE;
+
+    static {
+        try {
+            SIZE = MethodHandles.lookup().findVarHandle(ConcurrentDirectoryDUFile.class, "size", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * @see DirectoryDUFile#DirectoryDUFile(long, Path, BasicFileAttributes)
+     */
+    public ConcurrentDirectoryDUFile(long size, Path path, @Nullable BasicFileAttributes attributes) {
+        super(size, path, attributes, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * @see DirectoryDUFile#DirectoryDUFile(long, ParentDUFile, Path, BasicFileAttributes)
+     */
+    public ConcurrentDirectoryDUFile(long size, ParentDUFile parent, Path name, @Nullable BasicFileAttributes attributes) {
+        super(size, parent, name, attributes, new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public long getSize() {
+        return (long) SIZE.getOpaque(this);
+    }
+
+    @Override
+    public void addSize(long delta) {
+        SIZE.getAndAdd(this, delta);
+    }
+
+}
@@ -0,0 +1,50 @@
+package ru.nsu.sidey383.lab1.model.file.base;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.ConcurrentParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Потокобезопасная ссылка.
+ * <p> У ссылки не больше одного потомка и её размер не меняется, поэтому достаточно монитора самой ссылки.
+ */
+public class ConcurrentLinkDUFile extends LinkDUFile implements ConcurrentParentDUFile {
+
+    public ConcurrentLinkDUFile(long size, Path path, Path resolved) {
+        super(size, path, resolved);
+    }
+
+    public ConcurrentLinkDUFile(long size, ParentDUFile parent, Path name, Path resolved) {
+        super(size, parent, name, resolved);
+    }
+
+    /**
+     * @return копию коллекции потомков.
+     */
+    @Override
+    public synchronized @NotNull Collection<DUFile> getChildren() {
+        return List.copyOf(super.getChildren());
+    }
+
+    @Override
+    public synchronized void addChild(DUFile file) {
+        super.addChild(file);
+    }
+
+    @Override
+    public synchronized @Nullable DUFile removeChild(DUFile file) {
+        return super.removeChild(file);
+    }
+
+    @Override
+    public synchronized void freeChild() {
+        super.freeChild();
+    }
+
+}
@@ -1,21 +1,177 @@
 package ru.nsu.sidey383.lab1.model.file.base;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import ru.nsu.sidey383.lab1.model.file.BaseDUFile;
 import ru.nsu.sidey383.lab1.model.file.DUFile;
 import ru.nsu.sidey383.lab1.model.file.DUFileType;
 import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.UnixFileAttributes;
 
 import java.nio.file.Path;
-import java.util.HashSet;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class DirectoryDUFile extends BaseDUFile implements ParentDUFile {
 
-    private final Set<DUFile> child = new HashSet<>();
+    /**
+     * Время изменения неизвестно.
+     */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    /**
+     * Каждый потомок отображается сам в себя, чтобы его можно было найти по равному файлу.
+     */
+    private final Map<DUFile, DUFile> child;
+
+    private final long modifiedTime;
+
+    private final long changeTime;
+
+    /**
+     * Device and inode are known only from the {@link UnixFileAttributes}
+     * **/
+    private final boolean hasFileKey;
+
+    private final long device;
+
+    private final long inode;
+
+    private boolean hasFoldedChildren = false;
+
+    private boolean incomplete = false;
+
+    private boolean hasMissingChildren = false;
 
     public DirectoryDUFile(long size, Path path) {
+        this(size, path, null);
+    }
+
+    /**
+     * @param attributes атрибуты, прочитанные при обходе, или null. Время изменения метаданных, устройство и inode
+     *                   сохраняются только из {@link UnixFileAttributes}.
+     */
+    public DirectoryDUFile(long size, Path path, @Nullable BasicFileAttributes attributes) {
+        this(size, path, attributes, new HashMap<>());
+    }
+
+    /**
+     * @param children пустое отображение, в котором будут храниться потомки.
+     */
+    protected DirectoryDUFile(long size, Path path, @Nullable BasicFileAttributes attributes, Map<DUFile, DUFile> children) {
         super(size, path);
+        this.modifiedTime = attributes == null ? NO_TIME : attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        this.changeTime = attributes instanceof UnixFileAttributes unix ? unix.changeTime().to(TimeUnit.NANOSECONDS) : NO_TIME;
+        this.hasFileKey = attributes instanceof UnixFileAttributes;
+        this.device = attributes instanceof UnixFileAttributes unix ? unix.getDevice() : 0;
+        this.inode = attributes instanceof UnixFileAttributes unix ? unix.getInode() : 0;
+        this.child = children;
+    }
+
+    public DirectoryDUFile(long size, ParentDUFile parent, Path name) {
+        this(size, parent, name, null);
+    }
+
+    /**
+     * @param attributes атрибуты, прочитанные при обходе, или null. Время изменения метаданных, устройство и inode
+     *                   сохраняются только из {@link UnixFileAttributes}.
+     */
+    public DirectoryDUFile(long size, ParentDUFile parent, Path name, @Nullable BasicFileAttributes attributes) {
+        this(size, parent, name, attributes, new HashMap<>());
+    }
+
+    /**
+     * @param children пустое отображение, в котором будут храниться потомки.
+     */
+    protected DirectoryDUFile(long size, ParentDUFile parent, Path name, @Nullable BasicFileAttributes attributes, Map<DUFile, DUFile> children) {
+        super(size, parent, name);
+        this.modifiedTime = attributes == null ? NO_TIME : attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        this.changeTime = attributes instanceof UnixFileAttributes unix ? unix.changeTime().to(TimeUnit.NANOSECONDS) : NO_TIME;
+        this.hasFileKey = attributes instanceof UnixFileAttributes;
+        this.device = attributes instanceof UnixFileAttributes unix ? unix.getDevice() : 0;
+        this.inode = attributes instanceof UnixFileAttributes unix ? unix.getInode() : 0;
+        this.child = children;
+    }
+
+    /**
+     * Время изменения меняется при создании, удалении и переименовании потомков директории.
+     *
+     * @return время изменения директории в наносекундах на момент чтения или {@link #NO_TIME}.
+     */
+    public long getModifiedTime() {
+        return modifiedTime;
+    }
+
+    /**
+     * Время изменения метаданных меняется и тогда, когда время изменения директории восстановлено вручную.
+     *
+     * @return время изменения метаданных директории в наносекундах на момент чтения или {@link #NO_TIME},
+     * если файловая система его не сообщает.
+     *
+     * @see UnixFileAttributes#changeTime()
+     */
+    public long getChangeTime() {
+        return changeTime;
+    }
+
+    /**
+     * @return известны ли устройство и inode директории, см. {@link #getDevice()}.
+     */
+    public boolean hasFileKey() {
+        return hasFileKey;
+    }
+
+    /**
+     * @return устройство директории, если {@link #hasFileKey()}.
+     */
+    public long getDevice() {
+        return device;
+    }
+
+    /**
+     * @return inode директории, если {@link #hasFileKey()}.
+     */
+    public long getInode() {
+        return inode;
+    }
+
+    /**
+     * @return были ли потомки учтены только в размере, см. {@link ParentDUFile#foldChild(DUFile)}.
+     */
+    public boolean hasFoldedChildren() {
+        return hasFoldedChildren;
+    }
+
+    /**
+     * @return были ли записи директории пропущены фильтром или не прочитаны, тогда сохранённый список потомков неполон.
+     */
+    public boolean hasMissingChildren() {
+        return hasMissingChildren;
+    }
+
+    /**
+     * Отмечает, что запись директории пропущена фильтром, см. {@link ru.nsu.sidey383.lab1.walker.DUPathFilter},
+     * или что потомка не удалось открыть.
+     */
+    public void markMissingChildren() {
+        hasMissingChildren = true;
+    }
+
+    /**
+     * @return был ли обход директории или её потомков прерван. Тогда размер директории - оценка.
+     */
+    public boolean isIncomplete() {
+        return incomplete;
+    }
+
+    /**
+     * Отмечает, что обход директории или её потомков прерван и размер директории оценён.
+     */
+    public void markIncomplete() {
+        incomplete = true;
     }
 
     @Override
@@ -25,12 +181,31 @@ public class DirectoryDUFile extends BaseDUFile implements ParentDUFile {
 
     @Override
     public @NotNull Set<DUFile> getChildren() {
-        return child;
+        return child.keySet();
     }
 
     @Override
     public void addChild(DUFile file) {
-        if (child.add(file))
-            size += file.getSize();
+        if (child.putIfAbsent(file, file) == null)
+            addSize(file.getSize());
+    }
+
+    @Override
+    public @Nullable DUFile removeChild(DUFile file) {
+        DUFile removed = child.remove(file);
+        if (removed != null)
+            addSize(-removed.getSize());
+        return removed;
+    }
+
+    @Override
+    public void addSize(long delta) {
+        size += delta;
+    }
+
+    @Override
+    public void foldChild(DUFile file) {
+        hasFoldedChildren = true;
+        addSize(file.getSize());
     }
 }
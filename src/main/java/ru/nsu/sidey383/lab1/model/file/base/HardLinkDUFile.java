@@ -0,0 +1,39 @@
+package ru.nsu.sidey383.lab1.model.file.base;
+
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+
+import java.nio.file.Path;
+
+/**
+ * Обычный файл, у которого больше одной жёсткой ссылки.
+ * <p> Хранит идентификатор файла, по которому повторные ссылки можно учесть один раз.
+ *
+ * @see ru.nsu.sidey383.lab1.model.file.UnixFileAttributes
+ */
+public class HardLinkDUFile extends RegularDUFile {
+
+    private final long device;
+
+    private final long inode;
+
+    public HardLinkDUFile(long size, Path path, long device, long inode) {
+        super(size, path);
+        this.device = device;
+        this.inode = inode;
+    }
+
+    public HardLinkDUFile(long size, ParentDUFile parent, Path name, long device, long inode) {
+        super(size, parent, name);
+        this.device = device;
+        this.inode = inode;
+    }
+
+    public long getDevice() {
+        return device;
+    }
+
+    public long getInode() {
+        return inode;
+    }
+
+}
@@ -1,6 +1,7 @@
 package ru.nsu.sidey383.lab1.model.file.base;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import ru.nsu.sidey383.lab1.model.file.*;
 
 import java.nio.file.Path;
@@ -19,6 +20,11 @@ public class LinkDUFile extends BaseDUFile implements ReferenceDUFile {
         this.reference = resolved;
     }
 
+    public LinkDUFile(long size, ParentDUFile parent, Path name, Path resolved) {
+        super(size, parent, name);
+        this.reference = resolved;
+    }
+
     @Override
     public @NotNull DUFileType getFileType() {
         return DUFileType.LINK;
@@ -34,6 +40,29 @@ public class LinkDUFile extends BaseDUFile implements ReferenceDUFile {
         singletonCollection.add(file);
     }
 
+    /**
+     * Размер ссылки не зависит от размера потомка.
+     */
+    @Override
+    public void foldChild(DUFile file) {}
+
+    @Override
+    public @Nullable DUFile removeChild(DUFile file) {
+        for (DUFile c : singletonCollection) {
+            if (c.equals(file)) {
+                singletonCollection.clear();
+                return c;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Размер ссылки не зависит от размера потомка.
+     */
+    @Override
+    public void addSize(long delta) {}
+
     @Override
     public Path getReference() {
         return reference;
@@ -3,6 +3,7 @@ package ru.nsu.sidey383.lab1.model.file.base;
 import org.jetbrains.annotations.NotNull;
 import ru.nsu.sidey383.lab1.model.file.BaseDUFile;
 import ru.nsu.sidey383.lab1.model.file.DUFileType;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
 
 import java.nio.file.Path;
 
@@ -12,6 +13,10 @@ public class RegularDUFile extends BaseDUFile {
         super(size, path);
     }
 
+    public RegularDUFile(long size, ParentDUFile parent, Path name) {
+        super(size, parent, name);
+    }
+
     @Override
     public @NotNull DUFileType getFileType() {
         return DUFileType.REGULAR_FILE;
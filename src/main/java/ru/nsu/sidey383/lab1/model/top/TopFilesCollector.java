@@ -0,0 +1,92 @@
+package ru.nsu.sidey383.lab1.model.top;
+
+import org.jetbrains.annotations.NotNull;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Хранит не более заданного количества самых больших файлов. Занимает O(K) памяти.
+ * <p> Файлы меньше текущего минимума заполненной кучи отбрасываются без блокировки,
+ * поэтому один объект можно использовать из нескольких потоков обхода.
+ */
+public class TopFilesCollector {
+
+    private static final Comparator<TopFile> BY_SIZE = Comparator.comparingLong(TopFile::size);
+
+    private final int capacity;
+
+    /**
+     * Min-heap, the head is the smallest kept file
+     * **/
+    private final PriorityQueue<TopFile> heap;
+
+    /**
+     * Size of the heap head when the heap is full, otherwise -1
+     * **/
+    private volatile long threshold = -1;
+
+    public TopFilesCollector(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must de over zero");
+        this.capacity = capacity;
+        this.heap = new PriorityQueue<>(capacity, BY_SIZE);
+    }
+
+    /**
+     * Учитывает файл. При равных размерах сохраняется файл, учтённый раньше.
+     */
+    public void offer(@NotNull DUFile file) {
+        long size = file.getSize();
+        if (size <= threshold)
+            return;
+        synchronized (this) {
+            if (size > threshold)
+                add(new TopFile(file.getPath(), size));
+        }
+    }
+
+    /**
+     * Добавляет в данный объект файлы другого объекта.
+     * <p> Стоимость O(K log K) не зависит от количества просмотренных файлов.
+     */
+    public void merge(@NotNull TopFilesCollector other) {
+        List<TopFile> files = other.getTopFiles();
+        synchronized (this) {
+            for (TopFile file : files) {
+                if (file.size() <= threshold)
+                    break;
+                add(file);
+            }
+        }
+    }
+
+    private void add(TopFile file) {
+        if (heap.size() == capacity)
+            heap.poll();
+        heap.add(file);
+        if (heap.size() == capacity)
+            threshold = heap.element().size();
+    }
+
+    /**
+     * @return сохранённые файлы в порядке уменьшения размера.
+     */
+    @NotNull
+    public synchronized List<TopFile> getTopFiles() {
+        List<TopFile> files = new ArrayList<>(heap);
+        files.sort(BY_SIZE.reversed());
+        return files;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public record TopFile(@NotNull Path path, long size) {}
+
+}
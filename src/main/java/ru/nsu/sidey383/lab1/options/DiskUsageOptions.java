@@ -1,13 +1,19 @@
 package ru.nsu.sidey383.lab1.options;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import ru.nsu.sidey383.lab1.exception.DUOptionReadException;
 import ru.nsu.sidey383.lab1.write.size.SizeSuffix;
 import ru.nsu.sidey383.lab1.write.size.SizeSuffixIEC;
 import ru.nsu.sidey383.lab1.write.size.SizeSuffixISU;
 
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * конфигурация disk usage.
@@ -15,46 +21,238 @@ import java.nio.file.Path;
  *
  * @see ru.nsu.sidey383.lab1.options.FilesPrintOptions
  */
-public class DiskUsageOptions implements FilesPrintOptions {
+public class DiskUsageOptions implements FilesPrintOptions, FilesScanOptions {
 
     private final boolean followLinks;
 
+    private final WalkerMode walkerMode;
+
+    private final int threadCount;
+
+    private final int maxConcurrentStats;
+
     private final int maxDepth;
 
+    private final boolean foldHidden;
+
+    private final boolean summarize;
+
+    private final boolean compactTree;
+
+    private final int topFilesCount;
+
+    private final boolean dedupHardLinks;
+
+    private final List<String> excludeGlobs;
+
+    private final boolean oneFileSystem;
+
+    private final boolean statistics;
+
+    private final boolean progress;
+
     private final int fileInDirLimit;
 
+    private final int watchInterval;
+
+    private final Duration timeBudget;
+
+    private final boolean streamOutput;
+
     private final Path filePath;
 
+    @Nullable
+    private final Path saveSnapshotPath;
+
+    @Nullable
+    private final Path fromSnapshotPath;
+
+    @Nullable
+    private final Path incrementalSnapshotPath;
+
     private final SizeSuffix sizeSuffix;
 
     private final boolean help;
 
     private DiskUsageOptions(boolean help,
                              boolean followLinks,
+                             @NotNull WalkerMode walkerMode,
+                             int threadCount,
+                             int maxConcurrentStats,
                              int maxDepth,
+                             boolean foldHidden,
+                             boolean summarize,
+                             boolean compactTree,
+                             int topFilesCount,
+                             boolean dedupHardLinks,
+                             @NotNull List<String> excludeGlobs,
+                             boolean oneFileSystem,
+                             boolean statistics,
+                             boolean progress,
                              int fileInDirLimit,
+                             int watchInterval,
+                             @NotNull Duration timeBudget,
+                             boolean streamOutput,
                              @NotNull Path filePath,
+                             @Nullable Path saveSnapshotPath,
+                             @Nullable Path fromSnapshotPath,
+                             @Nullable Path incrementalSnapshotPath,
                              @NotNull SizeSuffix sizeSuffix) {
         this.help = help;
         this.followLinks = followLinks;
+        this.walkerMode = walkerMode;
+        this.threadCount = threadCount;
+        this.maxConcurrentStats = maxConcurrentStats;
         this.maxDepth = maxDepth;
+        this.foldHidden = foldHidden;
+        this.summarize = summarize;
+        this.compactTree = compactTree;
+        this.topFilesCount = topFilesCount;
+        this.dedupHardLinks = dedupHardLinks;
+        this.excludeGlobs = List.copyOf(excludeGlobs);
+        this.oneFileSystem = oneFileSystem;
+        this.statistics = statistics;
+        this.progress = progress;
         this.fileInDirLimit = fileInDirLimit;
+        this.watchInterval = watchInterval;
+        this.timeBudget = timeBudget;
+        this.streamOutput = streamOutput;
         this.filePath = filePath;
+        this.saveSnapshotPath = saveSnapshotPath;
+        this.fromSnapshotPath = fromSnapshotPath;
+        this.incrementalSnapshotPath = incrementalSnapshotPath;
         this.sizeSuffix = sizeSuffix;
     }
 
+    @Override
     public boolean followLink() {
         return followLinks;
     }
 
+    @Override
+    @NotNull
+    public WalkerMode getWalkerMode() {
+        return walkerMode;
+    }
+
+    @Override
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    @Override
+    public int getMaxConcurrentStats() {
+        return maxConcurrentStats;
+    }
+
     @NotNull
     public Path getFilePath() {
         return filePath;
     }
 
+    /**
+     * @return файл, в который нужно сохранить снимок дерева, или null.
+     */
+    @Nullable
+    public Path getSaveSnapshotPath() {
+        return saveSnapshotPath;
+    }
+
+    @Override
+    public boolean savesSnapshot() {
+        return saveSnapshotPath != null;
+    }
+
+    /**
+     * @return снимок, который нужно вывести вместо обхода файлов, или null.
+     */
+    @Nullable
+    public Path getFromSnapshotPath() {
+        return fromSnapshotPath;
+    }
+
+    /**
+     * @return снимок предыдущего обхода, неизменённые директории которого не нужно читать, или null.
+     */
+    @Nullable
+    public Path getIncrementalSnapshotPath() {
+        return incrementalSnapshotPath;
+    }
+
+    /**
+     * В режиме наблюдения дерево сохраняется целиком и выводится заново после изменений.
+     *
+     * @return интервал вывода дерева в секундах или 0, если наблюдение не нужно.
+     */
+    public int getWatchInterval() {
+        return watchInterval;
+    }
+
+    /**
+     * Потомки корня выводятся, как только обход их поддерева завершён, а строка корня выводится в конце.
+     * <p> Файлы сортируются только внутри поддеревьев, а потомки корня выводятся все в порядке завершения.
+     *
+     * @return выводить ли дерево во время обхода.
+     */
+    public boolean isStreamOutput() {
+        return streamOutput;
+    }
+
+    @Override
+    public int getRetainDepth() {
+        // changes can happen anywhere in the watched tree, even if only the root is printed
+        if (watchInterval > 0)
+            return Integer.MAX_VALUE;
+        if (summarize || topFilesCount > 0)
+            return 0;
+        return foldHidden ? maxDepth : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean isCompactTree() {
+        return compactTree;
+    }
+
+    @Override
+    @NotNull
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+
+    @Override
+    public int getTopFilesCount() {
+        return topFilesCount;
+    }
+
+    @Override
+    public boolean dedupHardLinks() {
+        return dedupHardLinks;
+    }
+
+    @Override
+    @NotNull
+    public List<String> getExcludeGlobs() {
+        return excludeGlobs;
+    }
+
+    @Override
+    public boolean oneFileSystem() {
+        return oneFileSystem;
+    }
+
+    @Override
+    public boolean collectStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public boolean trackProgress() {
+        return progress;
+    }
+
     @Override
     public int getMaxDepth() {
-        return maxDepth;
+        return summarize ? 0 : maxDepth;
     }
 
     @Override
@@ -78,9 +276,27 @@ public class DiskUsageOptions implements FilesPrintOptions {
     @SuppressWarnings("UnusedReturnValue")
     public static final class DiskUsageOptionsBuilder {
         private boolean followLinks = false;
+        private WalkerMode walkerMode = WalkerMode.SEQUENTIAL;
+        private int threadCount = 1;
+        private int maxConcurrentStats = 256;
         private int maxDepth = 10;
+        private boolean foldHidden = false;
+        private boolean summarize = false;
+        private boolean compactTree = false;
+        private int topFilesCount = 0;
+        private boolean dedupHardLinks = false;
+        private final List<String> excludeGlobs = new ArrayList<>();
+        private boolean oneFileSystem = false;
+        private boolean statistics = false;
+        private boolean progress = false;
         private int fileInDirLimit = Integer.MAX_VALUE;
+        private int watchInterval = 0;
+        private Duration timeBudget = Duration.ZERO;
+        private boolean streamOutput = false;
         private Path filePath = Path.of(".");
+        private Path saveSnapshotPath = null;
+        private Path fromSnapshotPath = null;
+        private Path incrementalSnapshotPath = null;
 
         private SizeSuffix sizeSuffix = SizeSuffixIEC.BYTE;
 
@@ -93,6 +309,30 @@ public class DiskUsageOptions implements FilesPrintOptions {
             return this;
         }
 
+        public DiskUsageOptionsBuilder withThreadCount(int threadCount) {
+            if (threadCount <= 0) {
+                throw new IllegalArgumentException("Thread count must de over zero");
+            }
+            this.threadCount = threadCount;
+            return this;
+        }
+
+        public DiskUsageOptionsBuilder withWalkerMode(WalkerMode walkerMode) {
+            if (walkerMode == null) {
+                throw new IllegalArgumentException("Walker mode can't be null");
+            }
+            this.walkerMode = walkerMode;
+            return this;
+        }
+
+        public DiskUsageOptionsBuilder withMaxConcurrentStats(int maxConcurrentStats) {
+            if (maxConcurrentStats <= 0) {
+                throw new IllegalArgumentException("Concurrent stats count must de over zero");
+            }
+            this.maxConcurrentStats = maxConcurrentStats;
+            return this;
+        }
+
         public DiskUsageOptionsBuilder withMaxDepth(int maxDepth) {
             if (maxDepth <= 0) {
                 throw new IllegalArgumentException("Max depth must de over zero");
@@ -101,6 +341,86 @@ public class DiskUsageOptions implements FilesPrintOptions {
             return this;
         }
 
+        /**
+         * Не сохранять в дереве файлы, которые не будут выведены из-за ограничения глубины.
+         */
+        public DiskUsageOptionsBuilder withFoldHidden(boolean foldHidden) {
+            this.foldHidden = foldHidden;
+            return this;
+        }
+
+        /**
+         * Сохранять и выводить только корень дерева.
+         */
+        public DiskUsageOptionsBuilder withSummarize(boolean summarize) {
+            this.summarize = summarize;
+            return this;
+        }
+
+        public DiskUsageOptionsBuilder withCompactTree(boolean compactTree) {
+            this.compactTree = compactTree;
+            return this;
+        }
+
+        /**
+         * Собирать только самые большие файлы вместо дерева.
+         */
+        public DiskUsageOptionsBuilder withTopFilesCount(int topFilesCount) {
+            if (topFilesCount <= 0) {
+                throw new IllegalArgumentException("Top files count must de over zero");
+            }
+            this.topFilesCount = topFilesCount;
+            return this;
+        }
+
+        /**
+         * Учитывать жёсткие ссылки одного файла один раз.
+         */
+        public DiskUsageOptionsBuilder withDedupHardLinks(boolean dedupHardLinks) {
+            this.dedupHardLinks = dedupHardLinks;
+            return this;
+        }
+
+        /**
+         * Не читать файлы, имя которых совпадает с шаблоном glob. Шаблоны накапливаются.
+         */
+        public DiskUsageOptionsBuilder withExcludeGlob(String glob) {
+            if (glob == null || glob.isEmpty()) {
+                throw new IllegalArgumentException("Exclude pattern can't be empty");
+            }
+            try {
+                FileSystems.getDefault().getPathMatcher("glob:" + glob);
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("Wrong exclude pattern " + glob, e);
+            }
+            this.excludeGlobs.add(glob);
+            return this;
+        }
+
+        /**
+         * Не переходить на другие файловые системы.
+         */
+        public DiskUsageOptionsBuilder withOneFileSystem(boolean oneFileSystem) {
+            this.oneFileSystem = oneFileSystem;
+            return this;
+        }
+
+        /**
+         * Собирать статистику сканирования.
+         */
+        public DiskUsageOptionsBuilder withStatistics(boolean statistics) {
+            this.statistics = statistics;
+            return this;
+        }
+
+        /**
+         * Выводить ход сканирования во время обхода.
+         */
+        public DiskUsageOptionsBuilder withProgress(boolean progress) {
+            this.progress = progress;
+            return this;
+        }
+
         public DiskUsageOptionsBuilder withFileInDirLimit(int fileInDirLimit) {
             if (fileInDirLimit <= 0) {
                 throw new IllegalArgumentException("Limit files in dir must de over zero");
@@ -109,6 +429,36 @@ public class DiskUsageOptions implements FilesPrintOptions {
             return this;
         }
 
+        /**
+         * Следить за изменениями дерева и выводить его заново не чаще раза в watchInterval секунд.
+         */
+        public DiskUsageOptionsBuilder withWatchInterval(int watchInterval) {
+            if (watchInterval <= 0) {
+                throw new IllegalArgumentException("Watch interval must de over zero");
+            }
+            this.watchInterval = watchInterval;
+            return this;
+        }
+
+        /**
+         * Ограничить время обхода, см. {@link FilesScanOptions#getTimeBudget()}.
+         */
+        public DiskUsageOptionsBuilder withTimeBudget(@NotNull Duration timeBudget) {
+            if (timeBudget.isNegative() || timeBudget.isZero()) {
+                throw new IllegalArgumentException("Time budget must de over zero");
+            }
+            this.timeBudget = timeBudget;
+            return this;
+        }
+
+        /**
+         * Выводить потомков корня, как только обход их поддерева завершён.
+         */
+        public DiskUsageOptionsBuilder withStreamOutput(boolean streamOutput) {
+            this.streamOutput = streamOutput;
+            return this;
+        }
+
         public DiskUsageOptionsBuilder withFilePath(Path filePath) {
             if (filePath == null) {
                 throw new IllegalArgumentException("File path can't be null");
@@ -117,6 +467,30 @@ public class DiskUsageOptions implements FilesPrintOptions {
             return this;
         }
 
+        /**
+         * Сохранить построенное дерево в снимок.
+         */
+        public DiskUsageOptionsBuilder withSaveSnapshotPath(Path saveSnapshotPath) {
+            this.saveSnapshotPath = saveSnapshotPath;
+            return this;
+        }
+
+        /**
+         * Вывести дерево из снимка вместо обхода файлов.
+         */
+        public DiskUsageOptionsBuilder withFromSnapshotPath(Path fromSnapshotPath) {
+            this.fromSnapshotPath = fromSnapshotPath;
+            return this;
+        }
+
+        /**
+         * Не читать директории, которые не изменились со времени сохранения снимка.
+         */
+        public DiskUsageOptionsBuilder withIncrementalSnapshotPath(Path incrementalSnapshotPath) {
+            this.incrementalSnapshotPath = incrementalSnapshotPath;
+            return this;
+        }
+
         public DiskUsageOptionsBuilder withSizeSuffix(SizeSuffix sizeSuffix) {
             if (sizeSuffix == null) {
                 throw new IllegalArgumentException("Size suffix can't be null");
@@ -130,7 +504,13 @@ public class DiskUsageOptions implements FilesPrintOptions {
             return this;
         }
 
+        /**
+         * Несовместимые опции, например {@code --compact} и {@code --watch}, отклоняются.
+         */
         public DiskUsageOptionsBuilder applyConsoleArgs(String[] args) throws DUOptionReadException {
+            // both of them set the thread count
+            boolean threads = false;
+            boolean prefetch = false;
             for (int i = 0; i < args.length; i++) {
                 switch (args[i]) {
                     case "--depth" -> {
@@ -143,6 +523,64 @@ public class DiskUsageOptions implements FilesPrintOptions {
                         }
                     }
                     case "-L" -> withFollowLinks(true);
+                    case "--fold-hidden" -> withFoldHidden(true);
+                    case "-s", "--summarize" -> withSummarize(true);
+                    case "--compact" -> withCompactTree(true);
+                    case "--dedup-hard-links" -> withDedupHardLinks(true);
+                    case "--stream" -> withStreamOutput(true);
+                    case "-x", "--one-file-system" -> withOneFileSystem(true);
+                    case "--stats" -> withStatistics(true);
+                    case "--progress" -> withProgress(true);
+                    case "--exclude" -> {
+                        if (++i >= args.length)
+                            throw new DUOptionReadException(getExcludeError());
+                        try {
+                            withExcludeGlob(args[i]);
+                        } catch (IllegalArgumentException e) {
+                            throw new DUOptionReadException(getExcludeError(), e);
+                        }
+                    }
+                    case "--threads" -> {
+                        if (++i >= args.length)
+                            throw new DUOptionReadException(getThreadsError());
+                        try {
+                            withThreadCount(parsePositiveInt(args[i]));
+                        } catch (IllegalArgumentException e) {
+                            throw new DUOptionReadException(getThreadsError(), e);
+                        }
+                        threads = true;
+                        withWalkerMode(threadCount > 1 ? WalkerMode.FORK_JOIN : WalkerMode.SEQUENTIAL);
+                    }
+                    case "--virtual-threads" -> {
+                        if (++i >= args.length)
+                            throw new DUOptionReadException(getVirtualThreadsError());
+                        try {
+                            withMaxConcurrentStats(parsePositiveInt(args[i]));
+                        } catch (IllegalArgumentException e) {
+                            throw new DUOptionReadException(getVirtualThreadsError(), e);
+                        }
+                        withWalkerMode(WalkerMode.VIRTUAL_THREADS);
+                    }
+                    case "--prefetch" -> {
+                        if (++i >= args.length)
+                            throw new DUOptionReadException(getPrefetchError());
+                        try {
+                            withThreadCount(parsePositiveInt(args[i]));
+                        } catch (IllegalArgumentException e) {
+                            throw new DUOptionReadException(getPrefetchError(), e);
+                        }
+                        prefetch = true;
+                        withWalkerMode(WalkerMode.PIPELINED);
+                    }
+                    case "--top-files" -> {
+                        if (++i >= args.length)
+                            throw new DUOptionReadException(getTopFilesError());
+                        try {
+                            withTopFilesCount(parsePositiveInt(args[i]));
+                        } catch (IllegalArgumentException e) {
+                            throw new DUOptionReadException(getTopFilesError(), e);
+                        }
+                    }
                     case "--size-format" -> {
                         if (++i >= args.length)
                             throw new DUOptionReadException(getSizeFormatError());
@@ -161,6 +599,43 @@ public class DiskUsageOptions implements FilesPrintOptions {
                             throw new DUOptionReadException(getDepthError(), e);
                         }
                     }
+                    case "--watch" -> {
+                        if (++i >= args.length)
+                            throw new DUOptionReadException(getWatchError());
+                        try {
+                            withWatchInterval(parsePositiveInt(args[i]));
+                        } catch (IllegalArgumentException e) {
+                            throw new DUOptionReadException(getWatchError(), e);
+                        }
+                    }
+                    case "--time-budget" -> {
+                        if (++i >= args.length)
+                            throw new DUOptionReadException(getTimeBudgetError());
+                        try {
+                            withTimeBudget(Duration.ofSeconds(parsePositiveInt(args[i])));
+                        } catch (IllegalArgumentException e) {
+                            throw new DUOptionReadException(getTimeBudgetError(), e);
+                        }
+                    }
+                    case "--save-snapshot" -> {
+                        if (++i >= args.length)
+                            throw new DUOptionReadException(getSaveSnapshotError());
+                        withSaveSnapshotPath(Path.of(args[i]));
+                    }
+                    case "--from-snapshot" -> {
+                        if (++i >= args.length)
+                            throw new DUOptionReadException(getFromSnapshotError());
+                        Path path = Path.of(args[i]);
+                        if (!Files.isRegularFile(path))
+                            throw new DUOptionReadException(getFromSnapshotError());
+                        withFromSnapshotPath(path);
+                    }
+                    case "--incremental" -> {
+                        // the snapshot may not exist yet, then the tree is walked fully
+                        if (++i >= args.length)
+                            throw new DUOptionReadException(getIncrementalSnapshotError());
+                        withIncrementalSnapshotPath(Path.of(args[i]));
+                    }
                     case "-h", "-help" -> setHelp(true);
                     default -> {
                         Path path = Path.of(args[i]);
@@ -170,9 +645,38 @@ public class DiskUsageOptions implements FilesPrintOptions {
                     }
                 }
             }
+            checkConflicts(threads, prefetch);
             return this;
         }
 
+        private void checkConflicts(boolean threads, boolean prefetch) throws DUOptionReadException {
+            boolean watch = watchInterval > 0;
+            boolean limitedTime = !timeBudget.isZero();
+            // the compact tree has no objects of the files to watch, stream or estimate
+            if (compactTree && watch)
+                throw new DUOptionReadException(getConflictError("--compact", "--watch"));
+            if (compactTree && streamOutput)
+                throw new DUOptionReadException(getConflictError("--compact", "--stream"));
+            if (compactTree && limitedTime)
+                throw new DUOptionReadException(getConflictError("--compact", "--time-budget"));
+            // sizes of the unfinished directories are estimated only after the walk
+            if (streamOutput && limitedTime)
+                throw new DUOptionReadException(getConflictError("--stream", "--time-budget"));
+            if (streamOutput && topFilesCount > 0)
+                throw new DUOptionReadException(getConflictError("--stream", "--top-files"));
+            if (streamOutput && summarize)
+                throw new DUOptionReadException(getConflictError("--stream", "--summarize"));
+            // the watched tree is complete and printed whole
+            if (watch && limitedTime)
+                throw new DUOptionReadException(getConflictError("--time-budget", "--watch"));
+            if (watch && topFilesCount > 0)
+                throw new DUOptionReadException(getConflictError("--top-files", "--watch"));
+            if (watch && foldHidden)
+                throw new DUOptionReadException(getConflictError("--fold-hidden", "--watch"));
+            if (threads && prefetch)
+                throw new DUOptionReadException(getConflictError("--prefetch", "--threads"));
+        }
+
         private static int parsePositiveInt(String arg) throws DUOptionReadException {
             try {
                 int n = Integer.parseInt(arg);
@@ -190,20 +694,64 @@ public class DiskUsageOptions implements FilesPrintOptions {
             return "The depth must be an integer greater than zero";
         }
 
+        private static String getThreadsError() {
+            return "The thread count must be an integer greater than zero";
+        }
+
+        private static String getVirtualThreadsError() {
+            return "The concurrent stats limit must be an integer greater than zero";
+        }
+
+        private static String getPrefetchError() {
+            return "The prefetch thread count must be an integer greater than zero";
+        }
+
+        private static String getTopFilesError() {
+            return "The top files count must be an integer greater than zero";
+        }
+
         private static String getSizeFormatError() {
             return "Size format can take IEC or ISU values";
         }
 
+        private static String getExcludeError() {
+            return "The exclude pattern must be a non-empty glob";
+        }
+
         private static String getLimitError() {
             return "The limit must be an integer greater than zero";
         }
 
+        private static String getWatchError() {
+            return "The watch interval must be an integer greater than zero";
+        }
+
+        private static String getTimeBudgetError() {
+            return "The time budget must be an integer greater than zero";
+        }
+
+        private static String getSaveSnapshotError() {
+            return "The snapshot path is expected";
+        }
+
+        private static String getFromSnapshotError() {
+            return "The snapshot file must exist";
+        }
+
+        private static String getIncrementalSnapshotError() {
+            return "The path of the previous snapshot is expected";
+        }
+
+        private static String getConflictError(String option, String other) {
+            return "The option " + option + " can't be used with " + other;
+        }
+
         private static String getFileError() {
             return "The file must exist";
         }
 
         public DiskUsageOptions build() {
-            return new DiskUsageOptions(help, followLinks, maxDepth, fileInDirLimit, filePath, sizeSuffix);
+            return new DiskUsageOptions(help, followLinks, walkerMode, threadCount, maxConcurrentStats, maxDepth, foldHidden, summarize, compactTree, topFilesCount, dedupHardLinks, excludeGlobs, oneFileSystem, statistics, progress, fileInDirLimit, watchInterval, timeBudget, streamOutput, filePath, saveSnapshotPath, fromSnapshotPath, incrementalSnapshotPath, sizeSuffix);
         }
     }
 }
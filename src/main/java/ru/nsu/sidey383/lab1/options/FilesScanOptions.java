@@ -0,0 +1,107 @@
+package ru.nsu.sidey383.lab1.options;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Конфигурация построения файлового дерева.
+ *
+ * @see ru.nsu.sidey383.lab1.FileTree#calculateTree(java.nio.file.Path, FilesScanOptions)
+ */
+public interface FilesScanOptions {
+
+    boolean followLink();
+
+    WalkerMode getWalkerMode();
+
+    /**
+     * @return количество потоков обхода для {@link WalkerMode#FORK_JOIN} или потоков чтения для {@link WalkerMode#PIPELINED}.
+     */
+    int getThreadCount();
+
+    /**
+     * @return максимальное количество одновременных чтений атрибутов для {@link WalkerMode#VIRTUAL_THREADS}.
+     */
+    int getMaxConcurrentStats();
+
+    /**
+     * Файлы глубже этого уровня не сохраняются в дереве, а учитываются только в размере предка.
+     * <p> Корень дерева находится на глубине 0.
+     *
+     * @return максимальная глубина сохраняемых файлов или {@link Integer#MAX_VALUE}, если сохраняется всё дерево.
+     */
+    int getRetainDepth();
+
+    /**
+     * @return сохранять ли дерево в {@link ru.nsu.sidey383.lab1.model.compact.CompactFileTree}.
+     */
+    boolean isCompactTree();
+
+    /**
+     * При значении больше нуля во время обхода собираются самые большие файлы, см. {@link ru.nsu.sidey383.lab1.FileTree#getTopFiles()}.
+     *
+     * @return количество собираемых файлов или 0.
+     */
+    int getTopFilesCount();
+
+    /**
+     * Файл с несколькими жёсткими ссылками учитывается только по первой встреченной ссылке.
+     * <p> Файлы сравниваются по устройству и inode, поэтому нужна поддержка атрибутов "unix".
+     *
+     * @return учитывать ли жёсткие ссылки одного файла один раз.
+     */
+    boolean dedupHardLinks();
+
+    /**
+     * Записи, имя которых совпадает с шаблоном, не читаются и не учитываются вместе с поддеревом.
+     *
+     * @return шаблоны glob имён исключаемых файлов, см. {@link java.nio.file.FileSystem#getPathMatcher(String)}.
+     */
+    List<String> getExcludeGlobs();
+
+    /**
+     * Директории на других устройствах не читаются и не учитываются вместе с поддеревом.
+     *
+     * @return обходить ли только файловую систему корня.
+     */
+    boolean oneFileSystem();
+
+    /**
+     * Для снимка читается время изменения метаданных директорий, по которому следующий обход узнаёт неизменённые директории.
+     *
+     * @return будет ли дерево сохранено как {@link ru.nsu.sidey383.lab1.model.compact.SnapshotFileTree}.
+     */
+    boolean savesSnapshot();
+
+    /**
+     * Атрибуты "unix" нужны для жёстких ссылок, идентификаторов директорий при {@link #followLink()},
+     * устройств при {@link #oneFileSystem()} и времени изменения метаданных для снимка.
+     *
+     * @return читать ли {@link ru.nsu.sidey383.lab1.model.file.UnixFileAttributes} каждого файла при обходе.
+     */
+    default boolean readsUnixAttributes() {
+        return dedupHardLinks() || followLink() || oneFileSystem() || savesSnapshot();
+    }
+
+    /**
+     * @return собирать ли {@link ru.nsu.sidey383.lab1.stats.ScanStatistics}.
+     */
+    boolean collectStatistics();
+
+    /**
+     * Ход обхода доступен по JMX и без этой опции.
+     *
+     * @return выводить ли {@link ru.nsu.sidey383.lab1.stats.ScanProgress} во время обхода.
+     */
+    boolean trackProgress();
+
+    /**
+     * После этого времени директории больше не открываются, а их размеры оцениваются,
+     * см. {@link ru.nsu.sidey383.lab1.FileTree#getUnfinishedDirectoryCount()}.
+     * <p> Не применяется к {@link ru.nsu.sidey383.lab1.model.compact.CompactFileTree}.
+     *
+     * @return время на обход или {@link Duration#ZERO}, если время не ограничено.
+     */
+    Duration getTimeBudget();
+
+}
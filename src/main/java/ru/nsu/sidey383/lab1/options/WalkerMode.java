@@ -0,0 +1,30 @@
+package ru.nsu.sidey383.lab1.options;
+
+/**
+ * Способ обхода дерева файлов.
+ */
+public enum WalkerMode {
+    /**
+     * Обход в одном потоке.
+     */
+    SEQUENTIAL,
+    /**
+     * Обход в {@link java.util.concurrent.ForkJoinPool} из {@link FilesScanOptions#getThreadCount()} потоков.
+     */
+    FORK_JOIN,
+    /**
+     * Обход виртуальными потоками, не более {@link FilesScanOptions#getMaxConcurrentStats()} одновременных чтений атрибутов.
+     */
+    VIRTUAL_THREADS,
+    /**
+     * Обход в одном потоке, директории и атрибуты читаются заранее в {@link FilesScanOptions#getThreadCount()} потоках.
+     */
+    PIPELINED;
+
+    /**
+     * @return вызываются ли методы {@link ru.nsu.sidey383.lab1.walker.DUFileVisitor} только из одного потока.
+     */
+    public boolean hasSingleThreadVisitor() {
+        return this == SEQUENTIAL || this == PIPELINED;
+    }
+}
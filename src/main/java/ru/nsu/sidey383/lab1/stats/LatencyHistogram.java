@@ -0,0 +1,93 @@
+package ru.nsu.sidey383.lab1.stats;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма задержек с корзинами по степеням двойки наносекунд.
+ * <p> Значения накапливаются в {@link LongAdder}, поэтому запись из нескольких потоков не блокирует их
+ * и ничего не создаёт. Перцентили вычисляются с точностью до корзины.
+ * <p> Потокобезопасно.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The bucket i holds the latencies below 2^i ns and at least 2^(i-1) ns
+     * **/
+    private static final int BUCKETS = Long.SIZE;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++)
+            buckets[i] = new LongAdder();
+    }
+
+    /**
+     * @param nanos задержка, отрицательная считается нулевой.
+     */
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+        // the bit length of the latency
+        buckets[Long.SIZE - Long.numberOfLeadingZeros(nanos)].increment();
+        totalNanos.add(nanos);
+        // the maximum rarely changes, so usually no CAS is made
+        if (nanos > maxNanos.get())
+            maxNanos.accumulate(nanos);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets)
+            count += bucket.sum();
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * @param percentile доля записей от 0 до 1.
+     *
+     * @return наибольшее значение корзины, в которую попадает перцентиль, но не больше {@link #getMaxNanos()},
+     * или 0, если записей нет.
+     */
+    public long getPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 1)
+            throw new IllegalArgumentException("Percentile must be between 0 and 1");
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        if (count == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(upperBound(i), getMaxNanos());
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * The largest latency of the bucket, the last bucket ends at {@link Long#MAX_VALUE}
+     * **/
+    private static long upperBound(int bucket) {
+        return (1L << bucket) - 1;
+    }
+
+}
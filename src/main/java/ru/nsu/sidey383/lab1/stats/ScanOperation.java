@@ -0,0 +1,37 @@
+package ru.nsu.sidey383.lab1.stats;
+
+/**
+ * Операции сканирования, время которых учитывается в {@link ScanStatistics}.
+ */
+public enum ScanOperation {
+    /**
+     * Разрешение цели ссылки через {@link java.nio.file.Path#toRealPath(java.nio.file.LinkOption...)} и чтение её атрибутов.
+     */
+    REAL_PATH("toRealPath"),
+    /**
+     * Чтение атрибутов записи директории.
+     */
+    READ_ATTRIBUTES("readAttributes"),
+    /**
+     * Открытие директории через {@link java.nio.file.Files#newDirectoryStream(java.nio.file.Path)}.
+     */
+    OPEN_DIRECTORY("newDirectoryStream"),
+    /**
+     * Вызовы {@link ru.nsu.sidey383.lab1.walker.DUFileVisitor}, которые строят дерево.
+     */
+    BUILD_TREE("tree building"),
+    /**
+     * Вывод результата.
+     */
+    PRINT("printing");
+
+    private final String displayName;
+
+    ScanOperation(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,153 @@
+package ru.nsu.sidey383.lab1.stats;
+
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики хода сканирования.
+ * <p> Обход только увеличивает счётчики без блокировок и форматирования, а значения читаются
+ * по JMX через {@link ScanProgressMXBean} или выводятся {@link ru.nsu.sidey383.lab1.write.ScanProgressReporter}.
+ * Прочитанные во время обхода значения согласованы между собой лишь приблизительно.
+ * <p> Оставшееся время оценивается по ожидаемому размеру дерева и средней скорости с начала обхода.
+ */
+public class ScanProgress implements ScanProgressMXBean {
+
+    private static final VarHandle CURRENT_PATH;
+
+    static {
+        try {
+            CURRENT_PATH = MethodHandles.lookup().findVarHandle(ScanProgress.class, "currentPath", Path.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private final LongAdder entries = new LongAdder();
+
+    private final LongAdder bytes = new LongAdder();
+
+    private final LongAdder openedDirectories = new LongAdder();
+
+    private final LongAdder closedDirectories = new LongAdder();
+
+    /**
+     * Written and read only with opaque access
+     * **/
+    @SuppressWarnings("unused")
+    private Path currentPath;
+
+    private volatile long startNanos;
+
+    private volatile long expectedBytes = -1;
+
+    @Nullable
+    private ObjectName name = null;
+
+    /**
+     * Отмечает начало обхода.
+     *
+     * @param expectedBytes ожидаемый размер дерева в байтах или -1, если он неизвестен.
+     */
+    public void scanStarted(long expectedBytes) {
+        this.startNanos = System.nanoTime();
+        // published last, the estimate is given only after the start
+        this.expectedBytes = expectedBytes;
+    }
+
+    public void fileVisited(DUFile file) {
+        entries.increment();
+        bytes.add(file.getSize());
+    }
+
+    /**
+     * @param directory директория без потомков, её размер - собственный размер директории.
+     */
+    public void directoryOpened(DUFile directory) {
+        fileVisited(directory);
+        openedDirectories.increment();
+        CURRENT_PATH.setOpaque(this, directory.getPath());
+    }
+
+    public void directoryClosed() {
+        closedDirectories.increment();
+    }
+
+    @Override
+    public long getEntriesVisited() {
+        return entries.sum();
+    }
+
+    @Override
+    public long getBytesAccounted() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getOpenDirectories() {
+        // closed first, so that the difference is never negative
+        long closed = closedDirectories.sum();
+        return Math.max(0, openedDirectories.sum() - closed);
+    }
+
+    @Override
+    public String getCurrentPath() {
+        Path path = (Path) CURRENT_PATH.getOpaque(this);
+        return path == null ? "" : path.toString();
+    }
+
+    @Override
+    public long getExpectedBytes() {
+        return expectedBytes;
+    }
+
+    @Override
+    public long getEtaSeconds() {
+        long expected = expectedBytes;
+        long elapsed = System.nanoTime() - startNanos;
+        long accounted = getBytesAccounted();
+        if (expected < 0 || accounted == 0 || accounted >= expected)
+            return -1;
+        double nanosLeft = (double) elapsed / accounted * (expected - accounted);
+        return (long) Math.ceil(nanosLeft / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Регистрирует объект в {@link ManagementFactory#getPlatformMBeanServer()} под уникальным именем.
+     * <p> Если объект не удалось зарегистрировать, то обход продолжается без него.
+     */
+    public synchronized void register() {
+        if (name != null)
+            return;
+        try {
+            ObjectName name = new ObjectName("ru.nsu.sidey383.jdu:type=ScanProgress,id=" + NEXT_ID.getAndIncrement());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            this.name = name;
+        } catch (JMException ignored) {
+            // the scan goes on without the bean
+        }
+    }
+
+    public synchronized void unregister() {
+        if (name == null)
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException ignored) {
+            // already unregistered
+        }
+        name = null;
+    }
+
+}
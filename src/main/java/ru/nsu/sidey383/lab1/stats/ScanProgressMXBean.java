@@ -0,0 +1,42 @@
+package ru.nsu.sidey383.lab1.stats;
+
+/**
+ * Ход сканирования, доступный по JMX, пока выполняется {@link ru.nsu.sidey383.lab1.FileTree#calculateTree}.
+ *
+ * @see ScanProgress
+ */
+public interface ScanProgressMXBean {
+
+    /**
+     * @return количество обойдённых файлов и директорий.
+     */
+    long getEntriesVisited();
+
+    /**
+     * @return сумма размеров обойдённых файлов и директорий в байтах.
+     */
+    long getBytesAccounted();
+
+    /**
+     * Это не очередь обхода: директория считается открытой, пока не завершён обход всех её потомков.
+     *
+     * @return количество директорий, начатых и ещё не завершённых обходом.
+     */
+    long getOpenDirectories();
+
+    /**
+     * @return путь последней начатой директории или пустая строка.
+     */
+    String getCurrentPath();
+
+    /**
+     * @return ожидаемый размер дерева в байтах или -1, если он неизвестен.
+     */
+    long getExpectedBytes();
+
+    /**
+     * @return оценка оставшегося времени в секундах или -1, если её нельзя дать.
+     */
+    long getEtaSeconds();
+
+}
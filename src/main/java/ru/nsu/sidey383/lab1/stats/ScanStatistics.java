@@ -0,0 +1,184 @@
+package ru.nsu.sidey383.lab1.stats;
+
+import org.jetbrains.annotations.NotNull;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Статистика сканирования: количество и задержки операций {@link ScanOperation}, скорость обхода,
+ * наибольшая очередь директорий, ошибки по причинам и оценка памяти на узел дерева.
+ * <p> Операции записываются в {@link LatencyHistogram} без блокировок и создания объектов,
+ * поэтому сбор статистики почти не замедляет обход.
+ * <p> Запись операций потокобезопасна. {@link #walkStarted()} и {@link #walkFinished(long, long, Collection)}
+ * вызываются в потоке, построившем дерево.
+ */
+public class ScanStatistics {
+
+    private static final ScanOperation[] OPERATIONS = ScanOperation.values();
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+
+    private final LongAccumulator peakQueueDepth = new LongAccumulator(Math::max, 0);
+
+    private long startNanos;
+
+    private long walkNanos = 0;
+
+    private long heapBefore;
+
+    private long nodeCount = 0;
+
+    private long retainedBytes = 0;
+
+    private boolean retainedBytesExact = false;
+
+    private Map<String, Long> errorsByCause = Collections.emptyMap();
+
+    public ScanStatistics() {
+        for (int i = 0; i < latencies.length; i++)
+            latencies[i] = new LatencyHistogram();
+    }
+
+    /**
+     * Учитывает операцию, начатую в момент startNanos по {@link System#nanoTime()}.
+     */
+    public void record(@NotNull ScanOperation operation, long startNanos) {
+        latencies[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @param depth текущее количество открытых директорий в очереди {@link ru.nsu.sidey383.lab1.walker.DUSystemFileWalker}.
+     */
+    public void updateQueueDepth(long depth) {
+        peakQueueDepth.accumulate(depth);
+    }
+
+    /**
+     * Отмечает начало обхода.
+     */
+    public void walkStarted() {
+        heapBefore = usedHeap();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Отмечает конец обхода.
+     *
+     * @param nodeCount количество узлов в дереве.
+     * @param retainedBytes размер дерева в байтах или отрицательное число, если размер неизвестен.
+     *                      Тогда он оценивается по росту занятой кучи без сборки мусора.
+     * @param errors ошибки обхода.
+     */
+    public void walkFinished(long nodeCount, long retainedBytes, @NotNull Collection<DUPathException> errors) {
+        walkNanos = System.nanoTime() - startNanos;
+        this.nodeCount = nodeCount;
+        this.retainedBytesExact = retainedBytes >= 0;
+        this.retainedBytes = retainedBytesExact ? retainedBytes : Math.max(0, usedHeap() - heapBefore);
+        Map<String, Long> causes = new TreeMap<>();
+        for (DUPathException e : errors)
+            causes.merge(causeName(e), 1L, Long::sum);
+        errorsByCause = Collections.unmodifiableMap(causes);
+    }
+
+    @NotNull
+    public LatencyHistogram getLatency(@NotNull ScanOperation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    /**
+     * @return количество прочитанных записей директорий и целей ссылок.
+     */
+    public long getEntryCount() {
+        return getLatency(ScanOperation.READ_ATTRIBUTES).getCount() + getLatency(ScanOperation.REAL_PATH).getCount();
+    }
+
+    public long getWalkNanos() {
+        return walkNanos;
+    }
+
+    public double getEntriesPerSecond() {
+        return walkNanos == 0 ? 0 : getEntryCount() * (double) TimeUnit.SECONDS.toNanos(1) / walkNanos;
+    }
+
+    public long getPeakQueueDepth() {
+        return peakQueueDepth.get();
+    }
+
+    /**
+     * @return количество ошибок по простому имени класса причины.
+     */
+    @NotNull
+    public Map<String, Long> getErrorsByCause() {
+        return errorsByCause;
+    }
+
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    public long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    /**
+     * @return известен ли размер дерева точно или оценён по росту кучи, в которую попадает и мусор обхода.
+     */
+    public boolean isRetainedBytesExact() {
+        return retainedBytesExact;
+    }
+
+    public double getRetainedBytesPerNode() {
+        return nodeCount == 0 ? 0 : (double) retainedBytes / nodeCount;
+    }
+
+    /**
+     * Выводит статистику в виде таблицы.
+     */
+    public void printReport(@NotNull PrintStream out) {
+        out.println("Scan statistics:");
+        out.printf(Locale.ROOT, "  walk: %.3f ms, %d entries, %.1f entries/s%n",
+                walkNanos / 1e6, getEntryCount(), getEntriesPerSecond());
+        // only the sequential walker has a queue of directories
+        if (getPeakQueueDepth() > 0)
+            out.printf(Locale.ROOT, "  peak queue depth: %d%n", getPeakQueueDepth());
+        out.printf(Locale.ROOT, "  %-20s %10s %12s %10s %10s %10s %10s%n",
+                "operation", "count", "total ms", "mean us", "p50 us", "p99 us", "max us");
+        for (ScanOperation operation : OPERATIONS) {
+            LatencyHistogram latency = getLatency(operation);
+            long count = latency.getCount();
+            out.printf(Locale.ROOT, "  %-20s %10d %12.3f %10.1f %10.1f %10.1f %10.1f%n",
+                    operation.getDisplayName(),
+                    count,
+                    latency.getTotalNanos() / 1e6,
+                    count == 0 ? 0 : latency.getTotalNanos() / 1e3 / count,
+                    latency.getPercentileNanos(0.5) / 1e3,
+                    latency.getPercentileNanos(0.99) / 1e3,
+                    latency.getMaxNanos() / 1e3);
+        }
+        out.printf(Locale.ROOT, "  tree: %d nodes, %s%.1f bytes per node%n",
+                nodeCount, retainedBytesExact ? "" : "~", getRetainedBytesPerNode());
+        if (!errorsByCause.isEmpty()) {
+            out.println("  errors:");
+            errorsByCause.forEach((cause, count) -> out.printf(Locale.ROOT, "    %-30s %d%n", cause, count));
+        }
+    }
+
+    private static String causeName(DUPathException e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        return cause.getClass().getSimpleName();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
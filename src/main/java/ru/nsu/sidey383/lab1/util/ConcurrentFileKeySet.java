@@ -0,0 +1,56 @@
+package ru.nsu.sidey383.lab1.util;
+
+/**
+ * Потокобезопасное множество идентификаторов файлов (устройство, inode).
+ * <p> Идентификаторы распределены по {@link ConcurrentFileKeySet#STRIPES} независимым {@link FileKeySet}
+ * со своими блокировками, поэтому потоки обхода редко ждут друг друга.
+ */
+public class ConcurrentFileKeySet {
+
+    static final int STRIPES = 64;
+
+    private final FileKeySet[] stripes = new FileKeySet[STRIPES];
+
+    public ConcurrentFileKeySet() {
+        for (int i = 0; i < STRIPES; i++)
+            stripes[i] = new FileKeySet();
+    }
+
+    /**
+     * @return был ли идентификатор добавлен, то есть отсутствовал во множестве.
+     *
+     * @throws IllegalStateException если на устройстве слишком много различных inode, см. {@link FileKeySet#add(long, long)}.
+     */
+    public boolean add(long device, long inode) {
+        FileKeySet stripe = stripe(device, inode);
+        synchronized (stripe) {
+            return stripe.add(device, inode);
+        }
+    }
+
+    public boolean contains(long device, long inode) {
+        FileKeySet stripe = stripe(device, inode);
+        synchronized (stripe) {
+            return stripe.contains(device, inode);
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (FileKeySet stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * The high bits select the stripe, the low bits are left to the slots of the inode table
+     * **/
+    private FileKeySet stripe(long device, long inode) {
+        long h = (inode ^ device * 0xC2B2AE3D27D4EB4FL) * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h >>> 58)];
+    }
+
+}
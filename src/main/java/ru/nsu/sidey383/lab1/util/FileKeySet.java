@@ -0,0 +1,140 @@
+package ru.nsu.sidey383.lab1.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Множество идентификаторов файлов (устройство, inode) на примитивных массивах.
+ * <p> Inode каждого устройства хранятся в своей таблице с открытой адресацией,
+ * поэтому элемент занимает от 8 до 16 байт вместо объекта-ключа и узла {@link java.util.HashSet}.
+ * <p> Не потокобезопасно.
+ */
+public class FileKeySet {
+
+    private final Map<Long, InodeTable> tables = new HashMap<>();
+
+    /**
+     * Usually all files are on one device, so the last table is checked first
+     * **/
+    private long lastDevice;
+
+    private InodeTable lastTable = null;
+
+    private long size = 0;
+
+    /**
+     * @return был ли идентификатор добавлен, то есть отсутствовал во множестве.
+     *
+     * @throws IllegalStateException если на устройстве больше 805306368 различных inode.
+     */
+    public boolean add(long device, long inode) {
+        InodeTable table = lastTable;
+        if (table == null || device != lastDevice) {
+            table = tables.computeIfAbsent(device, d -> new InodeTable());
+            lastDevice = device;
+            lastTable = table;
+        }
+        if (!table.add(inode))
+            return false;
+        size++;
+        return true;
+    }
+
+    public boolean contains(long device, long inode) {
+        InodeTable table = tables.get(device);
+        return table != null && table.contains(inode);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Open addressing with linear probing, 0 marks a free slot
+     * **/
+    private static final class InodeTable {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private static final int MAX_CAPACITY = 1 << 30;
+
+        private long[] slots = new long[INITIAL_CAPACITY];
+
+        private int count = 0;
+
+        /**
+         * The inode 0 can't be stored in the slots
+         * **/
+        private boolean hasZero = false;
+
+        private boolean add(long inode) {
+            if (inode == 0) {
+                if (hasZero)
+                    return false;
+                hasZero = true;
+                return true;
+            }
+            int mask = slots.length - 1;
+            for (int i = index(inode, mask); ; i = (i + 1) & mask) {
+                long slot = slots[i];
+                if (slot == inode)
+                    return false;
+                if (slot == 0) {
+                    if (count >= maxCount(slots.length)) {
+                        grow();
+                        return add(inode);
+                    }
+                    slots[i] = inode;
+                    count++;
+                    return true;
+                }
+            }
+        }
+
+        private boolean contains(long inode) {
+            if (inode == 0)
+                return hasZero;
+            int mask = slots.length - 1;
+            for (int i = index(inode, mask); ; i = (i + 1) & mask) {
+                long slot = slots[i];
+                if (slot == inode)
+                    return true;
+                if (slot == 0)
+                    return false;
+            }
+        }
+
+        private void grow() {
+            if (slots.length == MAX_CAPACITY)
+                throw new IllegalStateException("Too many file keys on one device");
+            long[] old = slots;
+            slots = new long[old.length << 1];
+            int mask = slots.length - 1;
+            for (long inode : old) {
+                if (inode == 0)
+                    continue;
+                int i = index(inode, mask);
+                while (slots[i] != 0)
+                    i = (i + 1) & mask;
+                slots[i] = inode;
+            }
+        }
+
+        /**
+         * Load factor 0.75
+         * **/
+        private static int maxCount(int capacity) {
+            return capacity - (capacity >> 2);
+        }
+
+        /**
+         * Inodes are often sequential, so the bits are mixed before masking
+         * **/
+        private static int index(long inode, int mask) {
+            long h = inode * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+    }
+
+}
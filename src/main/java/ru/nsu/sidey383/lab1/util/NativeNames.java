@@ -0,0 +1,110 @@
+package ru.nsu.sidey383.lab1.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Перевод имён файлов в байты кодировки файловой системы и обратно без потерь.
+ * <p> {@link Path#toString()} заменяет байты, которые нельзя декодировать, на U+FFFD, поэтому путь, собранный из
+ * такой строки, указывает на другой файл. Для таких имён байты берутся из {@link Path#toUri()}, который экранирует
+ * исходные байты пути, а путь восстанавливается через {@link Path#of(URI)}.
+ * <p> Имена файловых систем, кроме файловой системы по умолчанию, хранятся в UTF-8.
+ */
+public final class NativeNames {
+
+    /**
+     * Encoding of the default file system, see "sun.jnu.encoding"
+     * **/
+    private static final Charset CHARSET = nativeCharset();
+
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private NativeNames() {}
+
+    /**
+     * @param path абсолютный путь или имя файла, путь из одного сегмента.
+     *
+     * @return байты пути в кодировке файловой системы.
+     */
+    public static byte @NotNull [] toBytes(@NotNull Path path) {
+        String string = path.toString();
+        if (path.getFileSystem() != FileSystems.getDefault())
+            return string.getBytes(StandardCharsets.UTF_8);
+        if (string.indexOf(REPLACEMENT) < 0)
+            return string.getBytes(CHARSET);
+        if (path.isAbsolute())
+            return unescape(path.toUri().getRawPath(), 0);
+        String uri = path.getFileSystem().getPath("/").resolve(path).toUri().getRawPath();
+        return unescape(uri, 1);
+    }
+
+    /**
+     * @param bytes байты пути, см. {@link #toBytes(Path)}.
+     *
+     * @return абсолютный путь, если байты начинаются с '/', иначе имя файла.
+     */
+    @NotNull
+    public static Path toPath(@NotNull FileSystem fileSystem, byte @NotNull [] bytes) {
+        if (fileSystem != FileSystems.getDefault())
+            return fileSystem.getPath(new String(bytes, StandardCharsets.UTF_8));
+        String string = new String(bytes, CHARSET);
+        if (string.indexOf(REPLACEMENT) < 0)
+            return fileSystem.getPath(string);
+        boolean absolute = bytes.length > 0 && bytes[0] == '/';
+        StringBuilder uri = new StringBuilder(absolute ? "file://" : "file:///");
+        for (byte b : bytes) {
+            if (b == '/')
+                uri.append('/');
+            else
+                uri.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+        }
+        Path path = Path.of(URI.create(uri.toString()));
+        return absolute ? path : path.getFileName();
+    }
+
+    /**
+     * @return имя для вывода, как его вернул бы {@link Path#toString()}.
+     */
+    @NotNull
+    public static String toString(@NotNull FileSystem fileSystem, byte @NotNull [] bytes) {
+        return new String(bytes, fileSystem == FileSystems.getDefault() ? CHARSET : StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The URI of an existing directory ends with a slash
+     * **/
+    private static byte[] unescape(String uri, int from) {
+        int end = uri.length() > 1 && uri.endsWith("/") ? uri.length() - 1 : uri.length();
+        byte[] bytes = new byte[end - from];
+        int length = 0;
+        for (int i = from; i < end; i++) {
+            char c = uri.charAt(i);
+            if (c == '%') {
+                bytes[length++] = (byte) Integer.parseInt(uri, i + 1, i + 3, 16);
+                i += 2;
+            } else {
+                bytes[length++] = (byte) c;
+            }
+        }
+        return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+    }
+
+    private static Charset nativeCharset() {
+        String encoding = System.getProperty("sun.jnu.encoding");
+        try {
+            return encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            return Charset.defaultCharset();
+        }
+    }
+
+}
@@ -1,5 +1,11 @@
 package ru.nsu.sidey383.lab1.walker;
 
 public enum DUAction {
-    CONTINUE, STOP
+    CONTINUE,
+    STOP,
+    /**
+     * Обойти потомков директории по списку {@link DUFileVisitor#getCachedChildren(ru.nsu.sidey383.lab1.model.file.ParentDUFile)}, не читая директорию.
+     * <p> Атрибуты потомков читаются заново.
+     */
+    REUSE_LISTING
 }
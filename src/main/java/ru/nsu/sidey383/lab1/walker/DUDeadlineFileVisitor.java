@@ -0,0 +1,182 @@
+package ru.nsu.sidey383.lab1.walker;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.stats.ScanStatistics;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Передаёт вызовы другому visitor, пока не истекло время обхода.
+ * <p> Директория, встреченная позже, отмечается неполной и передаётся visitor без потомков: после
+ * {@link DUFileVisitor#preVisitParentFile(ParentDUFile)} сразу вызывается {@link DUFileVisitor#postVisitParentFile(ParentDUFile)},
+ * а обходу возвращается {@link DUAction#STOP}. Корень открывается всегда.
+ * <p> Потокобезопасен, если потокобезопасен исходный visitor.
+ */
+public class DUDeadlineFileVisitor implements DUFileVisitor {
+
+    private final DUFileVisitor visitor;
+
+    /**
+     * Deadline by {@link System#nanoTime()}, after which the directories aren't opened
+     * **/
+    private final long deadline;
+
+    /**
+     * Directories that weren't opened because of the deadline
+     * **/
+    private final Collection<DirectoryDUFile> unfinished = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param budget время обхода, отсчитываемое от создания visitor.
+     */
+    public DUDeadlineFileVisitor(@NotNull DUFileVisitor visitor, @NotNull Duration budget) {
+        this.visitor = visitor;
+        this.deadline = System.nanoTime() + budget.toNanos();
+    }
+
+    /**
+     * @return количество директорий, не открытых из-за истёкшего времени.
+     */
+    public int getUnfinishedDirectoryCount() {
+        return unfinished.size();
+    }
+
+    @Override
+    public void visitFile(DUFile file) {
+        visitor.visitFile(file);
+    }
+
+    @Override
+    public DUAction preVisitParentFile(ParentDUFile directory) {
+        if (!isOverBudget(directory))
+            return visitor.preVisitParentFile(directory);
+        if (visitor.preVisitParentFile(directory) != DUAction.STOP)
+            visitor.postVisitParentFile(directory);
+        return DUAction.STOP;
+    }
+
+    /**
+     * @return истекло ли время обхода.
+     */
+    private boolean isOverBudget(ParentDUFile directory) {
+        if (!(directory instanceof DirectoryDUFile dir) || directory.getParent().isEmpty())
+            return false;
+        if (System.nanoTime() - deadline < 0)
+            return false;
+        dir.markIncomplete();
+        unfinished.add(dir);
+        return true;
+    }
+
+    /**
+     * Оценивает размер каждой необойдённой директории как средний размер обойдённых директорий того же родителя.
+     * Вызывается после обхода.
+     * <p> Оценка добавляется к размерам предков, и они отмечаются неполными.
+     * Родители обрабатываются от самых глубоких, поэтому директории с необойдёнными потомками
+     * уже отмечены неполными и не участвуют в оценке соседей.
+     * <p> Если у родителя нет обойдённых поддиректорий, например потомки не сохраняются,
+     * то размер директории остаётся собственным размером.
+     */
+    public void extrapolateUnfinished() {
+        Map<ParentDUFile, List<DirectoryDUFile>> byParent = new IdentityHashMap<>();
+        for (DirectoryDUFile directory : unfinished)
+            directory.getParent().ifPresent(p -> byParent.computeIfAbsent(p, k -> new ArrayList<>()).add(directory));
+        Map<ParentDUFile, Integer> depths = new IdentityHashMap<>();
+        for (ParentDUFile parent : byParent.keySet())
+            depths.put(parent, depth(parent));
+        List<ParentDUFile> parents = new ArrayList<>(byParent.keySet());
+        parents.sort(Comparator.comparing(depths::get).reversed());
+        for (ParentDUFile parent : parents) {
+            long estimate = averageFinishedSize(parent);
+            long delta = 0;
+            for (DirectoryDUFile directory : byParent.get(parent)) {
+                if (estimate > directory.getSize()) {
+                    delta += estimate - directory.getSize();
+                    directory.addSize(estimate - directory.getSize());
+                }
+            }
+            // the children of links aren't counted in the size of the link
+            for (ParentDUFile p = parent; p instanceof DirectoryDUFile directory; p = p.getParent().orElse(null)) {
+                directory.addSize(delta);
+                directory.markIncomplete();
+            }
+        }
+    }
+
+    /**
+     * @return средний размер обойдённых поддиректорий или -1, если их нет.
+     */
+    private static long averageFinishedSize(ParentDUFile parent) {
+        long size = 0;
+        int count = 0;
+        for (DUFile child : parent.getChildren()) {
+            if (child instanceof DirectoryDUFile directory && !directory.isIncomplete()) {
+                size += directory.getSize();
+                count++;
+            }
+        }
+        return count == 0 ? -1 : size / count;
+    }
+
+    private static int depth(DUFile file) {
+        int depth = 0;
+        for (Optional<ParentDUFile> p = file.getParent(); p.isPresent(); p = p.get().getParent())
+            depth++;
+        return depth;
+    }
+
+    @Override
+    public @Nullable Collection<Path> getCachedChildren(ParentDUFile directory) {
+        return visitor.getCachedChildren(directory);
+    }
+
+    @Override
+    public boolean readsUnixAttributes() {
+        return visitor.readsUnixAttributes();
+    }
+
+    @Override
+    public @Nullable DUPathFilter getPathFilter() {
+        return visitor.getPathFilter();
+    }
+
+    @Override
+    public @Nullable ScanStatistics getStatistics() {
+        return visitor.getStatistics();
+    }
+
+    @Override
+    public void postVisitParentFile(ParentDUFile directory) {
+        visitor.postVisitParentFile(directory);
+    }
+
+    @Override
+    public void pathVisitError(@Nullable Path path, @NotNull DUPathException e) {
+        visitor.pathVisitError(path, e);
+    }
+
+    @Override
+    public void parentVisitError(@NotNull ParentDUFile directory, @NotNull DUPathException e) {
+        visitor.parentVisitError(directory, e);
+    }
+
+    @Override
+    public void directoryCloseError(@NotNull Path path, @NotNull DUPathException e) {
+        visitor.directoryCloseError(path, e);
+    }
+
+}
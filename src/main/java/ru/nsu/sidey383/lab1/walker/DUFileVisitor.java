@@ -5,8 +5,10 @@ import org.jetbrains.annotations.Nullable;
 import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
 import ru.nsu.sidey383.lab1.model.file.DUFile;
 import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.stats.ScanStatistics;
 
 import java.nio.file.Path;
+import java.util.Collection;
 
 public interface DUFileVisitor {
 
@@ -22,6 +24,44 @@ public interface DUFileVisitor {
      */
     DUAction preVisitParentFile(ParentDUFile directory);
 
+    /**
+     * Вызывается после {@link DUAction#REUSE_LISTING} из {@link DUFileVisitor#preVisitParentFile(ParentDUFile)}.
+     *
+     * @return пути потомков директории или null, если директорию нужно прочитать.
+     */
+    @Nullable
+    default Collection<Path> getCachedChildren(ParentDUFile directory) {
+        return null;
+    }
+
+    /**
+     * @return нужно ли читать {@link ru.nsu.sidey383.lab1.model.file.UnixFileAttributes} файлов: количество жёстких ссылок,
+     * см. {@link ru.nsu.sidey383.lab1.model.file.base.HardLinkDUFile}, время изменения метаданных, устройство и inode директорий.
+     */
+    default boolean readsUnixAttributes() {
+        return false;
+    }
+
+    /**
+     * Фильтр запрашивается один раз перед обходом.
+     *
+     * @return записи директорий, которые не нужно читать и обходить, или null, если нужно читать все записи.
+     */
+    @Nullable
+    default DUPathFilter getPathFilter() {
+        return null;
+    }
+
+    /**
+     * Статистика запрашивается один раз перед обходом.
+     *
+     * @return статистика, в которую обход записывает операции чтения, или null, если статистика не собирается.
+     */
+    @Nullable
+    default ScanStatistics getStatistics() {
+        return null;
+    }
+
     /**
      * Вызывается после обхода всех потомков этой директории.
      * <p>Не вызывается после возвращения {@link DUAction#STOP} из {@link DUFileVisitor#preVisitParentFile(ParentDUFile)}
@@ -33,6 +73,14 @@ public interface DUFileVisitor {
      */
     void pathVisitError(@Nullable Path path, @NotNull DUPathException e);
 
+    /**
+     * Вызывается, если директорию не удалось открыть после {@link DUFileVisitor#preVisitParentFile(ParentDUFile)}.
+     * <p>{@link DUFileVisitor#postVisitParentFile(ParentDUFile)} для неё не вызывается.
+     */
+    default void parentVisitError(@NotNull ParentDUFile directory, @NotNull DUPathException e) {
+        pathVisitError(directory.getPath(), e);
+    }
+
     void directoryCloseError(@NotNull Path path, @NotNull DUPathException e);
 
 }
@@ -0,0 +1,15 @@
+package ru.nsu.sidey383.lab1.walker;
+
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+
+/**
+ * Результат обхода дерева файлов.
+ */
+public interface DUFileWalker {
+
+    /**
+     * @return корневой файл обхода.
+     */
+    DUFile getRootFile();
+
+}
@@ -0,0 +1,79 @@
+package ru.nsu.sidey383.lab1.walker;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.stats.ScanStatistics;
+
+import java.nio.file.Path;
+import java.util.Collection;
+
+/**
+ * Передаёт вызовы другому visitor и возвращает {@link DUPathFilter} из {@link #getPathFilter()},
+ * поэтому отфильтрованные записи не читаются обходом и не доходят до visitor.
+ * <p> Потокобезопасен, если потокобезопасен исходный visitor.
+ */
+public class DUFilterFileVisitor implements DUFileVisitor {
+
+    private final DUFileVisitor visitor;
+
+    private final DUPathFilter filter;
+
+    public DUFilterFileVisitor(@NotNull DUFileVisitor visitor, @NotNull DUPathFilter filter) {
+        this.visitor = visitor;
+        this.filter = filter;
+    }
+
+    @Override
+    public void visitFile(DUFile file) {
+        visitor.visitFile(file);
+    }
+
+    @Override
+    public DUAction preVisitParentFile(ParentDUFile directory) {
+        return visitor.preVisitParentFile(directory);
+    }
+
+    @Override
+    public @Nullable Collection<Path> getCachedChildren(ParentDUFile directory) {
+        return visitor.getCachedChildren(directory);
+    }
+
+    @Override
+    public boolean readsUnixAttributes() {
+        return visitor.readsUnixAttributes();
+    }
+
+    @Override
+    public @NotNull DUPathFilter getPathFilter() {
+        return filter;
+    }
+
+    @Override
+    public @Nullable ScanStatistics getStatistics() {
+        return visitor.getStatistics();
+    }
+
+    @Override
+    public void postVisitParentFile(ParentDUFile directory) {
+        visitor.postVisitParentFile(directory);
+    }
+
+    @Override
+    public void pathVisitError(@Nullable Path path, @NotNull DUPathException e) {
+        visitor.pathVisitError(path, e);
+    }
+
+    @Override
+    public void parentVisitError(@NotNull ParentDUFile directory, @NotNull DUPathException e) {
+        visitor.parentVisitError(directory, e);
+    }
+
+    @Override
+    public void directoryCloseError(@NotNull Path path, @NotNull DUPathException e) {
+        visitor.directoryCloseError(path, e);
+    }
+
+}
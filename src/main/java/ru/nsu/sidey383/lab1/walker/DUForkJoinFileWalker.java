@@ -0,0 +1,173 @@
+package ru.nsu.sidey383.lab1.walker;
+
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.stats.ScanStatistics;
+import ru.nsu.sidey383.lab1.walker.node.DUWalkerNode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Параллельный обход дерева файлов. Каждая директория обходится отдельной задачей {@link ForkJoinPool}.
+ * <p> Методы {@link DUFileVisitor} вызываются из разных потоков, поэтому visitor должен быть потокобезопасным.
+ * Для одной директории гарантируется тот же порядок вызовов, что и в {@link DUSystemFileWalker}:
+ * {@link DUFileVisitor#postVisitParentFile(ParentDUFile)} вызывается после обработки всех её потомков.
+ */
+public class DUForkJoinFileWalker implements DUFileWalker {
+
+    private final DUFileVisitor visitor;
+
+    private final DUFile rootFile;
+
+    private final int parallelism;
+
+    @Nullable
+    private final DUPathFilter filter;
+
+    @Nullable
+    private final ScanStatistics statistics;
+
+    private DUForkJoinFileWalker(DUFile rootFile, DUFileVisitor visitor, int parallelism) {
+        this.rootFile = rootFile;
+        this.visitor = visitor;
+        this.parallelism = parallelism;
+        this.filter = visitor.getPathFilter();
+        this.statistics = visitor.getStatistics();
+    }
+
+    private void walk() {
+        if (rootFile instanceof ParentDUFile rootDir) {
+            DUAction action = visitor.preVisitParentFile(rootDir);
+            if (action == DUAction.STOP)
+                return;
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new ParentTask(rootDir, action));
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            visitor.visitFile(rootFile);
+        }
+    }
+
+    /**
+     * ForkJoinTask is serializable, but the tasks are never serialized
+     * **/
+    @SuppressWarnings("serial")
+    private class ParentTask extends RecursiveAction {
+
+        private final ParentDUFile parent;
+
+        private final DUAction action;
+
+        private ParentTask(ParentDUFile parent, DUAction action) {
+            this.parent = parent;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            DUWalkerNode node;
+            try {
+                node = openNode(parent, action);
+            } catch (DUPathException e) {
+                visitor.parentVisitError(parent, e);
+                return;
+            }
+            List<ParentTask> subtasks = new ArrayList<>();
+            try {
+                Iterator<Path> iterator = node.getPathIterator();
+                while (iterator.hasNext()) {
+                    ParentTask task = visitFile(iterator.next(), node);
+                    if (task != null) {
+                        task.fork();
+                        subtasks.add(task);
+                    }
+                }
+            } finally {
+                suppressedNodeClose(node);
+            }
+            // join in reverse order, so that the tasks that have not been stolen are executed by this thread
+            for (int i = subtasks.size() - 1; i >= 0; i--)
+                subtasks.get(i).join();
+            visitor.postVisitParentFile(parent);
+        }
+
+        /**
+         * @return задачу обхода директории или null, если обходить нечего.
+         */
+        private ParentTask visitFile(Path path, DUWalkerNode node) {
+            DUFile file = node.readChild(path, statistics);
+            file.setParent(parent);
+            if (isOtherFileSystem(file))
+                return null;
+            if (file instanceof ParentDUFile parentFile) {
+                DUAction action = visitor.preVisitParentFile(parentFile);
+                if (action != DUAction.STOP)
+                    return new ParentTask(parentFile, action);
+            } else {
+                visitor.visitFile(file);
+            }
+            return null;
+        }
+
+    }
+
+    /**
+     * Directories on other file systems are skipped with their subtrees
+     * **/
+    private boolean isOtherFileSystem(DUFile file) {
+        return filter != null && file instanceof DirectoryDUFile directory && filter.isOtherFileSystem(directory);
+    }
+
+    private DUWalkerNode openNode(ParentDUFile parent, DUAction action) throws DUPathException {
+        return DUWalkerNode.create(parent,
+                action == DUAction.REUSE_LISTING ? visitor.getCachedChildren(parent) : null,
+                visitor.readsUnixAttributes(),
+                filter,
+                statistics);
+    }
+
+    private void suppressedNodeClose(DUWalkerNode node) {
+        try {
+            node.close();
+        } catch (IOException e) {
+            visitor.directoryCloseError(node.getParent().getPath(), new DUPathException(node.getParent().getPath(), e));
+        }
+    }
+
+    @Override
+    public DUFile getRootFile() {
+        return rootFile;
+    }
+
+    /**
+     * Параллельно проходит по дереву файлов.
+     *
+     * @param path корневой файл.
+     * @param visitor потокобезопасный visitor.
+     * @param parallelism количество потоков обхода.
+     *
+     * @return объект, обходивший файлы.
+     *
+     * @see DUForkJoinFileWalker#getRootFile()
+     */
+    public static DUForkJoinFileWalker walkFiles(Path path, DUFileVisitor visitor, int parallelism) {
+        // children are attached to their parent from several threads
+        DUFile rootFile = DUFile.readFile(path, true);
+        DUForkJoinFileWalker walker = new DUForkJoinFileWalker(rootFile, visitor, parallelism);
+        walker.walk();
+        return walker;
+    }
+
+}
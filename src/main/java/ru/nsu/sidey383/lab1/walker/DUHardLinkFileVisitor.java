@@ -0,0 +1,121 @@
+package ru.nsu.sidey383.lab1.walker;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.DUFileType;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.HardLinkDUFile;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.stats.ScanStatistics;
+import ru.nsu.sidey383.lab1.util.ConcurrentFileKeySet;
+
+import java.nio.file.Path;
+import java.util.Collection;
+
+/**
+ * Передаёт вызовы другому visitor, пропуская файлы и директории, которые уже встречались с тем же устройством и inode.
+ * <p> Файл с несколькими жёсткими ссылками передаётся только при первой встрече.
+ * <p> Директория, к которой повторно привела ссылка, в том числе предок ссылки, не обходится.
+ * Директория без ссылки передаётся всегда, иначе её размер не попал бы в размер родителя.
+ * <p> Потокобезопасен, если потокобезопасен исходный visitor.
+ */
+public class DUHardLinkFileVisitor implements DUFileVisitor {
+
+    private final DUFileVisitor visitor;
+
+    /**
+     * Keys of the files with several hard links that are already visited
+     * **/
+    @Nullable
+    private final ConcurrentFileKeySet hardLinks;
+
+    /**
+     * Keys of the visited directories
+     * **/
+    @Nullable
+    private final ConcurrentFileKeySet directories;
+
+    /**
+     * @param hardLinks   пропускать ли повторные жёсткие ссылки.
+     * @param linkTargets пропускать ли директории, к которым повторно привела ссылка.
+     */
+    public DUHardLinkFileVisitor(@NotNull DUFileVisitor visitor, boolean hardLinks, boolean linkTargets) {
+        this.visitor = visitor;
+        this.hardLinks = hardLinks ? new ConcurrentFileKeySet() : null;
+        this.directories = linkTargets ? new ConcurrentFileKeySet() : null;
+    }
+
+    @Override
+    public void visitFile(DUFile file) {
+        if (isRepeatedHardLink(file))
+            return;
+        visitor.visitFile(file);
+    }
+
+    @Override
+    public DUAction preVisitParentFile(ParentDUFile directory) {
+        if (isRepeatedLinkTarget(directory))
+            return DUAction.STOP;
+        return visitor.preVisitParentFile(directory);
+    }
+
+    private boolean isRepeatedHardLink(DUFile f) {
+        if (hardLinks == null || !(f instanceof HardLinkDUFile link))
+            return false;
+        return !hardLinks.add(link.getDevice(), link.getInode());
+    }
+
+    private boolean isRepeatedLinkTarget(ParentDUFile directory) {
+        // the device and inode are read by the walker, see readsUnixAttributes
+        if (directories == null || !(directory instanceof DirectoryDUFile dir) || !dir.hasFileKey())
+            return false;
+        boolean added = directories.add(dir.getDevice(), dir.getInode());
+        return !added && directory.getParent().filter(p -> p.getFileType() == DUFileType.LINK).isPresent();
+    }
+
+    @Override
+    public @Nullable Collection<Path> getCachedChildren(ParentDUFile directory) {
+        return visitor.getCachedChildren(directory);
+    }
+
+    /**
+     * Устройство и inode читаются из {@link ru.nsu.sidey383.lab1.model.file.UnixFileAttributes}.
+     */
+    @Override
+    public boolean readsUnixAttributes() {
+        return true;
+    }
+
+    @Override
+    public @Nullable DUPathFilter getPathFilter() {
+        return visitor.getPathFilter();
+    }
+
+    @Override
+    public @Nullable ScanStatistics getStatistics() {
+        return visitor.getStatistics();
+    }
+
+    @Override
+    public void postVisitParentFile(ParentDUFile directory) {
+        visitor.postVisitParentFile(directory);
+    }
+
+    @Override
+    public void pathVisitError(@Nullable Path path, @NotNull DUPathException e) {
+        visitor.pathVisitError(path, e);
+    }
+
+    @Override
+    public void parentVisitError(@NotNull ParentDUFile directory, @NotNull DUPathException e) {
+        visitor.parentVisitError(directory, e);
+    }
+
+    @Override
+    public void directoryCloseError(@NotNull Path path, @NotNull DUPathException e) {
+        visitor.directoryCloseError(path, e);
+    }
+
+}
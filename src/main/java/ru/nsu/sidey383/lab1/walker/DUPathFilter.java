@@ -0,0 +1,118 @@
+package ru.nsu.sidey383.lab1.walker;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.UnixFileAttributes;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Отбрасывает записи директорий до чтения их атрибутов.
+ * <p> Имя записи сравнивается с шаблонами glob, см. {@link java.nio.file.FileSystem#getPathMatcher(String)}.
+ * Для директорий, открываемых через {@link DirectoryStream}, фильтр применяется при чтении директории.
+ * <p> При обходе одной файловой системы директории на другом устройстве пропускаются вместе с поддеревом
+ * и не открываются. Устройство директории берётся из атрибутов, прочитанных при обходе, см. {@link DirectoryDUFile#getDevice()}.
+ * Если обход их не прочитал, то устройство читается по атрибуту "unix:dev", а без него сравнивается {@link java.nio.file.FileStore}.
+ * <p> Потокобезопасно.
+ */
+public final class DUPathFilter implements DirectoryStream.Filter<Path> {
+
+    private final List<PathMatcher> excludes;
+
+    /**
+     * Device or file store of the root, or null if other file systems are walked too
+     * **/
+    @Nullable
+    private final Object rootDevice;
+
+    private DUPathFilter(List<PathMatcher> excludes, @Nullable Object rootDevice) {
+        this.excludes = excludes;
+        this.rootDevice = rootDevice;
+    }
+
+    /**
+     * @param root корень обхода. Его шаблоны и устройство используются для всех записей.
+     * @param excludeGlobs шаблоны имён исключаемых записей.
+     * @param oneFileSystem не переходить на другие файловые системы.
+     *
+     * @return фильтр или null, если фильтровать нечего.
+     *
+     * @throws java.util.regex.PatternSyntaxException если шаблон некорректен.
+     */
+    @Nullable
+    public static DUPathFilter create(@NotNull Path root, @NotNull Collection<String> excludeGlobs, boolean oneFileSystem) {
+        if (excludeGlobs.isEmpty() && !oneFileSystem)
+            return null;
+        List<PathMatcher> excludes = new ArrayList<>(excludeGlobs.size());
+        for (String glob : excludeGlobs)
+            excludes.add(root.getFileSystem().getPathMatcher("glob:" + glob));
+        // the root itself is followed if it is a link
+        Object rootDevice = oneFileSystem ? readDevice(root) : null;
+        if (excludes.isEmpty() && rootDevice == null)
+            return null;
+        return new DUPathFilter(List.copyOf(excludes), rootDevice);
+    }
+
+    /**
+     * @return нужно ли читать запись директории.
+     */
+    @Override
+    public boolean accept(Path entry) {
+        return !isExcludedName(entry.getFileName());
+    }
+
+    /**
+     * @return совпадает ли имя с одним из исключающих шаблонов.
+     */
+    public boolean isExcludedName(@Nullable Path name) {
+        if (name == null)
+            return false;
+        for (PathMatcher matcher : excludes)
+            if (matcher.matches(name))
+                return true;
+        return false;
+    }
+
+    /**
+     * Если устройство директории прочитать не удалось, то считается, что она на той же файловой системе:
+     * ошибка чтения появится при обходе директории.
+     * <p> Родитель пропущенной директории отмечается, см. {@link DirectoryDUFile#markMissingChildren()}.
+     *
+     * @return находится ли директория на другой файловой системе.
+     */
+    public boolean isOtherFileSystem(@NotNull DirectoryDUFile directory) {
+        if (rootDevice == null)
+            return false;
+        Object device = directory.hasFileKey() ?
+                Long.valueOf(directory.getDevice()) :
+                readDevice(directory.getPath(), LinkOption.NOFOLLOW_LINKS);
+        if (device == null || rootDevice.equals(device))
+            return false;
+        directory.getParent().ifPresent(p -> {
+            if (p instanceof DirectoryDUFile parent)
+                parent.markMissingChildren();
+        });
+        return true;
+    }
+
+    @Nullable
+    private static Object readDevice(Path path, LinkOption... options) {
+        try {
+            if (UnixFileAttributes.isSupported(path))
+                return Files.getAttribute(path, "unix:dev", options);
+            return Files.getFileStore(path);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,397 @@
+package ru.nsu.sidey383.lab1.walker;
+
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.stats.ScanStatistics;
+import ru.nsu.sidey383.lab1.walker.node.DUWalkerNode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обход дерева файлов, в котором чтение директорий и атрибутов отделено от вызовов {@link DUFileVisitor}.
+ * <p> Потоки ввода-вывода заранее читают директории вместе с атрибутами записей: прочитав директорию,
+ * они ставят в очередь её поддиректории, ближайшие к обходу в глубину первыми.
+ * Методы {@link DUFileVisitor} вызываются только в потоке, вызвавшем {@link #walkFiles(Path, DUFileVisitor, int)},
+ * и в том же порядке, что и в {@link DUSystemFileWalker}, поэтому visitor может быть непотокобезопасным.
+ * <p> Заранее прочитано не больше {@link #LISTINGS_PER_WORKER} директорий на поток. Если нужная директория ещё
+ * не начата, то она читается в потоке обхода. Прочитанные директории, которые visitor не стал обходить, отбрасываются
+ * вместе с заранее прочитанными потомками.
+ * <p> Директории читаются заранее до вызова {@link DUFileVisitor#preVisitParentFile(ParentDUFile)}, поэтому при
+ * {@link DUAction#REUSE_LISTING} заранее прочитанная директория отбрасывается, а потомки читаются по известным путям.
+ */
+public class DUPipelinedFileWalker implements DUFileWalker {
+
+    static final int LISTINGS_PER_WORKER = 16;
+
+    private final DUFileVisitor visitor;
+
+    private final DUFile rootFile;
+
+    private final int workers;
+
+    @Nullable
+    private final DUPathFilter filter;
+
+    @Nullable
+    private final ScanStatistics statistics;
+
+    /**
+     * Directories to read ahead, the top is read first
+     * **/
+    private final ConcurrentLinkedDeque<Listing> pending = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Permits for the listings that are read ahead and not yet taken by the walk
+     * **/
+    private final Semaphore readAhead;
+
+    private ExecutorService executor;
+
+    /**
+     * The walk is over and nothing is submitted to {@link #executor} anymore, guarded by {@link #pending}
+     * **/
+    private boolean closed = false;
+
+    private DUPipelinedFileWalker(DUFile rootFile, DUFileVisitor visitor, int workers) {
+        this.rootFile = rootFile;
+        this.visitor = visitor;
+        this.workers = workers;
+        this.filter = visitor.getPathFilter();
+        this.statistics = visitor.getStatistics();
+        this.readAhead = new Semaphore(workers * LISTINGS_PER_WORKER);
+    }
+
+    private enum State {
+        PENDING, RUNNING, DONE, CANCELLED
+    }
+
+    /**
+     * Прочитанная директория: атрибуты записей в порядке чтения или ошибка открытия.
+     */
+    private final class Listing {
+
+        private final ParentDUFile parent;
+
+        @Nullable
+        private final Collection<Path> cachedChildren;
+
+        private State state = State.PENDING;
+
+        /**
+         * The listing was read by a worker and holds a permit of {@link #readAhead}
+         * **/
+        private boolean holdsPermit = false;
+
+        private final List<DUFile> children = new ArrayList<>();
+
+        /**
+         * Listings of the child directories, read ahead speculatively
+         * **/
+        private final Map<DUFile, Listing> childListings = new IdentityHashMap<>();
+
+        @Nullable
+        private DUPathException openError;
+
+        @Nullable
+        private DUPathException closeError;
+
+        @Nullable
+        private RuntimeException failure;
+
+        private Listing(ParentDUFile parent, @Nullable Collection<Path> cachedChildren) {
+            this.parent = parent;
+            this.cachedChildren = cachedChildren;
+        }
+
+        private synchronized boolean claim(boolean withPermit) {
+            if (state != State.PENDING)
+                return false;
+            state = State.RUNNING;
+            holdsPermit = withPermit;
+            return true;
+        }
+
+        /**
+         * Reads the directory. Its child directories are queued unless the listing was cancelled meanwhile
+         * **/
+        private void read() {
+            try {
+                DUWalkerNode node = DUWalkerNode.create(parent, cachedChildren, visitor.readsUnixAttributes(), filter, statistics);
+                try {
+                    Iterator<Path> iterator = node.getPathIterator();
+                    while (iterator.hasNext()) {
+                        DUFile file = node.readChild(iterator.next(), statistics);
+                        if (!isOtherFileSystem(file))
+                            children.add(file);
+                    }
+                } finally {
+                    try {
+                        node.close();
+                    } catch (IOException e) {
+                        closeError = new DUPathException(parent.getPath(), e);
+                    }
+                }
+            } catch (DUPathException e) {
+                openError = e;
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            for (DUFile child : children)
+                if (child instanceof DirectoryDUFile directory)
+                    childListings.put(child, new Listing(directory, null));
+            boolean cancelled;
+            synchronized (this) {
+                cancelled = state == State.CANCELLED;
+                if (!cancelled)
+                    state = State.DONE;
+                notifyAll();
+            }
+            if (cancelled) {
+                cancelChildren();
+                return;
+            }
+            // the first child is needed first, so it goes on the top
+            List<Listing> queued = new ArrayList<>(childListings.size());
+            for (DUFile child : children) {
+                Listing listing = childListings.get(child);
+                if (listing != null)
+                    queued.add(listing);
+            }
+            for (int i = queued.size() - 1; i >= 0; i--)
+                schedule(queued.get(i));
+        }
+
+        /**
+         * Waits for the listing, reading it in this thread if no worker has started it
+         * **/
+        private void await() {
+            if (claim(false)) {
+                read();
+            } else {
+                synchronized (this) {
+                    boolean interrupted = false;
+                    while (state == State.RUNNING) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                    if (interrupted)
+                        Thread.currentThread().interrupt();
+                }
+            }
+            releasePermit();
+            if (failure != null)
+                throw failure;
+        }
+
+        private void cancel() {
+            boolean done;
+            synchronized (this) {
+                done = state == State.DONE;
+                if (!done)
+                    state = State.CANCELLED;
+            }
+            if (done) {
+                releasePermit();
+                cancelChildren();
+            }
+            // a running listing cancels its children itself
+        }
+
+        private void cancelChildren() {
+            releasePermit();
+            for (Listing listing : childListings.values())
+                listing.cancel();
+        }
+
+        private synchronized void releasePermit() {
+            if (holdsPermit) {
+                holdsPermit = false;
+                readAhead.release();
+            }
+        }
+
+    }
+
+    /**
+     * Обходимая директория.
+     */
+    private static final class Frame {
+
+        private final Listing listing;
+
+        private int next = 0;
+
+        private Frame(Listing listing) {
+            this.listing = listing;
+        }
+
+    }
+
+    /**
+     * After the walk the listing is cancelled instead, so the workers don't submit to the stopped executor
+     * **/
+    private void schedule(Listing listing) {
+        synchronized (pending) {
+            if (!closed) {
+                pending.push(listing);
+                executor.execute(this::readNext);
+                return;
+            }
+        }
+        listing.cancel();
+    }
+
+    /**
+     * Cancels the listings that are read ahead and waits for the workers.
+     * The workers aren't interrupted: they finish the current directory and drop it.
+     * **/
+    private void close(Deque<Frame> stack) {
+        synchronized (pending) {
+            closed = true;
+        }
+        for (Frame frame : stack)
+            frame.listing.childListings.values().forEach(Listing::cancel);
+        for (Listing listing = pending.poll(); listing != null; listing = pending.poll())
+            listing.cancel();
+        executor.shutdown();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.MINUTES))
+                    break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Every task reads at most one listing, so there are as many tasks as listings in the queue
+     * **/
+    private void readNext() {
+        try {
+            readAhead.acquire();
+        } catch (InterruptedException e) {
+            return;
+        }
+        Listing listing = pending.poll();
+        if (listing != null && listing.claim(true)) {
+            listing.read();
+        } else {
+            readAhead.release();
+        }
+    }
+
+    private void walk() {
+        if (rootFile instanceof ParentDUFile rootDir) {
+            DUAction action = visitor.preVisitParentFile(rootDir);
+            if (action == DUAction.STOP)
+                return;
+            executor = Executors.newFixedThreadPool(workers, runnable -> {
+                Thread thread = new Thread(runnable, "du-prefetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+            Deque<Frame> stack = new ArrayDeque<>();
+            try {
+                open(stack, rootDir, action, null);
+                while (!stack.isEmpty()) {
+                    Frame frame = stack.getLast();
+                    if (frame.next < frame.listing.children.size()) {
+                        visitFile(stack, frame);
+                    } else {
+                        stack.removeLast();
+                        Listing listing = frame.listing;
+                        if (listing.closeError != null)
+                            visitor.directoryCloseError(listing.parent.getPath(), listing.closeError);
+                        visitor.postVisitParentFile(listing.parent);
+                    }
+                }
+            } finally {
+                close(stack);
+            }
+        } else {
+            visitor.visitFile(rootFile);
+        }
+    }
+
+    private void visitFile(Deque<Frame> stack, Frame frame) {
+        DUFile file = frame.listing.children.get(frame.next++);
+        Listing prefetched = frame.listing.childListings.get(file);
+        file.setParent(frame.listing.parent);
+        if (file instanceof ParentDUFile parentFile) {
+            DUAction action = visitor.preVisitParentFile(parentFile);
+            if (action == DUAction.STOP) {
+                if (prefetched != null)
+                    prefetched.cancel();
+            } else {
+                open(stack, parentFile, action, prefetched);
+            }
+        } else {
+            visitor.visitFile(file);
+        }
+    }
+
+    private void open(Deque<Frame> stack, ParentDUFile parent, DUAction action, @Nullable Listing prefetched) {
+        Listing listing = prefetched;
+        Collection<Path> cachedChildren = action == DUAction.REUSE_LISTING ? visitor.getCachedChildren(parent) : null;
+        if (cachedChildren != null || listing == null) {
+            if (listing != null)
+                listing.cancel();
+            listing = new Listing(parent, cachedChildren);
+        }
+        listing.await();
+        if (listing.openError != null) {
+            visitor.parentVisitError(parent, listing.openError);
+            listing.childListings.values().forEach(Listing::cancel);
+            return;
+        }
+        stack.addLast(new Frame(listing));
+    }
+
+    /**
+     * Directories on other file systems are skipped with their subtrees
+     * **/
+    private boolean isOtherFileSystem(DUFile file) {
+        return filter != null && file instanceof DirectoryDUFile directory && filter.isOtherFileSystem(directory);
+    }
+
+    @Override
+    public DUFile getRootFile() {
+        return rootFile;
+    }
+
+    /**
+     * Проходит по дереву файлов, заранее читая директории в нескольких потоках.
+     *
+     * @param path корневой файл.
+     * @param visitor visitor, методы которого вызываются в текущем потоке.
+     * @param workers количество потоков чтения.
+     *
+     * @return объект, обходивший файлы.
+     *
+     * @see DUPipelinedFileWalker#getRootFile()
+     */
+    public static DUPipelinedFileWalker walkFiles(Path path, DUFileVisitor visitor, int workers) {
+        DUFile rootFile = DUFile.readFile(path);
+        DUPipelinedFileWalker walker = new DUPipelinedFileWalker(rootFile, visitor, workers);
+        walker.walk();
+        return walker;
+    }
+
+}
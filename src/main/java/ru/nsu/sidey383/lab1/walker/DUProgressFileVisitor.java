@@ -0,0 +1,90 @@
+package ru.nsu.sidey383.lab1.walker;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.stats.ScanProgress;
+import ru.nsu.sidey383.lab1.stats.ScanStatistics;
+
+import java.nio.file.Path;
+import java.util.Collection;
+
+/**
+ * Передаёт вызовы другому visitor и учитывает обойдённые файлы в {@link ScanProgress}.
+ * <p> Потокобезопасен, если потокобезопасен исходный visitor.
+ */
+public class DUProgressFileVisitor implements DUFileVisitor {
+
+    private final DUFileVisitor visitor;
+
+    private final ScanProgress progress;
+
+    public DUProgressFileVisitor(@NotNull DUFileVisitor visitor, @NotNull ScanProgress progress) {
+        this.visitor = visitor;
+        this.progress = progress;
+    }
+
+    @Override
+    public void visitFile(DUFile file) {
+        progress.fileVisited(file);
+        visitor.visitFile(file);
+    }
+
+    /**
+     * Директория учитывается до передачи visitor, пока её размер не включает потомков.
+     */
+    @Override
+    public DUAction preVisitParentFile(ParentDUFile directory) {
+        progress.directoryOpened(directory);
+        DUAction action = visitor.preVisitParentFile(directory);
+        // a skipped directory is never post visited
+        if (action == DUAction.STOP)
+            progress.directoryClosed();
+        return action;
+    }
+
+    @Override
+    public @Nullable Collection<Path> getCachedChildren(ParentDUFile directory) {
+        return visitor.getCachedChildren(directory);
+    }
+
+    @Override
+    public boolean readsUnixAttributes() {
+        return visitor.readsUnixAttributes();
+    }
+
+    @Override
+    public @Nullable DUPathFilter getPathFilter() {
+        return visitor.getPathFilter();
+    }
+
+    @Override
+    public @Nullable ScanStatistics getStatistics() {
+        return visitor.getStatistics();
+    }
+
+    @Override
+    public void postVisitParentFile(ParentDUFile directory) {
+        visitor.postVisitParentFile(directory);
+        progress.directoryClosed();
+    }
+
+    @Override
+    public void pathVisitError(@Nullable Path path, @NotNull DUPathException e) {
+        visitor.pathVisitError(path, e);
+    }
+
+    @Override
+    public void parentVisitError(@NotNull ParentDUFile directory, @NotNull DUPathException e) {
+        visitor.parentVisitError(directory, e);
+        progress.directoryClosed();
+    }
+
+    @Override
+    public void directoryCloseError(@NotNull Path path, @NotNull DUPathException e) {
+        visitor.directoryCloseError(path, e);
+    }
+
+}
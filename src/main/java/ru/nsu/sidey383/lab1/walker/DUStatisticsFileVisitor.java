@@ -0,0 +1,95 @@
+package ru.nsu.sidey383.lab1.walker;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.stats.ScanOperation;
+import ru.nsu.sidey383.lab1.stats.ScanStatistics;
+
+import java.nio.file.Path;
+import java.util.Collection;
+
+/**
+ * Передаёт вызовы другому visitor и учитывает их время как {@link ScanOperation#BUILD_TREE}.
+ * <p> Возвращает статистику из {@link #getStatistics()}, поэтому обход учитывает в ней и операции чтения.
+ * <p> Потокобезопасен, если потокобезопасен исходный visitor.
+ */
+public class DUStatisticsFileVisitor implements DUFileVisitor {
+
+    private final DUFileVisitor visitor;
+
+    private final ScanStatistics statistics;
+
+    public DUStatisticsFileVisitor(@NotNull DUFileVisitor visitor, @NotNull ScanStatistics statistics) {
+        this.visitor = visitor;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void visitFile(DUFile file) {
+        long start = System.nanoTime();
+        try {
+            visitor.visitFile(file);
+        } finally {
+            statistics.record(ScanOperation.BUILD_TREE, start);
+        }
+    }
+
+    @Override
+    public DUAction preVisitParentFile(ParentDUFile directory) {
+        long start = System.nanoTime();
+        try {
+            return visitor.preVisitParentFile(directory);
+        } finally {
+            statistics.record(ScanOperation.BUILD_TREE, start);
+        }
+    }
+
+    @Override
+    public @Nullable Collection<Path> getCachedChildren(ParentDUFile directory) {
+        return visitor.getCachedChildren(directory);
+    }
+
+    @Override
+    public boolean readsUnixAttributes() {
+        return visitor.readsUnixAttributes();
+    }
+
+    @Override
+    public @Nullable DUPathFilter getPathFilter() {
+        return visitor.getPathFilter();
+    }
+
+    @Override
+    public @NotNull ScanStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public void postVisitParentFile(ParentDUFile directory) {
+        long start = System.nanoTime();
+        try {
+            visitor.postVisitParentFile(directory);
+        } finally {
+            statistics.record(ScanOperation.BUILD_TREE, start);
+        }
+    }
+
+    @Override
+    public void pathVisitError(@Nullable Path path, @NotNull DUPathException e) {
+        visitor.pathVisitError(path, e);
+    }
+
+    @Override
+    public void parentVisitError(@NotNull ParentDUFile directory, @NotNull DUPathException e) {
+        visitor.parentVisitError(directory, e);
+    }
+
+    @Override
+    public void directoryCloseError(@NotNull Path path, @NotNull DUPathException e) {
+        visitor.directoryCloseError(path, e);
+    }
+
+}
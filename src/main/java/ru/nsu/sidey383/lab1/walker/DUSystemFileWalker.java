@@ -1,35 +1,49 @@
 package ru.nsu.sidey383.lab1.walker;
 
+import org.jetbrains.annotations.Nullable;
 import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
 import ru.nsu.sidey383.lab1.model.file.DUFile;
 import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.stats.ScanStatistics;
 import ru.nsu.sidey383.lab1.walker.node.DUWalkerNode;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
 
-public class DUSystemFileWalker {
+public class DUSystemFileWalker implements DUFileWalker {
 
     private final DUFileVisitor visitor;
 
     private final DUFile rootFile;
 
+    @Nullable
+    private final DUPathFilter filter;
+
+    @Nullable
+    private final ScanStatistics statistics;
+
     private DUSystemFileWalker(DUFile dirFile, DUFileVisitor visitor) {
         this.rootFile = dirFile;
         this.visitor = visitor;
+        this.filter = visitor.getPathFilter();
+        this.statistics = visitor.getStatistics();
     }
 
     private void walk() {
-        if (rootFile instanceof ParentDUFile rootDir && visitor.preVisitParentFile(rootDir) == DUAction.CONTINUE) {
+        if (rootFile instanceof ParentDUFile rootDir) {
+            DUAction action = visitor.preVisitParentFile(rootDir);
+            if (action == DUAction.STOP)
+                return;
             Deque<DUWalkerNode> queue = new ArrayDeque<>();
             try {
-                initQueue(queue, rootDir);
+                openParent(queue, rootDir, action);
                 while (!queue.isEmpty()) {
                     DUWalkerNode node = queue.getLast();
                     Iterator<Path> iterator = node.getPathIterator();
                     if (iterator.hasNext()) {
-                        visitFile(iterator.next(), queue, node.getParent());
+                        visitFile(iterator.next(), queue, node);
                     } else {
                         suppressedNodeClose(queue.removeLast());
                         visitor.postVisitParentFile(node.getParent());
@@ -44,28 +58,44 @@ public class DUSystemFileWalker {
         }
     }
 
-    private void visitFile(Path path, Deque<DUWalkerNode> queue, ParentDUFile parent) {
-        try {
-            DUFile file = DUFile.readFile(path);
-            file.setParent(parent);
-            if (file instanceof ParentDUFile parentFile) {
-                if (visitor.preVisitParentFile(parentFile) == DUAction.CONTINUE) {
-                    queue.addLast(DUWalkerNode.create(parentFile));
-                }
-            } else {
-                visitor.visitFile(file);
-            }
-        } catch (DUPathException e) {
-            visitor.pathVisitError(path, e);
+    private void visitFile(Path path, Deque<DUWalkerNode> queue, DUWalkerNode node) {
+        DUFile file = node.readChild(path, statistics);
+        file.setParent(node.getParent());
+        if (isOtherFileSystem(file))
+            return;
+        if (file instanceof ParentDUFile parentFile) {
+            DUAction action = visitor.preVisitParentFile(parentFile);
+            if (action != DUAction.STOP)
+                openParent(queue, parentFile, action);
+        } else {
+            visitor.visitFile(file);
         }
     }
 
-    private void initQueue(Deque<DUWalkerNode> queue, ParentDUFile rootDir) {
+    private void openParent(Deque<DUWalkerNode> queue, ParentDUFile parent, DUAction action) {
         try {
-            queue.add(DUWalkerNode.create(rootDir));
+            queue.addLast(openNode(parent, action));
         } catch (DUPathException e) {
-            visitor.pathVisitError(rootDir.getPath(), e);
+            visitor.parentVisitError(parent, e);
+            return;
         }
+        if (statistics != null)
+            statistics.updateQueueDepth(queue.size());
+    }
+
+    /**
+     * Directories on other file systems are skipped with their subtrees
+     * **/
+    private boolean isOtherFileSystem(DUFile file) {
+        return filter != null && file instanceof DirectoryDUFile directory && filter.isOtherFileSystem(directory);
+    }
+
+    private DUWalkerNode openNode(ParentDUFile parent, DUAction action) throws DUPathException {
+        return DUWalkerNode.create(parent,
+                action == DUAction.REUSE_LISTING ? visitor.getCachedChildren(parent) : null,
+                visitor.readsUnixAttributes(),
+                filter,
+                statistics);
     }
 
     private void suppressedNodeClose(DUWalkerNode node) {
@@ -76,6 +106,7 @@ public class DUSystemFileWalker {
         }
     }
 
+    @Override
     public DUFile getRootFile() {
         return rootFile;
     }
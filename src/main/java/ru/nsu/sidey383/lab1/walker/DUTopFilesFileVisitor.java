@@ -0,0 +1,94 @@
+package ru.nsu.sidey383.lab1.walker;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.RegularDUFile;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.model.top.TopFilesCollector;
+import ru.nsu.sidey383.lab1.stats.ScanStatistics;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Передаёт вызовы другому visitor и собирает самые большие обычные файлы в {@link TopFilesCollector}.
+ * <p> Потокобезопасен, если потокобезопасен исходный visitor.
+ */
+public class DUTopFilesFileVisitor implements DUFileVisitor {
+
+    private final DUFileVisitor visitor;
+
+    private final TopFilesCollector topFiles;
+
+    /**
+     * @param count количество сохраняемых файлов, больше нуля.
+     */
+    public DUTopFilesFileVisitor(@NotNull DUFileVisitor visitor, int count) {
+        this.visitor = visitor;
+        this.topFiles = new TopFilesCollector(count);
+    }
+
+    /**
+     * @return самые большие посещённые файлы в порядке уменьшения размера.
+     */
+    @NotNull
+    public List<TopFilesCollector.TopFile> getTopFiles() {
+        return topFiles.getTopFiles();
+    }
+
+    @Override
+    public void visitFile(DUFile file) {
+        if (file instanceof RegularDUFile)
+            topFiles.offer(file);
+        visitor.visitFile(file);
+    }
+
+    @Override
+    public DUAction preVisitParentFile(ParentDUFile directory) {
+        return visitor.preVisitParentFile(directory);
+    }
+
+    @Override
+    public @Nullable Collection<Path> getCachedChildren(ParentDUFile directory) {
+        return visitor.getCachedChildren(directory);
+    }
+
+    @Override
+    public boolean readsUnixAttributes() {
+        return visitor.readsUnixAttributes();
+    }
+
+    @Override
+    public @Nullable DUPathFilter getPathFilter() {
+        return visitor.getPathFilter();
+    }
+
+    @Override
+    public @Nullable ScanStatistics getStatistics() {
+        return visitor.getStatistics();
+    }
+
+    @Override
+    public void postVisitParentFile(ParentDUFile directory) {
+        visitor.postVisitParentFile(directory);
+    }
+
+    @Override
+    public void pathVisitError(@Nullable Path path, @NotNull DUPathException e) {
+        visitor.pathVisitError(path, e);
+    }
+
+    @Override
+    public void parentVisitError(@NotNull ParentDUFile directory, @NotNull DUPathException e) {
+        visitor.parentVisitError(directory, e);
+    }
+
+    @Override
+    public void directoryCloseError(@NotNull Path path, @NotNull DUPathException e) {
+        visitor.directoryCloseError(path, e);
+    }
+
+}
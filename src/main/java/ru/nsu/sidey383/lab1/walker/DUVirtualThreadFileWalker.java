@@ -0,0 +1,233 @@
+package ru.nsu.sidey383.lab1.walker;
+
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.stats.ScanStatistics;
+import ru.nsu.sidey383.lab1.walker.node.DUWalkerNode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Обход дерева файлов виртуальными потоками. Предназначен для хранилищ с большой задержкой чтения атрибутов.
+ * <p> Каждая директория читается в своём виртуальном потоке, а её записи обрабатываются пачками по {@link #BATCH_SIZE}
+ * также в отдельных виртуальных потоках. Количество одновременных вызовов {@link DUWalkerNode#readChild(Path)} ограничено.
+ * <p> Одновременно открыто не больше {@link #MAX_OPEN_DIRECTORIES} директорий, поэтому количество дескрипторов
+ * не зависит от количества найденных директорий. Директория закрывается до ожидания обхода поддиректорий,
+ * поэтому ожидание открытия не может заблокировать обход.
+ * <p> Методы {@link DUFileVisitor} вызываются из разных потоков, поэтому visitor должен быть потокобезопасным.
+ * {@link DUFileVisitor#postVisitParentFile(ParentDUFile)} вызывается после обработки всех потомков директории.
+ */
+public class DUVirtualThreadFileWalker implements DUFileWalker {
+
+    private static final int BATCH_SIZE = 64;
+
+    static final int MAX_OPEN_DIRECTORIES = 64;
+
+    private final DUFileVisitor visitor;
+
+    private final DUFile rootFile;
+
+    private final Semaphore statPermits;
+
+    /**
+     * Permits for the open directories, a permit is held from the opening to the closing of the node
+     * **/
+    private final Semaphore openPermits;
+
+    @Nullable
+    private final DUPathFilter filter;
+
+    @Nullable
+    private final ScanStatistics statistics;
+
+    private ExecutorService executor;
+
+    private DUVirtualThreadFileWalker(DUFile rootFile, DUFileVisitor visitor, int maxConcurrentStats) {
+        this.rootFile = rootFile;
+        this.visitor = visitor;
+        this.statPermits = new Semaphore(maxConcurrentStats);
+        this.openPermits = new Semaphore(Math.min(maxConcurrentStats, MAX_OPEN_DIRECTORIES));
+        this.filter = visitor.getPathFilter();
+        this.statistics = visitor.getStatistics();
+    }
+
+    private void walk() {
+        if (rootFile instanceof ParentDUFile rootDir) {
+            DUAction action = visitor.preVisitParentFile(rootDir);
+            if (action == DUAction.STOP)
+                return;
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                this.executor = executor;
+                await(executor.submit(() -> walkParent(rootDir, action)));
+            } finally {
+                this.executor = null;
+            }
+        } else {
+            visitor.visitFile(rootFile);
+        }
+    }
+
+    /**
+     * Обходит директорию и ожидает завершения обхода всех её потомков.
+     */
+    private void walkParent(ParentDUFile parent, DUAction action) {
+        List<Future<?>> subdirectories;
+        openPermits.acquireUninterruptibly();
+        try {
+            subdirectories = readParent(parent, action);
+        } finally {
+            openPermits.release();
+        }
+        if (subdirectories == null)
+            return;
+        for (Future<?> subdirectory : subdirectories)
+            await(subdirectory);
+        visitor.postVisitParentFile(parent);
+    }
+
+    /**
+     * Читает записи директории и закрывает её.
+     *
+     * @return задачи обхода найденных директорий или null, если директорию не удалось открыть.
+     */
+    @Nullable
+    private List<Future<?>> readParent(ParentDUFile parent, DUAction action) {
+        DUWalkerNode node;
+        try {
+            node = openNode(parent, action);
+        } catch (DUPathException e) {
+            visitor.parentVisitError(parent, e);
+            return null;
+        }
+        List<Future<List<Future<?>>>> batches = new ArrayList<>();
+        List<Future<?>> subdirectories = new ArrayList<>();
+        try {
+            Iterator<Path> iterator = node.getPathIterator();
+            List<Path> batch = new ArrayList<>(BATCH_SIZE);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == BATCH_SIZE) {
+                    batches.add(submitBatch(batch, node));
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty())
+                batches.add(submitBatch(batch, node));
+            // the node must stay open while its entries are read
+            for (Future<List<Future<?>>> submitted : batches)
+                subdirectories.addAll(await(submitted));
+        } finally {
+            suppressedNodeClose(node);
+        }
+        return subdirectories;
+    }
+
+    private Future<List<Future<?>>> submitBatch(List<Path> batch, DUWalkerNode node) {
+        return executor.submit(() -> visitBatch(batch, node));
+    }
+
+    /**
+     * @return задачи обхода найденных директорий.
+     */
+    private List<Future<?>> visitBatch(List<Path> batch, DUWalkerNode node) {
+        List<Future<?>> subdirectories = new ArrayList<>();
+        for (Path path : batch) {
+            DUFile file = readChild(path, node);
+            file.setParent(node.getParent());
+            if (isOtherFileSystem(file))
+                continue;
+            if (file instanceof ParentDUFile parentFile) {
+                DUAction action = visitor.preVisitParentFile(parentFile);
+                if (action != DUAction.STOP)
+                    subdirectories.add(executor.submit(() -> walkParent(parentFile, action)));
+            } else {
+                visitor.visitFile(file);
+            }
+        }
+        return subdirectories;
+    }
+
+    private DUFile readChild(Path path, DUWalkerNode node) {
+        statPermits.acquireUninterruptibly();
+        try {
+            return node.readChild(path, statistics);
+        } finally {
+            statPermits.release();
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("File tree walk was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re)
+                throw re;
+            if (e.getCause() instanceof Error err)
+                throw err;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Directories on other file systems are skipped with their subtrees
+     * **/
+    private boolean isOtherFileSystem(DUFile file) {
+        return filter != null && file instanceof DirectoryDUFile directory && filter.isOtherFileSystem(directory);
+    }
+
+    private DUWalkerNode openNode(ParentDUFile parent, DUAction action) throws DUPathException {
+        return DUWalkerNode.create(parent,
+                action == DUAction.REUSE_LISTING ? visitor.getCachedChildren(parent) : null,
+                visitor.readsUnixAttributes(),
+                filter,
+                statistics);
+    }
+
+    private void suppressedNodeClose(DUWalkerNode node) {
+        try {
+            node.close();
+        } catch (IOException e) {
+            visitor.directoryCloseError(node.getParent().getPath(), new DUPathException(node.getParent().getPath(), e));
+        }
+    }
+
+    @Override
+    public DUFile getRootFile() {
+        return rootFile;
+    }
+
+    /**
+     * Проходит по дереву файлов виртуальными потоками.
+     *
+     * @param path корневой файл.
+     * @param visitor потокобезопасный visitor.
+     * @param maxConcurrentStats максимальное количество одновременных чтений атрибутов файлов.
+     *
+     * @return объект, обходивший файлы.
+     *
+     * @see DUVirtualThreadFileWalker#getRootFile()
+     */
+    public static DUVirtualThreadFileWalker walkFiles(Path path, DUFileVisitor visitor, int maxConcurrentStats) {
+        // children are attached to their parent from several threads
+        DUFile rootFile = DUFile.readFile(path, true);
+        DUVirtualThreadFileWalker walker = new DUVirtualThreadFileWalker(rootFile, visitor, maxConcurrentStats);
+        walker.walk();
+        return walker;
+    }
+
+}
@@ -0,0 +1,74 @@
+package ru.nsu.sidey383.lab1.walker.node;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * Директория, потомки которой известны заранее, например из предыдущего снимка.
+ * <p> Директория не открывается, читаются только атрибуты потомков.
+ */
+public class DUCachedNode implements DUWalkerNode {
+
+    private final ParentDUFile file;
+
+    private final Iterator<Path> iterator;
+
+    private final boolean readUnixAttributes;
+
+    /**
+     * @param children разрешённые пути потомков.
+     * @param readUnixAttributes читать {@link ru.nsu.sidey383.lab1.model.file.UnixFileAttributes} потомков.
+     */
+    public DUCachedNode(@NotNull ParentDUFile file, @NotNull Collection<Path> children, boolean readUnixAttributes) {
+        this(file, children, readUnixAttributes, null);
+    }
+
+    /**
+     * @param filter потомки, которые нужно прочитать, или null для всех потомков.
+     */
+    public DUCachedNode(@NotNull ParentDUFile file, @NotNull Collection<Path> children, boolean readUnixAttributes,
+                        @Nullable DirectoryStream.Filter<? super Path> filter) {
+        this.file = file;
+        this.iterator = filter == null ? children.iterator() : children.stream().filter(p -> accept(filter, p)).iterator();
+        this.readUnixAttributes = readUnixAttributes;
+    }
+
+    private static boolean accept(DirectoryStream.Filter<? super Path> filter, Path path) {
+        try {
+            return filter.accept(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public ParentDUFile getParent() {
+        return file;
+    }
+
+    @Override
+    public Iterator<Path> getPathIterator() {
+        return iterator;
+    }
+
+    /**
+     * @see DUFile#readResolvedFile(ParentDUFile, Path, boolean)
+     */
+    @Override
+    public DUFile readChild(Path path) {
+        return DUFile.readResolvedFile(file, path, readUnixAttributes);
+    }
+
+    @Override
+    public void close() {}
+
+}
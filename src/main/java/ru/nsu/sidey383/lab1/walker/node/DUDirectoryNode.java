@@ -1,14 +1,24 @@
 package ru.nsu.sidey383.lab1.walker.node;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.jfr.DirectoryScanEvent;
+import ru.nsu.sidey383.lab1.jfr.SlowStatEvent;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
 import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
 import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.WrongDUFile;
 import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
 
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NotDirectoryException;
 import java.nio.file.Path;
+import java.nio.file.SecureDirectoryStream;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Iterator;
 
 public class DUDirectoryNode implements DUWalkerNode {
@@ -18,13 +28,48 @@ public class DUDirectoryNode implements DUWalkerNode {
 
     private final DirectoryStream<Path> stream;
 
+    /**
+     * Открытая директория, если файловая система поддерживает {@link SecureDirectoryStream}.
+     */
+    @Nullable
+    private final SecureDirectoryStream<Path> secureStream;
+
+    private final boolean readUnixAttributes;
+
+    /**
+     * Событие JFR от открытия до закрытия директории или null, если событие выключено.
+     */
+    @Nullable
+    private final DirectoryScanEvent scanEvent;
+
+    private int entryCount = 0;
+
     public DUDirectoryNode(@NotNull DirectoryDUFile file) throws DUPathException {
+        this(file, false);
+    }
+
+    /**
+     * @param readUnixAttributes читать {@link ru.nsu.sidey383.lab1.model.file.UnixFileAttributes} потомков, см. {@link DUFile#readResolvedFile(ParentDUFile, Path, boolean)}.
+     */
+    public DUDirectoryNode(@NotNull DirectoryDUFile file, boolean readUnixAttributes) throws DUPathException {
+        this(file, readUnixAttributes, null);
+    }
+
+    /**
+     * @param filter записи, которые нужно прочитать, или null для всех записей. Применяется до чтения атрибутов записи.
+     */
+    public DUDirectoryNode(@NotNull DirectoryDUFile file, boolean readUnixAttributes, @Nullable DirectoryStream.Filter<? super Path> filter) throws DUPathException {
         this.file = file;
+        this.readUnixAttributes = readUnixAttributes;
+        this.scanEvent = DirectoryScanEvent.beginIfEnabled();
         try {
-            this.stream = Files.newDirectoryStream(file.getPath());
+            this.stream = filter == null ?
+                    Files.newDirectoryStream(file.getPath()) :
+                    Files.newDirectoryStream(file.getPath(), filter);
         } catch (IOException e) {
             throw new DUPathException(file.getPath(), e);
         }
+        this.secureStream = stream instanceof SecureDirectoryStream<Path> sds ? sds : null;
         this.iterator = this.stream.iterator();
     }
 
@@ -38,8 +83,49 @@ public class DUDirectoryNode implements DUWalkerNode {
         return iterator;
     }
 
+    /**
+     * Читает атрибуты потомка относительно открытой директории, если это возможно.
+     * <p> Путь потомка уже разрешён, так как путь директории разрешён при её чтении,
+     * поэтому {@link Path#toRealPath(LinkOption...)} не вызывается и достаточно одного вызова stat для каждого потомка.
+     *
+     * <p> Чтение дольше порога записывается как {@link SlowStatEvent}.
+     *
+     * @see DUFile#readResolvedFile(Path)
+     */
+    @Override
+    public DUFile readChild(Path path) {
+        entryCount++;
+        SlowStatEvent event = SlowStatEvent.beginIfEnabled();
+        DUFile child = readAttributes(path);
+        if (event != null)
+            event.commit(path);
+        return child;
+    }
+
+    private DUFile readAttributes(Path path) {
+        // the secure stream provides only the basic and posix views
+        if (secureStream == null || readUnixAttributes)
+            return DUFile.readResolvedFile(file, path, readUnixAttributes);
+        BasicFileAttributes attributes;
+        try {
+            attributes = secureStream
+                    .getFileAttributeView(path.getFileName(), BasicFileAttributeView.class, LinkOption.NOFOLLOW_LINKS)
+                    .readAttributes();
+        } catch (NotDirectoryException e) {
+            return DUFile.readFile(path);
+        } catch (IOException e) {
+            return new WrongDUFile(0, path, new DUPathException(path, e));
+        }
+        return DUFile.fromAttributes(file, path, attributes);
+    }
+
     @Override
     public void close() throws IOException {
-        stream.close();
+        try {
+            stream.close();
+        } finally {
+            if (scanEvent != null)
+                scanEvent.commit(file.getPath(), entryCount);
+        }
     }
 }
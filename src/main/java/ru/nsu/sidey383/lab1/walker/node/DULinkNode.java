@@ -1,5 +1,8 @@
 package ru.nsu.sidey383.lab1.walker.node;
 
+import ru.nsu.sidey383.lab1.jfr.LinkFollowedEvent;
+import ru.nsu.sidey383.lab1.model.file.ConcurrentParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
 import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
 import ru.nsu.sidey383.lab1.model.file.ReferenceDUFile;
 
@@ -34,6 +37,20 @@ public class DULinkNode implements DUWalkerNode {
         };
     }
 
+    /**
+     * Цель ссылки может быть где угодно, поэтому её путь разрешается заново.
+     *
+     * @see DUFile#readFile(Path, boolean)
+     */
+    @Override
+    public DUFile readChild(Path path) {
+        LinkFollowedEvent event = new LinkFollowedEvent();
+        event.begin();
+        DUFile target = DUFile.readFile(path, file instanceof ConcurrentParentDUFile);
+        event.commit(file.getPath(), target.getPath());
+        return target;
+    }
+
     @Override
     public ParentDUFile getParent() {
         return file;
@@ -1,12 +1,18 @@
 package ru.nsu.sidey383.lab1.walker.node;
 
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
 import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
 import ru.nsu.sidey383.lab1.model.file.ReferenceDUFile;
 import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
 import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.stats.ScanOperation;
+import ru.nsu.sidey383.lab1.stats.ScanStatistics;
 
 import java.io.Closeable;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Iterator;
 
 public interface DUWalkerNode extends Closeable {
@@ -15,9 +21,91 @@ public interface DUWalkerNode extends Closeable {
 
     Iterator<Path> getPathIterator();
 
+    /**
+     * Читает файл, полученный из {@link #getPathIterator()}.
+     * <p> Узел должен быть открыт.
+     *
+     * @see DUFile#readFile(Path)
+     */
+    default DUFile readChild(Path path) {
+        return DUFile.readFile(path);
+    }
+
+    /**
+     * Читает файл, как {@link #readChild(Path)}, и учитывает время чтения.
+     *
+     * @param statistics статистика или null, если время не учитывается.
+     */
+    default DUFile readChild(Path path, @Nullable ScanStatistics statistics) {
+        if (statistics == null)
+            return readChild(path);
+        long start = System.nanoTime();
+        try {
+            return readChild(path);
+        } finally {
+            statistics.record(getParent() instanceof ReferenceDUFile ? ScanOperation.REAL_PATH : ScanOperation.READ_ATTRIBUTES, start);
+        }
+    }
+
+    /**
+     * @param cachedChildren известные пути потомков или null, если директорию нужно прочитать.
+     * @param readUnixAttributes читать {@link ru.nsu.sidey383.lab1.model.file.UnixFileAttributes} потомков, см. {@link DUFile#readResolvedFile(ParentDUFile, Path, boolean)}.
+     */
+    static DUWalkerNode create(ParentDUFile file, @Nullable Collection<Path> cachedChildren, boolean readUnixAttributes) throws DUPathException {
+        return create(file, cachedChildren, readUnixAttributes, null);
+    }
+
+    /**
+     * @param filter записи директории, которые нужно прочитать, или null для всех записей.
+     */
+    static DUWalkerNode create(ParentDUFile file, @Nullable Collection<Path> cachedChildren, boolean readUnixAttributes,
+                               @Nullable DirectoryStream.Filter<? super Path> filter) throws DUPathException {
+        if (filter != null && file instanceof DirectoryDUFile dir)
+            filter = markingExcluded(dir, filter);
+        if (cachedChildren != null)
+            return new DUCachedNode(file, cachedChildren, readUnixAttributes, filter);
+        return create(file, readUnixAttributes, filter);
+    }
+
+    /**
+     * Открывает узел, как {@link #create(ParentDUFile, Collection, boolean, DirectoryStream.Filter)},
+     * и учитывает время открытия директории.
+     *
+     * @param statistics статистика или null, если время не учитывается.
+     */
+    static DUWalkerNode create(ParentDUFile file, @Nullable Collection<Path> cachedChildren, boolean readUnixAttributes,
+                               @Nullable DirectoryStream.Filter<? super Path> filter,
+                               @Nullable ScanStatistics statistics) throws DUPathException {
+        if (statistics == null || cachedChildren != null || !(file instanceof DirectoryDUFile))
+            return create(file, cachedChildren, readUnixAttributes, filter);
+        long start = System.nanoTime();
+        try {
+            return create(file, null, readUnixAttributes, filter);
+        } finally {
+            statistics.record(ScanOperation.OPEN_DIRECTORY, start);
+        }
+    }
+
+    /**
+     * Отмечает директорию, если фильтр пропустил хотя бы одну её запись, см. {@link DirectoryDUFile#markMissingChildren()}.
+     */
+    private static DirectoryStream.Filter<Path> markingExcluded(DirectoryDUFile directory, DirectoryStream.Filter<? super Path> filter) {
+        return entry -> {
+            if (filter.accept(entry))
+                return true;
+            directory.markMissingChildren();
+            return false;
+        };
+    }
+
     static DUWalkerNode create(ParentDUFile file) throws DUPathException {
+        return create(file, false, null);
+    }
+
+    private static DUWalkerNode create(ParentDUFile file, boolean readUnixAttributes,
+                                       @Nullable DirectoryStream.Filter<? super Path> filter) throws DUPathException {
         if (file instanceof DirectoryDUFile dir) {
-            return new DUDirectoryNode(dir);
+            return new DUDirectoryNode(dir, readUnixAttributes, filter);
         }
         if (file instanceof ReferenceDUFile referenceDUFile) {
             return new DULinkNode(referenceDUFile);
@@ -0,0 +1,266 @@
+package ru.nsu.sidey383.lab1.watch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.ReferenceDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.OtherDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.WrongDUFile;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.options.FilesScanOptions;
+import ru.nsu.sidey383.lab1.walker.DUPathFilter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Поддерживает дерево файлов в актуальном состоянии с помощью {@link WatchService}.
+ * <p> Каждая директория дерева регистрируется в {@link WatchService}. Событие заменяет или удаляет потомка директории,
+ * а разница размеров передаётся предкам по цепочке {@link DUFile#getParent()} за O(глубины).
+ * <p> При переполнении очереди событий заново обходятся только директории, события которых потеряны.
+ * <p> Дерево должно быть построено из объектов без свёрнутых потомков, см. {@link FilesScanOptions#getRetainDepth()}.
+ * <p> Не потокобезопасно: дерево можно читать только между вызовами {@link TreeWatcher#processEvents(long, TimeUnit)}.
+ */
+public class TreeWatcher implements Closeable {
+
+    private final FilesScanOptions options;
+
+    /**
+     * Children are read like the scan reads them
+     * **/
+    private final boolean readsUnixAttributes;
+
+    private final WatchService watchService;
+
+    /**
+     * Files that the scan skipped are not added by the events either
+     * **/
+    @Nullable
+    private final DUPathFilter filter;
+
+    private DUFile root;
+
+    /**
+     * Directories by their keys. A directory reached through a link shares the key with the directory itself
+     * **/
+    private final Map<WatchKey, List<DirectoryDUFile>> directories = new HashMap<>();
+
+    private final Map<DirectoryDUFile, WatchKey> keys = new IdentityHashMap<>();
+
+    private final List<DUPathException> errors = new ArrayList<>();
+
+    /**
+     * @param options способ первого обхода дерева. Новые и потерявшие события директории обходятся так же,
+     *                но без статистики, хода обхода и самых больших файлов.
+     *
+     * @throws IOException если файловая система не поддерживает {@link WatchService}.
+     */
+    public TreeWatcher(@NotNull DUFile root, @NotNull FilesScanOptions options) throws IOException {
+        this.root = root;
+        this.options = new WatchScanOptions(options);
+        this.readsUnixAttributes = options.readsUnixAttributes();
+        this.watchService = root.getPath().getFileSystem().newWatchService();
+        this.filter = DUPathFilter.create(root.getPath(), options.getExcludeGlobs(), options.oneFileSystem());
+        register(root);
+    }
+
+    /**
+     * @return корень дерева. Меняется, если корень был обойдён заново.
+     */
+    @NotNull
+    public DUFile getRoot() {
+        return root;
+    }
+
+    /**
+     * @return ошибки, возникшие после предыдущего вызова, включая ошибки регистрации директорий.
+     */
+    public List<DUPathException> pollErrors() {
+        List<DUPathException> result = List.copyOf(errors);
+        errors.clear();
+        return result;
+    }
+
+    /**
+     * Ждёт событий не дольше timeout, после чего применяет к дереву все накопившиеся события.
+     *
+     * @return изменилось ли дерево.
+     */
+    public boolean processEvents(long timeout, TimeUnit unit) throws InterruptedException {
+        Set<DirectoryDUFile> overflowed = Collections.newSetFromMap(new IdentityHashMap<>());
+        boolean changed = false;
+        for (WatchKey key = watchService.poll(timeout, unit); key != null; key = watchService.poll())
+            changed |= processKey(key, overflowed);
+        for (DirectoryDUFile directory : overflowed) {
+            // a rescan of the ancestor covers the directory
+            if (keys.containsKey(directory) && !hasAncestorIn(directory, overflowed)) {
+                rescan(directory);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private boolean processKey(WatchKey key, Set<DirectoryDUFile> overflowed) {
+        boolean changed = false;
+        List<WatchEvent<?>> events = key.pollEvents();
+        List<DirectoryDUFile> watched = directories.get(key);
+        if (watched != null) {
+            for (WatchEvent<?> event : events) {
+                if (event.kind() == OVERFLOW) {
+                    overflowed.addAll(watched);
+                    continue;
+                }
+                Path name = (Path) event.context();
+                // the list changes if the event replaces a child that shares the key
+                for (DirectoryDUFile directory : List.copyOf(watched))
+                    changed |= updateChild(directory, event.kind(), name);
+            }
+        }
+        if (!key.reset()) {
+            List<DirectoryDUFile> removed = directories.remove(key);
+            if (removed != null)
+                removed.forEach(keys::remove);
+        }
+        return changed;
+    }
+
+    private boolean updateChild(DirectoryDUFile directory, WatchEvent.Kind<?> kind, Path name) {
+        Path path = directory.getPath().resolve(name);
+        // changes inside the child directory are reported by its own key
+        if (kind == ENTRY_MODIFY && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS))
+            return false;
+        if (filter != null && filter.isExcludedName(name))
+            return false;
+        long delta = 0;
+        DUFile removed = directory.removeChild(new OtherDUFile(0, directory, name));
+        if (removed != null) {
+            unregister(removed);
+            delta -= removed.getSize();
+        }
+        DUFile created = kind != ENTRY_DELETE && Files.exists(path, LinkOption.NOFOLLOW_LINKS) ? readChild(directory, path) : null;
+        if (created != null) {
+            directory.addChild(created);
+            register(created);
+            delta += created.getSize();
+        }
+        propagateSize(directory, delta);
+        return removed != null || created != null;
+    }
+
+    /**
+     * @return новый потомок или null, если он находится на другой файловой системе.
+     */
+    @Nullable
+    private DUFile readChild(DirectoryDUFile directory, Path path) {
+        DUFile file = DUFile.readResolvedFile(directory, path, readsUnixAttributes);
+        if (filter != null && file instanceof DirectoryDUFile dir && filter.isOtherFileSystem(dir))
+            return null;
+        if (file instanceof ParentDUFile)
+            file = scan(path);
+        else if (file instanceof WrongDUFile wrongFile)
+            errors.add(wrongFile.getPathException());
+        file.setParent(directory);
+        return file;
+    }
+
+    /**
+     * Обходит директорию заново и заменяет её в дереве.
+     */
+    private void rescan(DirectoryDUFile directory) {
+        DUFile fresh = scan(directory.getPath());
+        unregister(directory);
+        Optional<ParentDUFile> parent = directory.getParent();
+        if (parent.isEmpty()) {
+            root = fresh;
+        } else {
+            parent.get().removeChild(directory);
+            fresh.setParent(parent.get());
+            parent.get().addChild(fresh);
+            propagateSize(parent.get(), fresh.getSize() - directory.getSize());
+        }
+        register(fresh);
+    }
+
+    private DUFile scan(Path path) {
+        // the progress bean belongs to the first scan
+        FileTree tree = FileTree.calculateTree(path, options, null, null, null);
+        errors.addAll(tree.getErrors());
+        return Objects.requireNonNull(tree.getRootFile());
+    }
+
+    /**
+     * Adds the delta to the ancestors of the directory, the size of the directory itself is already changed
+     * **/
+    private static void propagateSize(ParentDUFile directory, long delta) {
+        if (delta == 0)
+            return;
+        // the size of a link doesn't depend on its child
+        for (ParentDUFile p = directory; !(p instanceof ReferenceDUFile); ) {
+            Optional<ParentDUFile> parent = p.getParent();
+            if (parent.isEmpty())
+                return;
+            p = parent.get();
+            p.addSize(delta);
+        }
+    }
+
+    private static boolean hasAncestorIn(DUFile file, Set<DirectoryDUFile> directories) {
+        for (Optional<ParentDUFile> p = file.getParent(); p.isPresent(); p = p.get().getParent())
+            if (p.get() instanceof DirectoryDUFile directory && directories.contains(directory))
+                return true;
+        return false;
+    }
+
+    private void register(DUFile file) {
+        Deque<DUFile> stack = new ArrayDeque<>();
+        stack.push(file);
+        while (!stack.isEmpty()) {
+            DUFile f = stack.pop();
+            if (f instanceof DirectoryDUFile directory) {
+                try {
+                    WatchKey key = directory.getPath().register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                    directories.computeIfAbsent(key, k -> new ArrayList<>(1)).add(directory);
+                    keys.put(directory, key);
+                } catch (IOException e) {
+                    errors.add(new DUPathException(directory.getPath(), e));
+                }
+            }
+            if (f instanceof ParentDUFile parent)
+                parent.getChildren().forEach(stack::push);
+        }
+    }
+
+    private void unregister(DUFile file) {
+        Deque<DUFile> stack = new ArrayDeque<>();
+        stack.push(file);
+        while (!stack.isEmpty()) {
+            DUFile f = stack.pop();
+            if (f instanceof DirectoryDUFile directory) {
+                WatchKey key = keys.remove(directory);
+                List<DirectoryDUFile> watched = key == null ? null : directories.get(key);
+                // directories with the same path are equal, so compare identities
+                if (watched != null && watched.removeIf(d -> d == directory) && watched.isEmpty()) {
+                    directories.remove(key);
+                    key.cancel();
+                }
+            }
+            if (f instanceof ParentDUFile parent)
+                parent.getChildren().forEach(stack::push);
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package ru.nsu.sidey383.lab1.watch;
+
+import ru.nsu.sidey383.lab1.options.FilesScanOptions;
+import ru.nsu.sidey383.lab1.options.WalkerMode;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Способ обхода директорий, которые {@link TreeWatcher} обходит заново.
+ * <p> Обход и чтение файлов совпадают с первым обходом, но дерево сохраняется целиком из объектов,
+ * а статистика, ход обхода, самые большие файлы и снимок не нужны: они относятся к первому обходу.
+ */
+final class WatchScanOptions implements FilesScanOptions {
+
+    private final FilesScanOptions options;
+
+    WatchScanOptions(FilesScanOptions options) {
+        this.options = options;
+    }
+
+    @Override
+    public boolean followLink() {
+        return options.followLink();
+    }
+
+    @Override
+    public WalkerMode getWalkerMode() {
+        return options.getWalkerMode();
+    }
+
+    @Override
+    public int getThreadCount() {
+        return options.getThreadCount();
+    }
+
+    @Override
+    public int getMaxConcurrentStats() {
+        return options.getMaxConcurrentStats();
+    }
+
+    @Override
+    public int getRetainDepth() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean isCompactTree() {
+        return false;
+    }
+
+    @Override
+    public int getTopFilesCount() {
+        return 0;
+    }
+
+    @Override
+    public boolean dedupHardLinks() {
+        return options.dedupHardLinks();
+    }
+
+    @Override
+    public List<String> getExcludeGlobs() {
+        return options.getExcludeGlobs();
+    }
+
+    @Override
+    public boolean oneFileSystem() {
+        return options.oneFileSystem();
+    }
+
+    @Override
+    public boolean savesSnapshot() {
+        return false;
+    }
+
+    @Override
+    public boolean collectStatistics() {
+        return false;
+    }
+
+    @Override
+    public boolean trackProgress() {
+        return false;
+    }
+
+    @Override
+    public Duration getTimeBudget() {
+        return Duration.ZERO;
+    }
+
+}
@@ -1,23 +1,48 @@
 package ru.nsu.sidey383.lab1.write;
 
+import ru.nsu.sidey383.lab1.jfr.PrintPhaseEvent;
 import ru.nsu.sidey383.lab1.model.file.DUFileType;
-import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
-import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFileView;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.model.top.TopFilesCollector;
 import ru.nsu.sidey383.lab1.options.FilesPrintOptions;
 import ru.nsu.sidey383.lab1.write.size.SizeSuffix;
 
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Stack;
 
 public class FileTreePrinter {
 
+    private static final Comparator<DUFileView> BY_SIZE_DESCENDING = Comparator.comparingLong(DUFileView::getSize).reversed();
+
+    /**
+     * Порядок вывода: по уменьшению размера, затем по порядку обхода.
+     */
+    private static final Comparator<IndexedFile<?>> PRINT_ORDER = Comparator.<IndexedFile<?>>comparingLong(IndexedFile::size).reversed()
+            .thenComparingInt(IndexedFile::index);
+
     private final int maxDepth;
 
     private final int fileInDirLimit;
 
     private final SizeSuffix sizeSuffix;
 
+    /**
+     * Created on the first print and reused by the next ones
+     * **/
+    private LineBuffer lineBuffer = null;
+
+    /**
+     * Вызовы вывода не должны выполняться одновременно: они используют общий буфер строк.
+     */
     public FileTreePrinter(FilesPrintOptions options) {
         this.maxDepth = options.getMaxDepth();
         this.fileInDirLimit = options.getFileInDirLimit();
@@ -28,25 +53,41 @@ public class FileTreePrinter {
      * Читает все файлы в файловом дереве и выводит в поток.
      * <p> Применяет переданную конфигурацию {@link  FileTreePrinter#FileTreePrinter(FilesPrintOptions)}
      * <p> Выводит все файлы в директории в порядке уменьшения размера.
+     * <p> Строки собираются в буфере и передаются потоку блоками, поток сбрасывается в конце вывода.
+     */
+    public void printTree(PrintStream stream, DUFileView root) {
+        PrintPhaseEvent event = PrintPhaseEvent.beginIfEnabled();
+        appendSubtree(stream, root, 0);
+        if (event != null)
+            event.commit(root, "tree");
+    }
+
+    /**
+     * Выводит поддерево так же, как оно выводится в составе {@link FileTreePrinter#printTree(PrintStream, DUFileView)}.
+     *
+     * @param depth глубина файла в полном дереве. Задаёт отступ и сколько уровней поддерева выводится.
      */
-    public void printTree(PrintStream stream, DUFile root) {
-        Stack<Iterator<DUFile>> dirStack = new Stack<>();
-        DUFile now = root;
+    public void printSubtree(PrintStream stream, DUFileView file, int depth) {
+        PrintPhaseEvent event = PrintPhaseEvent.beginIfEnabled();
+        appendSubtree(stream, file, depth);
+        if (event != null)
+            event.commit(file, "subtree");
+    }
+
+    private void appendSubtree(PrintStream stream, DUFileView file, int depth) {
+        LineBuffer out = lineBuffer(stream);
+        Stack<Iterator<DUFileView>> dirStack = new Stack<>();
+        DUFileView now = file;
         do {
-            stream.print("  ".repeat(dirStack.size()));
-            stream.println(prettyFileString(now));
-            if (now instanceof ParentDUFile dir && dirStack.size() < maxDepth) {
-                dirStack.add(
-                        dir.getChildren().stream()
-                                // CR: Comparator.comparingLong()?
-                                .sorted((f1, f2) -> (int) Math.signum(f2.getSize() - f1.getSize()))
-                                .limit(fileInDirLimit)
-                                .iterator()
-                        );
+            out.appendIndent(2 * (depth + dirStack.size()));
+            appendFile(out, now);
+            out.newLine();
+            if (now instanceof ParentDUFileView dir && depth + dirStack.size() < maxDepth) {
+                dirStack.add(this.<DUFileView>largestChildren(dir.getChildren()).iterator());
             }
             now = null;
             while (!dirStack.isEmpty()) {
-                Iterator<DUFile> iterator = dirStack.peek();
+                Iterator<DUFileView> iterator = dirStack.peek();
                 if (iterator.hasNext()) {
                     now = iterator.next();
                     break;
@@ -54,18 +95,123 @@ public class FileTreePrinter {
                 dirStack.pop();
             }
         } while (now != null);
+        out.flush();
+    }
+
+    /**
+     * Выводит только строку файла без отступа.
+     */
+    public void printFile(PrintStream stream, DUFileView file) {
+        PrintPhaseEvent event = PrintPhaseEvent.beginIfEnabled();
+        LineBuffer out = lineBuffer(stream);
+        appendFile(out, file);
+        out.newLine();
+        out.flush();
+        if (event != null)
+            event.commit(file, "file");
+    }
+
+    /**
+     * Выводит самые большие файлы, по одному на строку.
+     *
+     * @see ru.nsu.sidey383.lab1.FileTree#getTopFiles()
+     */
+    public void printTopFiles(PrintStream stream, List<TopFilesCollector.TopFile> files) {
+        PrintPhaseEvent event = PrintPhaseEvent.beginIfEnabled();
+        LineBuffer out = lineBuffer(stream);
+        for (TopFilesCollector.TopFile file : files) {
+            out.append('[');
+            out.appendSize(sizeSuffix, file.size());
+            out.append("] ");
+            out.append(file.path().toString());
+            out.newLine();
+        }
+        out.flush();
+        if (event != null)
+            event.commit(null, "top files");
+    }
+
+    private LineBuffer lineBuffer(PrintStream stream) {
+        if (lineBuffer == null)
+            lineBuffer = new LineBuffer();
+        return lineBuffer.start(stream);
+    }
+
+    /**
+     * Выбирает не более {@link FilesPrintOptions#getFileInDirLimit()} самых больших файлов.
+     * <p> Файлы одного размера идут в порядке обхода коллекции, как при устойчивой сортировке.
+     * Полная сортировка выполняется, только если выводятся все файлы директории.
+     *
+     * @return файлы в порядке уменьшения размера.
+     */
+    public <T extends DUFileView> List<T> largestChildren(Collection<? extends T> children) {
+        if (fileInDirLimit >= children.size()) {
+            List<T> sorted = new ArrayList<>(children);
+            sorted.sort(BY_SIZE_DESCENDING);
+            return sorted;
+        }
+        // the head of the heap is the file that is printed last
+        PriorityQueue<IndexedFile<T>> heap = new PriorityQueue<>(fileInDirLimit, PRINT_ORDER.reversed());
+        int index = 0;
+        for (T file : children) {
+            long size = file.getSize();
+            if (heap.size() < fileInDirLimit) {
+                heap.add(new IndexedFile<>(file, size, index));
+            } else if (size > heap.peek().size()) {
+                // a file of the same size comes later in the iteration order, so it is never printed earlier
+                heap.poll();
+                heap.add(new IndexedFile<>(file, size, index));
+            }
+            index++;
+        }
+        List<T> largest = new ArrayList<>(heap.size());
+        while (!heap.isEmpty())
+            largest.add(heap.poll().file());
+        Collections.reverse(largest);
+        return largest;
+    }
+
+    /**
+     * Дописывает в буфер {@link FileTreePrinter#prettyFileString(DUFileView)}.
+     */
+    private void appendFile(LineBuffer out, DUFileView file) {
+        switch (file.getFileType()) {
+            case REGULAR_FILE -> {
+                out.appendName(file);
+                out.append(" [");
+                out.appendSize(sizeSuffix, file.getSize());
+                out.append(']');
+            }
+            case DIRECTORY -> {
+                out.append('/');
+                out.appendName(file);
+                out.append('[');
+                if (isEstimated(file))
+                    out.append('~');
+                out.appendSize(sizeSuffix, file.getSize());
+                out.append(']');
+            }
+            case OTHER -> {
+                out.appendName(file);
+                out.append(" [unknown type]");
+            }
+            case LINK -> {
+                out.append('*');
+                out.appendName(file);
+            }
+        }
     }
 
     /**
      * @return красивое представление файла.
      */
-    public String prettyFileString(DUFile file) {
+    public String prettyFileString(DUFileView file) {
         StringBuilder builder = new StringBuilder();
         DUFileType type = file.getFileType();
 
         switch (type) {
-            case REGULAR_FILE -> builder.append(file.getSimpleName()).append(" ").append("[").append(sizeSuffix.getValue(file.getSize())).append("]");
-            case DIRECTORY -> builder.append("/").append(file.getSimpleName()).append("[").append(sizeSuffix.getValue(file.getSize())).append("]");
+            case REGULAR_FILE -> sizeSuffix.appendValue(builder.append(file.getSimpleName()).append(" ").append("["), file.getSize()).append("]");
+            case DIRECTORY -> sizeSuffix.appendValue(builder.append("/").append(file.getSimpleName()).append(isEstimated(file) ? "[~" : "["), file.getSize()).append("]");
             case OTHER -> builder.append(file.getSimpleName()).append(" ").append("[unknown type]");
             case LINK -> builder.append("*").append(file.getSimpleName());
         }
@@ -73,4 +219,13 @@ public class FileTreePrinter {
         return builder.toString();
     }
 
+    /**
+     * Размер неполной директории - оценка, он выводится с префиксом '~'.
+     */
+    private static boolean isEstimated(DUFileView file) {
+        return file instanceof DirectoryDUFile directory && directory.isIncomplete();
+    }
+
+    private record IndexedFile<T>(T file, long size, int index) {}
+
 }
@@ -0,0 +1,152 @@
+package ru.nsu.sidey383.lab1.write;
+
+import ru.nsu.sidey383.lab1.model.file.BaseDUFile;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
+import ru.nsu.sidey383.lab1.write.size.SizeSuffix;
+
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Собирает строки вывода в байтовом буфере и передаёт их потоку блоками по {@link LineBuffer#CAPACITY} байт.
+ * <p> В отличие от {@link PrintStream#println(String)} поток блокируется один раз на блок,
+ * а отступы и имена файлов копируются в буфер без промежуточных строк.
+ * <p> Один буфер переиспользуется для разных потоков вывода, см. {@link LineBuffer#start(PrintStream)}.
+ * <p> Не потокобезопасно.
+ */
+final class LineBuffer {
+
+    static final int CAPACITY = 1 << 16;
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    private PrintStream out;
+
+    private Charset charset;
+
+    /**
+     * Names of the files cache their UTF-8 bytes, so they are copied as is
+     * **/
+    private boolean utf8;
+
+    private final byte[] buffer = new byte[CAPACITY];
+
+    private int length = 0;
+
+    /**
+     * Spaces for the deepest indent written so far
+     * **/
+    private byte[] indent = new byte[64];
+
+    private final StringBuilder sizeBuilder = new StringBuilder(32);
+
+    LineBuffer() {
+        Arrays.fill(indent, (byte) ' ');
+    }
+
+    /**
+     * Начинает вывод в поток. Байты, не переданные предыдущему потоку, отбрасываются.
+     *
+     * @return этот буфер.
+     */
+    LineBuffer start(PrintStream out) {
+        this.out = out;
+        this.charset = out.charset();
+        this.utf8 = charset.equals(StandardCharsets.UTF_8);
+        this.length = 0;
+        return this;
+    }
+
+    void appendIndent(int spaces) {
+        if (spaces > indent.length) {
+            indent = new byte[Math.max(spaces, indent.length * 2)];
+            Arrays.fill(indent, (byte) ' ');
+        }
+        append(indent, spaces);
+    }
+
+    void appendName(DUFileView file) {
+        byte[] name = utf8 && file instanceof BaseDUFile base ? base.getNameBytes() : null;
+        if (name != null)
+            append(name, name.length);
+        else
+            append(file.getSimpleName());
+    }
+
+    void appendSize(SizeSuffix suffix, long size) {
+        sizeBuilder.setLength(0);
+        append(suffix.appendValue(sizeBuilder, size));
+    }
+
+    void append(char c) {
+        if (c < 0x80) {
+            ensure(1);
+            buffer[length++] = (byte) c;
+        } else {
+            append(String.valueOf(c));
+        }
+    }
+
+    void append(CharSequence s) {
+        int n = s.length();
+        ensure(n);
+        if (n <= buffer.length - length) {
+            // ASCII fast path, the usual case for sizes and file names
+            int start = length;
+            for (int i = 0; i < n; i++) {
+                char c = s.charAt(i);
+                if (c >= 0x80) {
+                    length = start;
+                    appendEncoded(s);
+                    return;
+                }
+                buffer[length++] = (byte) c;
+            }
+            return;
+        }
+        appendEncoded(s);
+    }
+
+    void newLine() {
+        append(LINE_SEPARATOR, LINE_SEPARATOR.length);
+    }
+
+    /**
+     * Передаёт накопленные байты потоку и сбрасывает поток.
+     */
+    void flush() {
+        writeBuffer();
+        out.flush();
+    }
+
+    private void appendEncoded(CharSequence s) {
+        byte[] bytes = s.toString().getBytes(charset);
+        append(bytes, bytes.length);
+    }
+
+    private void append(byte[] bytes, int count) {
+        int offset = 0;
+        while (offset < count) {
+            ensure(1);
+            int chunk = Math.min(buffer.length - length, count - offset);
+            System.arraycopy(bytes, offset, buffer, length, chunk);
+            length += chunk;
+            offset += chunk;
+        }
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.length - length < bytes)
+            writeBuffer();
+    }
+
+    private void writeBuffer() {
+        if (length == 0)
+            return;
+        out.write(buffer, 0, length);
+        length = 0;
+    }
+
+}
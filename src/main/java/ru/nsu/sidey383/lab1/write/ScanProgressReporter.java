@@ -0,0 +1,128 @@
+package ru.nsu.sidey383.lab1.write;
+
+import org.jetbrains.annotations.NotNull;
+import ru.nsu.sidey383.lab1.stats.ScanProgress;
+import ru.nsu.sidey383.lab1.write.size.SizeSuffix;
+
+import java.io.PrintStream;
+
+/**
+ * Выводит {@link ScanProgress} одной обновляемой строкой каждые {@link #INTERVAL_MILLIS} мс из фонового потока.
+ * <p> Обход не форматирует ничего сам: поток вывода только читает счётчики.
+ * <p> Поток запускается в {@link #start(ScanProgress, PrintStream, SizeSuffix)},
+ * {@link #close()} останавливает его и стирает строку.
+ */
+public class ScanProgressReporter implements AutoCloseable {
+
+    static final long INTERVAL_MILLIS = 250;
+
+    /**
+     * The path is shortened from the start to keep the line on one terminal row
+     * **/
+    static final int MAX_PATH_LENGTH = 60;
+
+    private final ScanProgress progress;
+
+    private final PrintStream out;
+
+    private final SizeSuffix sizeSuffix;
+
+    private final Thread thread;
+
+    private int lastLength = 0;
+
+    private ScanProgressReporter(ScanProgress progress, PrintStream out, SizeSuffix sizeSuffix) {
+        this.progress = progress;
+        this.out = out;
+        this.sizeSuffix = sizeSuffix;
+        this.thread = new Thread(this::run, "du-progress");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Запускает фоновый поток вывода. Поток запускается после создания объекта, чтобы не видеть его недостроенным.
+     */
+    public static ScanProgressReporter start(@NotNull ScanProgress progress, @NotNull PrintStream out, @NotNull SizeSuffix sizeSuffix) {
+        ScanProgressReporter reporter = new ScanProgressReporter(progress, out, sizeSuffix);
+        reporter.thread.start();
+        return reporter;
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                Thread.sleep(INTERVAL_MILLIS);
+                printLine(formatLine());
+            }
+        } catch (InterruptedException ignored) {
+            // closed
+        }
+    }
+
+    private void printLine(String line) {
+        StringBuilder builder = new StringBuilder(Math.max(line.length(), lastLength) + 1);
+        builder.append('\r').append(line);
+        for (int i = line.length(); i < lastLength; i++)
+            builder.append(' ');
+        lastLength = line.length();
+        out.print(builder);
+        out.flush();
+    }
+
+    /**
+     * @return строка хода сканирования без перевода строки.
+     */
+    @NotNull
+    String formatLine() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(progress.getEntriesVisited()).append(" entries, ");
+        sizeSuffix.appendValue(builder, progress.getBytesAccounted());
+        builder.append(", ").append(progress.getOpenDirectories()).append(" open, eta ");
+        appendEta(builder, progress.getEtaSeconds());
+        String path = progress.getCurrentPath();
+        if (!path.isEmpty()) {
+            builder.append(", ");
+            if (path.length() > MAX_PATH_LENGTH)
+                builder.append("...").append(path, path.length() - MAX_PATH_LENGTH + 3, path.length());
+            else
+                builder.append(path);
+        }
+        return builder.toString();
+    }
+
+    private static void appendEta(StringBuilder builder, long seconds) {
+        if (seconds < 0) {
+            builder.append('?');
+            return;
+        }
+        builder.append('~');
+        if (seconds >= 3600)
+            builder.append(seconds / 3600).append("h ").append(seconds % 3600 / 60).append('m');
+        else if (seconds >= 60)
+            builder.append(seconds / 60).append("m ").append(seconds % 60).append('s');
+        else
+            builder.append(seconds).append('s');
+    }
+
+    @Override
+    public void close() {
+        thread.interrupt();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (lastLength > 0) {
+            printLine("");
+            out.print('\r');
+            out.flush();
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+}
@@ -4,11 +4,22 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 
+/**
+ * Цепочка единиц измерения, в которой каждая следующая единица в {@link DefaultSizeSuffix#getNextSize()} раз больше.
+ * <p> Размер выводится в наибольшей единице, в которой он не меньше единицы, с двумя знаками после запятой.
+ * Вывод совпадает с форматом {@link DecimalFormat} "0.00", но считается в целых числах и потокобезопасен.
+ */
 public interface DefaultSizeSuffix extends SizeSuffix {
 
+    double EXACT_LIMIT = 0x1p42;
+
+    /**
+     * @return символы локали по умолчанию, которыми выводятся дробные размеры. Объект не должен изменяться.
+     */
     @NotNull
-    DecimalFormat getDecimalFormat();
+    DecimalFormatSymbols getDecimalFormatSymbols();
 
     @NotNull
     String getSuffix();
@@ -23,23 +34,71 @@ public interface DefaultSizeSuffix extends SizeSuffix {
     @Override
     @NotNull
     default String getValue(long size) {
-        return getSuffix(size, 0);
+        return appendValue(new StringBuilder(16), size).toString();
     }
 
+    @Override
     @NotNull
-    default String getSuffix(long size, double prevPart) {
-        if (size < 0 || prevPart < 0 || prevPart > 1)
-            throw new IllegalArgumentException(
-                    String.format("%s size=%d previsionPart=%f", this, size, prevPart)
-            );
-        if (getNextSuffix() == null || getNextSize() <= 0 || size < getNextSize()) {
-            if (isIsAtomic()) {
-                return size + " " + getSuffix();
-            } else {
-                return getDecimalFormat().format(size + prevPart) + " " + getSuffix();
-            }
+    default StringBuilder appendValue(@NotNull StringBuilder builder, long size) {
+        if (size < 0)
+            throw new IllegalArgumentException(String.format("%s size=%d", this, size));
+        DefaultSizeSuffix suffix = this;
+        // only the remainder of the last division is shown, like the fractional part of the previous formatter
+        long remainder = 0;
+        int divisor = 1;
+        while (suffix.getNextSuffix() != null && suffix.getNextSize() > 0 && size >= suffix.getNextSize()) {
+            divisor = suffix.getNextSize();
+            remainder = size % divisor;
+            size /= divisor;
+            suffix = suffix.getNextSuffix();
+        }
+        if (suffix.isIsAtomic())
+            builder.append(size);
+        else
+            appendFixedPoint(builder, size, remainder, divisor, suffix.getDecimalFormatSymbols());
+        return builder.append(' ').append(suffix.getSuffix());
+    }
+
+    /**
+     * Дописывает value + (double) remainder / divisor с двумя знаками после запятой.
+     * <p> Точное значение double округляется к ближайшему, а при равенстве расстояний к чётному.
+     * Сравнения выполняются через {@link Math#fma(double, double, double)} без ошибок округления.
+     * <p> {@link DecimalFormat} округляет кратчайшую десятичную запись числа. Она округляется так же,
+     * пока между соседними double меньше 0.001, то есть для чисел меньше {@link DefaultSizeSuffix#EXACT_LIMIT}.
+     */
+    private static void appendFixedPoint(StringBuilder builder, long value, long remainder, int divisor, DecimalFormatSymbols symbols) {
+        double number = value + (double) remainder / divisor;
+        if (number >= EXACT_LIMIT) {
+            // unreachable from bytes, the largest size is 2^33 GiB
+            builder.append(new DecimalFormat("0.00", symbols).format(number));
+            return;
+        }
+        long integer = (long) number;
+        // the fractional part of a double is always exact
+        double fraction = number - integer;
+        long hundredths = (long) (fraction * 100);
+        if (Math.fma(fraction, 100, -hundredths) < 0)
+            hundredths--;
+        else if (Math.fma(fraction, 100, -(hundredths + 1)) >= 0)
+            hundredths++;
+        double half = Math.fma(fraction, 100, -(hundredths + 0.5));
+        if ((half > 0 || (half == 0 && hundredths % 2 == 1)) && ++hundredths == 100) {
+            hundredths = 0;
+            integer++;
         }
-        return getNextSuffix().getSuffix(size / getNextSize(), ((double)(size % getNextSize())) / getNextSize());
+        char zero = symbols.getZeroDigit();
+        appendDigits(builder, integer, zero);
+        builder.append(symbols.getDecimalSeparator())
+                .append((char) (zero + hundredths / 10))
+                .append((char) (zero + hundredths % 10));
+    }
+
+    private static void appendDigits(StringBuilder builder, long value, char zero) {
+        long power = 1;
+        while (power <= value / 10)
+            power *= 10;
+        for (; power > 0; power /= 10)
+            builder.append((char) (zero + value / power % 10));
     }
 
 }
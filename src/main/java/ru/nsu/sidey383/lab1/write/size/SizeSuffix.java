@@ -13,6 +13,16 @@ public interface SizeSuffix {
     @NotNull
     String getValue(long size);
 
+    /**
+     * Дописывает {@link SizeSuffix#getValue(long)} в builder.
+     *
+     * @return builder.
+     */
+    @NotNull
+    default StringBuilder appendValue(@NotNull StringBuilder builder, long size) {
+        return builder.append(getValue(size));
+    }
+
     /**
      * @return базовый объект класса. Этот объект корректно конвертирует размер в байтах в строку.
      */
@@ -3,7 +3,7 @@ package ru.nsu.sidey383.lab1.write.size;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 
 public enum SizeSuffixIEC implements DefaultSizeSuffix {
     // CR(minor): i think we could just override isAtomic method for byte, and not store as field
@@ -12,7 +12,7 @@ public enum SizeSuffixIEC implements DefaultSizeSuffix {
     KILOBYTE("KiB", MEGABYTE, 1024, false),
     BYTE("Byte", KILOBYTE, 1024, true);
 
-    private static final DecimalFormat decimalFormat = new DecimalFormat("0.00");
+    private static final DecimalFormatSymbols decimalFormatSymbols = DecimalFormatSymbols.getInstance();
 
     private final String suffix;
 
@@ -36,8 +36,8 @@ public enum SizeSuffixIEC implements DefaultSizeSuffix {
 
     @Override
     @NotNull
-    public DecimalFormat getDecimalFormat() {
-        return decimalFormat;
+    public DecimalFormatSymbols getDecimalFormatSymbols() {
+        return decimalFormatSymbols;
     }
 
     @Override
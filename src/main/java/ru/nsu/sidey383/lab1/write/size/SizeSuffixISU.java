@@ -3,13 +3,13 @@ package ru.nsu.sidey383.lab1.write.size;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 
 public enum SizeSuffixISU implements DefaultSizeSuffix {
 
     GIGABYTE("GB", null, 0, false), MEGABYTE("MB", GIGABYTE, 1000, false), KILOBYTE("KB", MEGABYTE, 1000, false), BYTE("Byte", KILOBYTE, 1000, true);
 
-    private static final DecimalFormat decimalFormat = new DecimalFormat("0.00");
+    private static final DecimalFormatSymbols decimalFormatSymbols = DecimalFormatSymbols.getInstance();
 
     private final String suffix;
 
@@ -33,8 +33,8 @@ public enum SizeSuffixISU implements DefaultSizeSuffix {
 
     @Override
     @NotNull
-    public DecimalFormat getDecimalFormat() {
-        return decimalFormat;
+    public DecimalFormatSymbols getDecimalFormatSymbols() {
+        return decimalFormatSymbols;
     }
 
     @Override
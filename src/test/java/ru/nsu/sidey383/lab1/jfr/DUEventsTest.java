@@ -0,0 +1,120 @@
+package ru.nsu.sidey383.lab1.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.write.FileTreePrinter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DUEventsTest {
+
+    private static final String DIRECTORY_SCAN = "ru.nsu.sidey383.jdu.DirectoryScan";
+
+    private static final String SLOW_STAT = "ru.nsu.sidey383.jdu.SlowStat";
+
+    private static final String LINK_FOLLOWED = "ru.nsu.sidey383.jdu.LinkFollowed";
+
+    private static final String PRINT_PHASE = "ru.nsu.sidey383.jdu.PrintPhase";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Scan and print emit events with paths")
+    public void eventsTest() throws IOException {
+        Path root = createTree();
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(DIRECTORY_SCAN);
+            recording.enable(SLOW_STAT).withThreshold(Duration.ZERO);
+            recording.enable(LINK_FOLLOWED);
+            recording.enable(PRINT_PHASE);
+            recording.start();
+            scanAndPrint(root);
+            recording.stop();
+            events = readEvents(recording);
+        }
+
+        Path data = tempDir.resolve("data").toRealPath();
+        RecordedEvent scan = events.stream()
+                .filter(e -> isEvent(e, DIRECTORY_SCAN) && data.toString().equals(e.getString("path")))
+                .findAny()
+                .orElseThrow(() -> new AssertionError("No scan of " + data));
+        assertEquals(2, scan.getInt("entryCount"), "Wrong entry count");
+        assertTrue(events.stream().anyMatch(e -> isEvent(e, SLOW_STAT)
+                && data.resolve("file").toString().equals(e.getString("path"))), "No stat event");
+        assertTrue(events.stream().anyMatch(e -> isEvent(e, LINK_FOLLOWED)
+                && root.resolve("link").toString().equals(e.getString("path"))
+                && data.toString().equals(e.getString("target"))), "No link event");
+        assertTrue(events.stream().anyMatch(e -> isEvent(e, PRINT_PHASE)
+                && "tree".equals(e.getString("phase"))
+                && root.toString().equals(e.getString("path"))), "No print event");
+    }
+
+    @Test
+    @DisplayName("Disabled events aren't recorded")
+    public void disabledTest() throws IOException {
+        Path root = createTree();
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(PRINT_PHASE);
+            recording.disable(DIRECTORY_SCAN);
+            recording.disable(SLOW_STAT);
+            recording.disable(LINK_FOLLOWED);
+            recording.start();
+            scanAndPrint(root);
+            recording.stop();
+            events = readEvents(recording);
+        }
+        Set<String> names = events.stream()
+                .map(e -> e.getEventType().getName())
+                .filter(name -> name.startsWith("ru.nsu.sidey383.jdu."))
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(PRINT_PHASE), names, "Wrong recorded events");
+    }
+
+    private static void scanAndPrint(Path root) {
+        DiskUsageOptions options = DiskUsageOptions.builder()
+                .withFollowLinks(true)
+                .build();
+        FileTree tree = FileTree.calculateTree(root, options);
+        assertFalse(tree.hasErrors(), "Has error in FileTree");
+        new FileTreePrinter(options).printTree(new PrintStream(OutputStream.nullOutputStream()), tree.getBaseFile());
+    }
+
+    private List<RecordedEvent> readEvents(Recording recording) throws IOException {
+        Path file = tempDir.resolve("scan.jfr");
+        recording.dump(file);
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private static boolean isEvent(RecordedEvent event, String name) {
+        return event.getEventType().getName().equals(name);
+    }
+
+    private Path createTree() throws IOException {
+        Path data = Files.createDirectories(tempDir.resolve("data"));
+        Files.write(data.resolve("file"), new byte[100]);
+        Files.write(data.resolve("other"), new byte[10]);
+        Path root = Files.createDirectories(tempDir.resolve("tree"));
+        Files.createSymbolicLink(root.resolve("link"), data);
+        return root.toRealPath();
+    }
+
+}
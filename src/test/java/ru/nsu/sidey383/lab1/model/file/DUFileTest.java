@@ -2,11 +2,14 @@ package ru.nsu.sidey383.lab1.model.file;
 
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.nsu.sidey383.lab1.model.file.base.ConcurrentDirectoryDUFile;
 import ru.nsu.sidey383.lab1.model.file.base.LinkDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.RegularDUFile;
 import ru.nsu.sidey383.lab1.model.file.base.WrongDUFile;
 
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -73,6 +76,72 @@ public class DUFileTest {
         assertEquals(DUFile.readFile(((LinkDUFile)wrongLink).getReference()), wrongFile, "Wrong linked file");
     }
 
+    @Test
+    @Order(4)
+    @DisplayName("Check DUFile#readResolvedFile() by real path")
+    void resolvedFileTest() {
+        for (Path path : fileSystem.getIdenticalFileLists()[0]) {
+            DUFile expected = DUFile.readFile(path);
+            DUFile actual = DUFile.readResolvedFile(path);
+            assertEquals(expected, actual, "Wrong resolved file");
+            assertEquals(expected.getFileType(), actual.getFileType(), "Wrong resolved file type");
+            assertEquals(expected.getSize(), actual.getSize(), "Wrong resolved file size");
+        }
+        DUFile wrongFile = DUFile.readResolvedFile(fileSystem.getWrongPath());
+        assertEquals(wrongFile.getClass(), WrongDUFile.class, "Wrong file " + wrongFile + " class");
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Check files stored by name relative to parent")
+    void relativeFileTest() {
+        for (Path path : fileSystem.getIdenticalFileLists()[0]) {
+            DUFile expected = DUFile.readFile(path);
+            ParentDUFile parent = (ParentDUFile) DUFile.readFile(expected.getPath().getParent());
+            DUFile actual = DUFile.readResolvedFile(parent, expected.getPath());
+            assertEquals(expected, actual, "Wrong relative file");
+            assertEquals(actual, expected, "Wrong relative file");
+            assertEquals(expected.hashCode(), actual.hashCode(), "Wrong relative file hash");
+            assertEquals(expected.getPath(), actual.getPath(), "Wrong relative file path");
+            assertEquals(expected.getSimpleName(), actual.getSimpleName(), "Wrong relative file name");
+            assertEquals(parent, actual.getParent().orElse(null), "Wrong relative file parent");
+            actual.setParent(null);
+            assertEquals(expected.getPath(), actual.getPath(), "Path must be kept after parent change");
+            assertEquals(expected.hashCode(), actual.hashCode(), "Hash must be kept after parent change");
+        }
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Check concurrent directory with children added from several threads")
+    void concurrentDirectoryTest() throws InterruptedException {
+        Path dirPath = fileSystem.getIdenticalFileLists()[0].get(0).getParent();
+        DUFile file = DUFile.readFile(dirPath, true);
+        assertInstanceOf(ConcurrentDirectoryDUFile.class, file, "Wrong concurrent file class");
+        ConcurrentDirectoryDUFile directory = (ConcurrentDirectoryDUFile) file;
+        int threadCount = 8;
+        int childCount = 10_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                // every thread adds the same children, copies must be ignored
+                for (int i = 0; i < childCount; i++) {
+                    directory.addChild(new RegularDUFile(i, directory, Path.of("file" + i)));
+                    directory.foldChild(new RegularDUFile(1, dirPath.resolve("folded")));
+                }
+            }));
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals(childCount, directory.getChildren().size(), "Wrong children count");
+        assertEquals((long) childCount * (childCount - 1) / 2 + (long) threadCount * childCount, directory.getSize(), "Wrong directory size");
+        assertNotNull(directory.removeChild(new RegularDUFile(0, directory, Path.of("file10"))), "Child isn't removed");
+        assertEquals((long) childCount * (childCount - 1) / 2 + (long) threadCount * childCount - 10, directory.getSize(), "Wrong size after remove");
+        DUFile child = DUFile.readResolvedFile(directory, fileSystem.getIdenticalFileLists()[0].get(0));
+        if (child instanceof ParentDUFile)
+            assertInstanceOf(ConcurrentParentDUFile.class, child, "Child of concurrent directory isn't concurrent");
+    }
+
     private void checkFileEquals(Path p1, Path p2) {
         DUFile f1 = DUFile.readFile(p1);
         DUFile f2 = DUFile.readFile(p2);
@@ -13,6 +13,7 @@ import ru.nsu.sidey383.lab1.write.size.SizeSuffixISU;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -87,6 +88,250 @@ public class DUOptionsTest {
                 helpDefault);
     }
 
+    @Test
+    @Order(0)
+    @DisplayName("Thread count test")
+    public void threadsTest() throws DUOptionReadException {
+        assertEquals(1, DiskUsageOptions.builder().build().getThreadCount(), "Wrong default thread count");
+        assertEquals(WalkerMode.SEQUENTIAL, DiskUsageOptions.builder().build().getWalkerMode(), "Wrong default walker mode");
+        for (int i = 1; i < 100; i++) {
+            DiskUsageOptions options = DiskUsageOptions.builder()
+                    .applyConsoleArgs(new String[]{"--threads", Integer.toString(i)})
+                    .build();
+            assertEquals(i, options.getThreadCount(), "Wrong thread count");
+            assertEquals(i > 1 ? WalkerMode.FORK_JOIN : WalkerMode.SEQUENTIAL, options.getWalkerMode(), "Wrong walker mode");
+        }
+        for (int i = 0; i > -10; i--) {
+            String[] args = new String[]{"--threads", Integer.toString(i)};
+            assertThrowsExactly(
+                    DUOptionReadException.class,
+                    () -> DiskUsageOptions.builder().applyConsoleArgs(args).build(),
+                    "Input: " + String.join(" ", args));
+        }
+        assertThrowsExactly(
+                DUOptionReadException.class,
+                () -> DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--threads"}).build(),
+                "Input: --threads");
+    }
+
+    @Test
+    @Order(0)
+    @DisplayName("Virtual threads test")
+    public void virtualThreadsTest() throws DUOptionReadException {
+        for (int i = 1; i < 100; i++) {
+            DiskUsageOptions options = DiskUsageOptions.builder()
+                    .applyConsoleArgs(new String[]{"--virtual-threads", Integer.toString(i)})
+                    .build();
+            assertEquals(i, options.getMaxConcurrentStats(), "Wrong concurrent stats limit");
+            assertEquals(WalkerMode.VIRTUAL_THREADS, options.getWalkerMode(), "Wrong walker mode");
+        }
+        assertThrowsExactly(
+                DUOptionReadException.class,
+                () -> DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--virtual-threads", "0"}).build(),
+                "Input: --virtual-threads 0");
+        assertThrowsExactly(
+                DUOptionReadException.class,
+                () -> DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--virtual-threads"}).build(),
+                "Input: --virtual-threads");
+    }
+
+    @Test
+    @Order(0)
+    @DisplayName("Prefetch threads test")
+    public void prefetchTest() throws DUOptionReadException {
+        for (int i = 1; i < 100; i++) {
+            DiskUsageOptions options = DiskUsageOptions.builder()
+                    .applyConsoleArgs(new String[]{"--prefetch", Integer.toString(i)})
+                    .build();
+            assertEquals(i, options.getThreadCount(), "Wrong prefetch thread count");
+            assertEquals(WalkerMode.PIPELINED, options.getWalkerMode(), "Wrong walker mode");
+        }
+        assertThrowsExactly(
+                DUOptionReadException.class,
+                () -> DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--prefetch", "0"}).build(),
+                "Input: --prefetch 0");
+        assertThrowsExactly(
+                DUOptionReadException.class,
+                () -> DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--prefetch"}).build(),
+                "Input: --prefetch");
+        assertThrowsExactly(
+                DUOptionReadException.class,
+                () -> DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--threads", "4", "--prefetch", "2"}).build(),
+                "Input: --threads 4 --prefetch 2");
+    }
+
+    @Test
+    @Order(0)
+    @DisplayName("Top files test")
+    public void topFilesTest() throws DUOptionReadException {
+        assertEquals(0, DiskUsageOptions.builder().build().getTopFilesCount(), "Wrong default top files count");
+        for (int i = 1; i < 100; i++) {
+            DiskUsageOptions options = DiskUsageOptions.builder()
+                    .applyConsoleArgs(new String[]{"--top-files", Integer.toString(i)})
+                    .build();
+            assertEquals(i, options.getTopFilesCount(), "Wrong top files count");
+            assertEquals(0, options.getRetainDepth(), "Tree is retained in top files mode");
+        }
+        assertThrowsExactly(
+                DUOptionReadException.class,
+                () -> DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--top-files", "0"}).build(),
+                "Input: --top-files 0");
+        assertThrowsExactly(
+                DUOptionReadException.class,
+                () -> DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--top-files"}).build(),
+                "Input: --top-files");
+    }
+
+    @Test
+    @Order(0)
+    @DisplayName("Incremental snapshot test")
+    public void incrementalSnapshotTest() throws DUOptionReadException, IOException {
+        assertNull(DiskUsageOptions.builder().build().getIncrementalSnapshotPath(), "Wrong default incremental snapshot");
+        Path snapshot = Files.createTempFile("jdu", ".snapshot");
+        try {
+            DiskUsageOptions options = DiskUsageOptions.builder()
+                    .applyConsoleArgs(new String[]{"--incremental", snapshot.toString()})
+                    .build();
+            assertEquals(snapshot, options.getIncrementalSnapshotPath(), "Wrong incremental snapshot");
+        } finally {
+            Files.delete(snapshot);
+        }
+        // the snapshot of the first scan doesn't exist yet
+        assertEquals(snapshot, DiskUsageOptions.builder()
+                        .applyConsoleArgs(new String[]{"--incremental", snapshot.toString()})
+                        .build()
+                        .getIncrementalSnapshotPath(),
+                "Wrong incremental snapshot that doesn't exist");
+        assertThrowsExactly(
+                DUOptionReadException.class,
+                () -> DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--incremental"}).build(),
+                "Input: --incremental");
+    }
+
+    @Test
+    @Order(0)
+    @DisplayName("Watch interval test")
+    public void watchTest() throws DUOptionReadException {
+        assertEquals(0, DiskUsageOptions.builder().build().getWatchInterval(), "Wrong default watch interval");
+        DiskUsageOptions options = DiskUsageOptions.builder()
+                .applyConsoleArgs(new String[]{"--watch", "5", "-s"})
+                .build();
+        assertEquals(5, options.getWatchInterval(), "Wrong watch interval");
+        assertEquals(Integer.MAX_VALUE, options.getRetainDepth(), "Watched tree is folded");
+        for (String[] args : new String[][]{
+                {"--watch", "5", "--fold-hidden"},
+                {"--watch", "5", "--compact"},
+                {"--top-files", "3", "--watch", "5"},
+                {"--watch", "5", "--time-budget", "60"}})
+            assertThrowsExactly(
+                    DUOptionReadException.class,
+                    () -> DiskUsageOptions.builder().applyConsoleArgs(args).build(),
+                    "Input: " + String.join(" ", args));
+        assertThrowsExactly(
+                DUOptionReadException.class,
+                () -> DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--watch", "0"}).build(),
+                "Input: --watch 0");
+        assertThrowsExactly(
+                DUOptionReadException.class,
+                () -> DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--watch"}).build(),
+                "Input: --watch");
+    }
+
+    @Test
+    @Order(0)
+    @DisplayName("Exclude and one file system test")
+    public void excludeTest() throws DUOptionReadException {
+        DiskUsageOptions defaults = DiskUsageOptions.builder().build();
+        assertEquals(List.of(), defaults.getExcludeGlobs(), "Wrong default exclude patterns");
+        assertFalse(defaults.oneFileSystem(), "One file system by default");
+        DiskUsageOptions options = DiskUsageOptions.builder()
+                .applyConsoleArgs(new String[]{"--exclude", ".git", "-x", "--exclude", "*.{o,tmp}"})
+                .build();
+        assertEquals(List.of(".git", "*.{o,tmp}"), options.getExcludeGlobs(), "Wrong exclude patterns");
+        assertTrue(options.oneFileSystem(), "Other file systems are walked");
+        assertTrue(DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--one-file-system"}).build().oneFileSystem(),
+                "Other file systems are walked");
+        assertThrowsExactly(
+                DUOptionReadException.class,
+                () -> DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--exclude", "{a"}).build(),
+                "Input: --exclude {a");
+        assertThrowsExactly(
+                DUOptionReadException.class,
+                () -> DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--exclude"}).build(),
+                "Input: --exclude");
+    }
+
+    @Test
+    @Order(0)
+    @DisplayName("Statistics test")
+    public void statisticsTest() throws DUOptionReadException {
+        assertFalse(DiskUsageOptions.builder().build().collectStatistics(), "Statistics are collected by default");
+        assertTrue(DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--stats"}).build().collectStatistics(),
+                "Statistics aren't collected");
+    }
+
+    @Test
+    @Order(0)
+    @DisplayName("Progress test")
+    public void progressTest() throws DUOptionReadException {
+        assertFalse(DiskUsageOptions.builder().build().trackProgress(), "Progress is tracked by default");
+        assertTrue(DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--progress"}).build().trackProgress(),
+                "Progress isn't tracked");
+    }
+
+    @Test
+    @Order(0)
+    @DisplayName("Time budget test")
+    public void timeBudgetTest() throws DUOptionReadException {
+        assertEquals(Duration.ZERO, DiskUsageOptions.builder().build().getTimeBudget(), "Time is limited by default");
+        DiskUsageOptions options = DiskUsageOptions.builder()
+                .applyConsoleArgs(new String[]{"--time-budget", "60"})
+                .build();
+        assertEquals(Duration.ofSeconds(60), options.getTimeBudget(), "Wrong time budget");
+        assertThrowsExactly(DUOptionReadException.class,
+                () -> DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--time-budget", "60", "--compact"}).build(),
+                "Input: --time-budget 60 --compact");
+        assertThrows(DUOptionReadException.class,
+                () -> DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--time-budget", "0"}).build(),
+                "Input: --time-budget 0");
+    }
+
+    @Test
+    @Order(0)
+    @DisplayName("Stream output test")
+    public void streamOutputTest() throws DUOptionReadException {
+        assertFalse(DiskUsageOptions.builder().build().isStreamOutput(), "Stream output is enabled by default");
+        DiskUsageOptions options = DiskUsageOptions.builder()
+                .applyConsoleArgs(new String[]{"--stream", "--depth", "3"})
+                .build();
+        assertTrue(options.isStreamOutput(), "Stream output isn't enabled");
+        for (String[] args : new String[][]{
+                {"--stream", "--compact"},
+                {"-s", "--stream"},
+                {"--stream", "--top-files", "3"},
+                {"--stream", "--time-budget", "60"}})
+            assertThrowsExactly(
+                    DUOptionReadException.class,
+                    () -> DiskUsageOptions.builder().applyConsoleArgs(args).build(),
+                    "Input: " + String.join(" ", args));
+    }
+
+    @Test
+    @Order(0)
+    @DisplayName("Retain depth test")
+    public void retainDepthTest() throws DUOptionReadException {
+        DiskUsageOptions options = DiskUsageOptions.builder().build();
+        assertEquals(Integer.MAX_VALUE, options.getRetainDepth(), "Wrong default retain depth");
+        options = DiskUsageOptions.builder().applyConsoleArgs(new String[]{"--fold-hidden", "--depth", "3"}).build();
+        assertEquals(3, options.getRetainDepth(), "Wrong retain depth of folded tree");
+        assertEquals(3, options.getMaxDepth(), "Wrong max depth of folded tree");
+        for (String arg : new String[]{"-s", "--summarize"}) {
+            options = DiskUsageOptions.builder().applyConsoleArgs(new String[]{arg, "--depth", "3"}).build();
+            assertEquals(0, options.getRetainDepth(), "Wrong retain depth of summarized tree");
+            assertEquals(0, options.getMaxDepth(), "Wrong max depth of summarized tree");
+        }
+    }
+
     @Test
     @Order(0)
     @DisplayName("Size format test")
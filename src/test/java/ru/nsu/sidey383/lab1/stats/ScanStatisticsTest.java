@@ -0,0 +1,64 @@
+package ru.nsu.sidey383.lab1.stats;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScanStatisticsTest {
+
+    @Test
+    @DisplayName("Percentiles are rounded up to the end of the power of two bucket")
+    public void histogramTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileNanos(0.5), "Percentile of empty histogram");
+        for (int i = 0; i < 90; i++)
+            histogram.record(100);
+        for (int i = 0; i < 10; i++)
+            histogram.record(5000);
+        histogram.record(0);
+        histogram.record(-1);
+        assertEquals(102, histogram.getCount(), "Wrong count");
+        assertEquals(90 * 100 + 10 * 5000, histogram.getTotalNanos(), "Wrong total");
+        assertEquals(5000, histogram.getMaxNanos(), "Wrong max");
+        assertEquals(127, histogram.getPercentileNanos(0.5), "Wrong median");
+        assertEquals(5000, histogram.getPercentileNanos(0.99), "Percentile is greater than max");
+        assertEquals(0, histogram.getPercentileNanos(0), "Wrong min");
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentileNanos(1.5), "Percentile over 1");
+    }
+
+    @Test
+    @DisplayName("Entries, errors and memory are counted")
+    public void statisticsTest() {
+        ScanStatistics statistics = new ScanStatistics();
+        statistics.walkStarted();
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++)
+            statistics.record(ScanOperation.READ_ATTRIBUTES, start);
+        statistics.record(ScanOperation.REAL_PATH, start);
+        statistics.record(ScanOperation.OPEN_DIRECTORY, start);
+        statistics.updateQueueDepth(3);
+        statistics.updateQueueDepth(1);
+        Path path = Path.of("file");
+        statistics.walkFinished(4, 200, List.of(
+                new DUPathException(path, new AccessDeniedException("file")),
+                new DUPathException(path, new NoSuchFileException("file")),
+                new DUPathException(path, new AccessDeniedException("file"))));
+
+        assertEquals(6, statistics.getEntryCount(), "Wrong entry count");
+        assertEquals(1, statistics.getLatency(ScanOperation.OPEN_DIRECTORY).getCount(), "Wrong directory count");
+        assertEquals(3, statistics.getPeakQueueDepth(), "Wrong peak queue depth");
+        assertEquals(Map.of("AccessDeniedException", 2L, "NoSuchFileException", 1L), statistics.getErrorsByCause(), "Wrong errors");
+        assertTrue(statistics.isRetainedBytesExact(), "Size of the tree is estimated");
+        assertEquals(50.0, statistics.getRetainedBytesPerNode(), "Wrong bytes per node");
+        assertTrue(statistics.getWalkNanos() > 0, "Walk time isn't measured");
+    }
+
+}
@@ -0,0 +1,108 @@
+package ru.nsu.sidey383.lab1.tree.file;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.model.compact.CompactDUFile;
+import ru.nsu.sidey383.lab1.model.compact.CompactFileTree;
+import ru.nsu.sidey383.lab1.model.compact.CompactTreeStorage;
+import ru.nsu.sidey383.lab1.model.file.DUFileType;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFileView;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.options.WalkerMode;
+import ru.nsu.sidey383.lab1.tree.TreeTestFileSystem;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DUCompactFileTreeTest {
+
+    @RegisterExtension
+    public static final TreeTestFileSystem fileSystem = new TreeTestFileSystem();
+
+    @Test
+    @DisplayName("Checking that the compact tree contains the same files as the object tree")
+    public void sameTreeTest() {
+        FileTree expected = FileTree.calculateTree(fileSystem.getRoot(), false);
+        FileTree actual = FileTree.calculateTree(fileSystem.getRoot(),
+                DiskUsageOptions.builder().withCompactTree(true).build());
+        assertFalse(actual.hasErrors(), "Has error in FileTree");
+        assertNotNull(actual.getCompactTree(), "Compact tree wasn't built");
+        assertInstanceOf(CompactDUFile.class, actual.getBaseFile(), "Base file isn't compact");
+        assertEquals(collectFiles(expected.getBaseFile()), collectFiles(actual.getBaseFile()), "Different trees");
+    }
+
+    @Test
+    @DisplayName("Checking the compact tree built by the parallel walker")
+    public void parallelTreeTest() {
+        FileTree expected = FileTree.calculateTree(fileSystem.getRoot(), false);
+        FileTree actual = FileTree.calculateTree(fileSystem.getRoot(),
+                DiskUsageOptions.builder()
+                        .withCompactTree(true)
+                        .withWalkerMode(WalkerMode.FORK_JOIN)
+                        .withThreadCount(4)
+                        .build());
+        assertFalse(actual.hasErrors(), "Has error in FileTree");
+        assertEquals(collectFiles(expected.getBaseFile()), collectFiles(actual.getBaseFile()), "Different trees");
+    }
+
+    @Test
+    @DisplayName("Checking the folded compact tree")
+    public void foldedTreeTest() {
+        FileTree expected = FileTree.calculateTree(fileSystem.getRoot(),
+                DiskUsageOptions.builder().withMaxDepth(1).withFoldHidden(true).build());
+        FileTree actual = FileTree.calculateTree(fileSystem.getRoot(),
+                DiskUsageOptions.builder().withMaxDepth(1).withFoldHidden(true).withCompactTree(true).build());
+        assertEquals(collectFiles(expected.getBaseFile()), collectFiles(actual.getBaseFile()), "Different trees");
+        assertEquals(1 + 5, actual.getCompactTree().getNodeCount(), "Folded files are kept in the compact tree");
+    }
+
+    @Test
+    @DisplayName("Checking a compact tree from a single file")
+    public void fileTreeTest() {
+        for (Path p : fileSystem.getFiles()) {
+            FileTree tree = FileTree.calculateTree(p, DiskUsageOptions.builder().withCompactTree(true).build());
+            assertNotNull(tree.getBaseFile(), "Base file can't be null for correct path");
+            assertEquals(DUFileType.REGULAR_FILE, tree.getBaseFile().getFileType(), "Wrong file type");
+            assertEquals(p, tree.getBaseFile().getPath(), "Wrong path of base file");
+            assertEquals(20, tree.getBaseFile().getSize(), "Wrong size of base file");
+        }
+    }
+
+    @Test
+    @DisplayName("Names across the parts of the name pool are kept")
+    public void namePoolTest() {
+        CompactFileTree tree = new CompactFileTree(Path.of("/root"));
+        int root = tree.addNode(CompactTreeStorage.NO_NODE, DUFileType.DIRECTORY, new byte[]{'r'}, 0);
+        // 255 does not divide the size of a part, so the names cross their borders
+        byte[][] names = new byte[10_000][];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = new byte[255];
+            Arrays.fill(names[i], (byte) ('a' + i % 26));
+            tree.addNode(root, DUFileType.REGULAR_FILE, names[i], i);
+        }
+        for (int i = 0; i < names.length; i++)
+            assertArrayEquals(names[i], tree.getNameBytes(i + 1), "Wrong name of node " + (i + 1));
+    }
+
+    private record FileInfo(DUFileType type, long size) {}
+
+    private static Map<Path, FileInfo> collectFiles(DUFileView root) {
+        Map<Path, FileInfo> files = new HashMap<>();
+        collectFiles(root, files);
+        return files;
+    }
+
+    private static void collectFiles(DUFileView file, Map<Path, FileInfo> files) {
+        assertNull(files.put(file.getPath(), new FileInfo(file.getFileType(), file.getSize())), "File " + file + " visited twice");
+        if (file instanceof ParentDUFileView parent)
+            parent.getChildren().forEach(f -> collectFiles(f, files));
+    }
+
+}
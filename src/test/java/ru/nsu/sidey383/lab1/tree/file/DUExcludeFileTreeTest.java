@@ -0,0 +1,160 @@
+package ru.nsu.sidey383.lab1.tree.file;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.model.compact.SnapshotFileTree;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFileView;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.options.WalkerMode;
+import ru.nsu.sidey383.lab1.walker.DUPathFilter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class DUExcludeFileTreeTest {
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Excluded files and directories aren't counted")
+    public void excludeTest(WalkerMode mode) throws IOException {
+        Path root = createTree();
+        for (boolean compact : new boolean[]{false, true}) {
+            FileTree tree = FileTree.calculateTree(root, options(mode, compact).build());
+            assertFalse(tree.hasErrors(), "Has error in FileTree");
+            assertEquals(Map.of(
+                    root, 50L,
+                    root.resolve("src"), 10L,
+                    root.resolve("src").resolve("Main.java"), 10L,
+                    root.resolve("README"), 40L
+            ), collectSizes(tree.getBaseFile()), "Wrong tree with compact=" + compact);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Excluded files aren't read from the listing of the previous tree")
+    public void excludeIncrementalTest(WalkerMode mode) throws IOException {
+        Path root = createTree();
+        Path snapshotPath = tempDir.resolve("full.snapshot");
+        // the previous tree lists the excluded files too
+        DiskUsageOptions fullOptions = DiskUsageOptions.builder()
+                .withWalkerMode(mode)
+                .withThreadCount(4)
+                .build();
+        SnapshotFileTree.write(FileTree.calculateTree(root, fullOptions).toCompactTree(), snapshotPath);
+        SnapshotFileTree snapshot = SnapshotFileTree.open(snapshotPath);
+
+        DiskUsageOptions options = options(mode, false).build();
+        FileTree tree = FileTree.calculateTree(root, options, snapshot);
+        assertTrue(tree.getReusedDirectoryCount() > 0, "Listings aren't reused");
+        assertEquals(collectSizes(FileTree.calculateTree(root, options).getBaseFile()), collectSizes(tree.getBaseFile()), "Different trees");
+    }
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Filtered listings aren't reused by a walk without the filter")
+    public void filteredSnapshotTest(WalkerMode mode) throws IOException {
+        Path root = createTree();
+        DiskUsageOptions fullOptions = DiskUsageOptions.builder()
+                .withWalkerMode(mode)
+                .withThreadCount(4)
+                .build();
+        Map<Path, Long> expected = collectSizes(FileTree.calculateTree(root, fullOptions).getBaseFile());
+        for (boolean compact : new boolean[]{false, true}) {
+            Path snapshotPath = tempDir.resolve("filtered" + compact + ".snapshot");
+            SnapshotFileTree.write(FileTree.calculateTree(root, options(mode, compact).build()).toCompactTree(), snapshotPath);
+            SnapshotFileTree snapshot = SnapshotFileTree.open(snapshotPath);
+
+            FileTree tree = FileTree.calculateTree(root, fullOptions, snapshot);
+            assertEquals(expected, collectSizes(tree.getBaseFile()), "Filtered listing is reused with compact=" + compact);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("The walk on one file system doesn't skip anything in a single temporary directory")
+    public void sameFileSystemTest(WalkerMode mode) throws IOException {
+        Path root = createTree();
+        DiskUsageOptions options = DiskUsageOptions.builder()
+                .withWalkerMode(mode)
+                .withThreadCount(4)
+                .build();
+        DiskUsageOptions oneFileSystem = DiskUsageOptions.builder()
+                .withWalkerMode(mode)
+                .withThreadCount(4)
+                .withOneFileSystem(true)
+                .build();
+        assertEquals(collectSizes(FileTree.calculateTree(root, options).getBaseFile()),
+                collectSizes(FileTree.calculateTree(root, oneFileSystem).getBaseFile()), "Different trees");
+    }
+
+    @Test
+    @DisplayName("Directory on other device is detected")
+    public void otherFileSystemTest() {
+        Path proc = Path.of("/proc");
+        assumeTrue(Files.isDirectory(proc), "No procfs");
+        DUPathFilter filter = DUPathFilter.create(tempDir, List.of(), true);
+        assertNotNull(filter, "No filter for one file system");
+        DirectoryDUFile directory = assertInstanceOf(DirectoryDUFile.class, DUFile.readFile(proc));
+        assertTrue(filter.isOtherFileSystem(directory), "/proc is on the same file system as " + tempDir);
+        assertTrue(directory.hasFileKey(), "Device of /proc isn't read");
+        // the device is read again for the directory created without the attributes
+        assertTrue(filter.isOtherFileSystem(new DirectoryDUFile(0, proc)), "/proc is on the same file system as " + tempDir);
+        DirectoryDUFile self = assertInstanceOf(DirectoryDUFile.class, DUFile.readFile(tempDir));
+        assertFalse(filter.isOtherFileSystem(self), "Root is on other file system");
+    }
+
+    private static DiskUsageOptions.DiskUsageOptionsBuilder options(WalkerMode mode, boolean compact) {
+        return DiskUsageOptions.builder()
+                .withWalkerMode(mode)
+                .withThreadCount(4)
+                .withCompactTree(compact)
+                .withExcludeGlob(".git")
+                .withExcludeGlob("node_modules")
+                .withExcludeGlob("*.{o,tmp}");
+    }
+
+    private Path createTree() throws IOException {
+        Path root = Files.createDirectory(tempDir.resolve("tree"));
+        Files.createDirectories(root.resolve(".git").resolve("objects"));
+        Files.write(root.resolve(".git").resolve("objects").resolve("pack"), new byte[1000]);
+        Files.createDirectories(root.resolve("node_modules").resolve("lib"));
+        Files.write(root.resolve("node_modules").resolve("lib").resolve("index.js"), new byte[2000]);
+        Files.createDirectory(root.resolve("src"));
+        Files.write(root.resolve("src").resolve("Main.java"), new byte[10]);
+        Files.write(root.resolve("src").resolve("Main.o"), new byte[20]);
+        Files.write(root.resolve("cache.tmp"), new byte[30]);
+        Files.write(root.resolve("README"), new byte[40]);
+        return root;
+    }
+
+    private static Map<Path, Long> collectSizes(DUFileView root) {
+        Map<Path, Long> sizes = new HashMap<>();
+        collectSizes(root, sizes);
+        return sizes;
+    }
+
+    private static void collectSizes(DUFileView file, Map<Path, Long> sizes) {
+        assertNull(sizes.put(file.getPath(), file.getSize()), "File " + file + " visited twice");
+        if (file instanceof ParentDUFileView parent)
+            parent.getChildren().forEach(f -> collectSizes(f, sizes));
+    }
+
+}
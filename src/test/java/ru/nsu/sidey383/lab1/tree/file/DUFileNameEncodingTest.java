@@ -0,0 +1,139 @@
+package ru.nsu.sidey383.lab1.tree.file;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.Main;
+import ru.nsu.sidey383.lab1.model.compact.SnapshotFileTree;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.DUFileType;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFileView;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.options.WalkerMode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Names are created by the shell, because they can't be written as Java strings in every locale
+ * **/
+public class DUFileNameEncodingTest {
+
+    /**
+     * A byte that is invalid in UTF-8 and a Cyrillic name in UTF-8
+     * **/
+    private static final String CREATE_TREE = """
+            mkdir "$(printf 'd\\377')" "$(printf '\\320\\277\\320\\260\\320\\277\\320\\272\\320\\260')"
+            head -c 1000 /dev/zero > "$(printf 'd\\377')/file"
+            head -c 1000 /dev/zero > "$(printf '\\320\\277\\320\\260\\320\\277\\320\\272\\320\\260')/file"
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Files under the names that aren't valid UTF-8 are counted")
+    public void nonUtf8NameTest(WalkerMode mode) throws IOException, InterruptedException {
+        Path root = createTree();
+        for (boolean compact : new boolean[]{false, true}) {
+            DiskUsageOptions options = DiskUsageOptions.builder()
+                    .withWalkerMode(mode)
+                    .withThreadCount(4)
+                    .withCompactTree(compact)
+                    .build();
+            FileTree tree = FileTree.calculateTree(root, options);
+            assertFalse(tree.hasErrors(), "Has errors in FileTree: " + tree.getErrors());
+            assertEquals(2, countFiles(tree.getBaseFile()), "Wrong number of files with compact=" + compact);
+        }
+        FileTree tree = FileTree.calculateTree(root, DiskUsageOptions.builder().build());
+        for (DUFileView child : ((ParentDUFileView) tree.getBaseFile()).getChildren())
+            assertTrue(Files.isDirectory(child.getPath()), "Path " + child.getPath() + " isn't rebuilt");
+    }
+
+    @Test
+    @DisplayName("Paths under the names that aren't valid UTF-8 are restored from the snapshot")
+    public void snapshotTest() throws IOException, InterruptedException {
+        Path root = createTree();
+        for (boolean compact : new boolean[]{false, true}) {
+            FileTree tree = FileTree.calculateTree(root, DiskUsageOptions.builder().withCompactTree(compact).build());
+            Path snapshotPath = tempDir.resolve("tree" + compact + ".snapshot");
+            SnapshotFileTree.write(tree.toCompactTree(), snapshotPath);
+            SnapshotFileTree snapshot = SnapshotFileTree.open(snapshotPath);
+            assertEquals(2, countFiles(snapshot.getRootFile()), "Wrong number of files with compact=" + compact);
+            for (DUFileView child : ((ParentDUFileView) snapshot.getRootFile()).getChildren()) {
+                assertTrue(Files.isDirectory(child.getPath()), "Path " + child.getPath() + " isn't restored");
+                // the root of the snapshot has the name too
+                Path childSnapshotPath = tempDir.resolve("child.snapshot");
+                SnapshotFileTree.write(FileTree.calculateTree(child.getPath(), false).toCompactTree(), childSnapshotPath);
+                assertEquals(child.getPath(), SnapshotFileTree.open(childSnapshotPath).getRootPath(), "Root path isn't restored");
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Listings under the names that aren't valid UTF-8 are reused from the snapshot")
+    public void incrementalTest(WalkerMode mode) throws IOException, InterruptedException {
+        Path root = createTree();
+        DiskUsageOptions options = DiskUsageOptions.builder()
+                .withWalkerMode(mode)
+                .withThreadCount(4)
+                .build();
+        Path snapshotPath = tempDir.resolve("incremental.snapshot");
+        SnapshotFileTree.write(FileTree.calculateTree(root, options).toCompactTree(), snapshotPath);
+
+        FileTree tree = FileTree.calculateTree(root, options, SnapshotFileTree.open(snapshotPath));
+        assertFalse(tree.hasErrors(), "Has errors in FileTree: " + tree.getErrors());
+        assertEquals(3, tree.getReusedDirectoryCount(), "Wrong reused directory count");
+        assertEquals(2, countFiles(tree.getBaseFile()), "Wrong number of files");
+        assertEquals(2000, tree.getBaseFile().getSize(), "Wrong size");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"POSIX", "C.UTF-8"})
+    @DisplayName("The names are printed in a locale with other file name encoding")
+    public void localeTest(String locale) throws IOException, InterruptedException {
+        Path root = createTree();
+        Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+        ProcessBuilder builder = new ProcessBuilder(java.toString(), "-cp", System.getProperty("java.class.path"),
+                Main.class.getName(), root.toString());
+        builder.environment().put("LC_ALL", locale);
+        builder.redirectErrorStream(true);
+        Process process = builder.start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(0, process.waitFor(), "Process failed:\n" + output);
+        assertFalse(output.contains("Exception"), "Scan failed:\n" + output);
+        assertEquals(2, output.lines().filter(line -> line.trim().startsWith("file [")).count(), "Files are missing:\n" + output);
+    }
+
+    private Path createTree() throws IOException, InterruptedException {
+        assumeTrue(Files.isExecutable(Path.of("/bin/sh")), "No shell");
+        Path root = Files.createDirectory(tempDir.resolve("tree"));
+        Process process = new ProcessBuilder("/bin/sh", "-c", CREATE_TREE)
+                .directory(root.toFile())
+                .inheritIO()
+                .start();
+        assumeTrue(process.waitFor() == 0, "Can't create the names");
+        return root;
+    }
+
+    private static int countFiles(DUFileView file) {
+        int count = file.getFileType() == DUFileType.REGULAR_FILE ? 1 : 0;
+        if (file instanceof ParentDUFileView parent)
+            for (DUFileView child : parent.getChildren())
+                count += countFiles(child);
+        return count;
+    }
+
+}
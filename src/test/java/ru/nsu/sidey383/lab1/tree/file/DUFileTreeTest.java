@@ -26,8 +26,8 @@ public class DUFileTreeTest {
         FileTree tree = FileTree.calculateTree(fileSystem.getRoot(), false);
         assertFalse(tree.hasErrors(), "Has error in FileTree");
         assertTrue(tree.getErrors().isEmpty(), "No error, but list of errors not empty");
-        assertNotNull(tree.getBaseFile(), "Base file can't be null for correct path");
-        checkRecursive(tree.getBaseFile());
+        assertNotNull(tree.getRootFile(), "Base file can't be null for correct path");
+        checkRecursive(tree.getRootFile());
     }
 
     private void checkRecursive(DUFile file) {
@@ -45,15 +45,15 @@ public class DUFileTreeTest {
             FileTree tree1 = FileTree.calculateTree(p, true);
             assertFalse(tree1.hasErrors(), "Has error in FileTree");
             assertTrue(tree1.getErrors().isEmpty(), "No error, but list of errors not empty");
-            assertNotNull(tree1.getBaseFile(), "Base file can't be null for correct path");
-            assertTrue(tree1.getBaseFile().getParent().isEmpty(), "Parent of base file not empty");
-            assertEquals(DUFileType.REGULAR_FILE, tree1.getBaseFile().getFileType(), "Wrong file type");
+            assertNotNull(tree1.getRootFile(), "Base file can't be null for correct path");
+            assertTrue(tree1.getRootFile().getParent().isEmpty(), "Parent of base file not empty");
+            assertEquals(DUFileType.REGULAR_FILE, tree1.getRootFile().getFileType(), "Wrong file type");
             FileTree tree2 = FileTree.calculateTree(p, false);
             assertFalse(tree2.hasErrors(), "Has error in FileTree");
             assertTrue(tree2.getErrors().isEmpty(), "No error, but list of errors not empty");
-            assertNotNull(tree2.getBaseFile(), "Base file can't be null for correct path");
-            assertTrue(tree2.getBaseFile().getParent().isEmpty(), "Parent of base file not empty");
-            assertEquals(DUFileType.REGULAR_FILE, tree2.getBaseFile().getFileType(), "Wrong file type");
+            assertNotNull(tree2.getRootFile(), "Base file can't be null for correct path");
+            assertTrue(tree2.getRootFile().getParent().isEmpty(), "Parent of base file not empty");
+            assertEquals(DUFileType.REGULAR_FILE, tree2.getRootFile().getFileType(), "Wrong file type");
         }
     }
 
@@ -64,9 +64,9 @@ public class DUFileTreeTest {
             FileTree tree1 = FileTree.calculateTree(p, false);
             assertFalse(tree1.hasErrors(), "Has error in FileTree");
             assertTrue(tree1.getErrors().isEmpty(), "No error, but list of errors not empty");
-            assertNotNull(tree1.getBaseFile(), "Base file can't be null for correct path");
-            assertEquals(DUFileType.LINK, tree1.getBaseFile().getFileType(), "Wrong file type");
-            if (tree1.getBaseFile() instanceof ParentDUFile parentDUFile) {
+            assertNotNull(tree1.getRootFile(), "Base file can't be null for correct path");
+            assertEquals(DUFileType.LINK, tree1.getRootFile().getFileType(), "Wrong file type");
+            if (tree1.getRootFile() instanceof ParentDUFile parentDUFile) {
                 if (!parentDUFile.getChildren().isEmpty()) {
                     fail("Children of the link to are empty, but the followLink parameter was set to false");
                 }
@@ -76,9 +76,9 @@ public class DUFileTreeTest {
             FileTree tree2 = FileTree.calculateTree(p, true);
             assertFalse(tree2.hasErrors(), "Has error in FileTree");
             assertTrue(tree2.getErrors().isEmpty(), "No error, but list of errors not empty");
-            assertNotNull(tree2.getBaseFile(), "Base file can't be null for correct path");
-            assertEquals(DUFileType.LINK, tree2.getBaseFile().getFileType(), "Wrong file type");
-            checkCyclical(tree2.getBaseFile(), new HashSet<>());
+            assertNotNull(tree2.getRootFile(), "Base file can't be null for correct path");
+            assertEquals(DUFileType.LINK, tree2.getRootFile().getFileType(), "Wrong file type");
+            checkCyclical(tree2.getRootFile(), new HashSet<>());
         }
     }
 
@@ -98,22 +98,22 @@ public class DUFileTreeTest {
             FileTree tree1 = FileTree.calculateTree(p, false);
             assertFalse(tree1.hasErrors(), "Has error in FileTree " + p);
             assertTrue(tree1.getErrors().isEmpty(), "No error, but list of errors not empty " + p);
-            assertNotNull(tree1.getBaseFile(), "Base file can't be null for correct path " + p);
-            assertEquals(DUFileType.DIRECTORY, tree1.getBaseFile().getFileType(), "Wrong file type " + tree1.getBaseFile());
-            if (tree1.getBaseFile() instanceof ParentDUFile parentDUFile) {
-                assertEquals(0, parentDUFile.getChildren().size(), "Empty folder has children " + tree1.getBaseFile());
+            assertNotNull(tree1.getRootFile(), "Base file can't be null for correct path " + p);
+            assertEquals(DUFileType.DIRECTORY, tree1.getRootFile().getFileType(), "Wrong file type " + tree1.getRootFile());
+            if (tree1.getRootFile() instanceof ParentDUFile parentDUFile) {
+                assertEquals(0, parentDUFile.getChildren().size(), "Empty folder has children " + tree1.getRootFile());
             } else {
-                fail("Directory " + tree1.getBaseFile() + " not instance of ParentDUFile");
+                fail("Directory " + tree1.getRootFile() + " not instance of ParentDUFile");
             }
             FileTree tree2 = FileTree.calculateTree(p, true);
             assertFalse(tree2.hasErrors(), "Has error in FileTree " + p);
             assertTrue(tree2.getErrors().isEmpty(), "No error, but list of errors not empty " + p);
-            assertNotNull(tree2.getBaseFile(), "Base file can't be null for correct path " + p);
-            assertEquals(DUFileType.DIRECTORY, tree2.getBaseFile().getFileType(), "Wrong file type " + tree1.getBaseFile());
-            if (tree2.getBaseFile() instanceof ParentDUFile parentDUFile) {
-                assertEquals(0, parentDUFile.getChildren().size(), "Empty folder has children " + tree1.getBaseFile());
+            assertNotNull(tree2.getRootFile(), "Base file can't be null for correct path " + p);
+            assertEquals(DUFileType.DIRECTORY, tree2.getRootFile().getFileType(), "Wrong file type " + tree1.getRootFile());
+            if (tree2.getRootFile() instanceof ParentDUFile parentDUFile) {
+                assertEquals(0, parentDUFile.getChildren().size(), "Empty folder has children " + tree1.getRootFile());
             } else {
-                fail("Directory " + tree2.getBaseFile() + " not instance of ParentDUFile");
+                fail("Directory " + tree2.getRootFile() + " not instance of ParentDUFile");
             }
         }
     }
@@ -0,0 +1,65 @@
+package ru.nsu.sidey383.lab1.tree.file;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.model.file.UnixFileAttributes;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFileView;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.options.WalkerMode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DUHardLinkFileTreeTest {
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Hard links of one file are counted once")
+    public void hardLinkTest(WalkerMode mode) throws IOException {
+        Assumptions.assumeTrue(UnixFileAttributes.isSupported(tempDir), "File system doesn't support unix attributes");
+        Path root = Files.createDirectory(tempDir.resolve("tree"));
+        Path a = Files.createDirectory(root.resolve("a"));
+        Path b = Files.createDirectory(root.resolve("b"));
+        Files.write(a.resolve("file"), new byte[1000]);
+        Files.createLink(a.resolve("link"), a.resolve("file"));
+        Files.createLink(b.resolve("link"), a.resolve("file"));
+        Files.write(b.resolve("single"), new byte[10]);
+
+        for (boolean compact : new boolean[]{false, true}) {
+            DiskUsageOptions.DiskUsageOptionsBuilder builder = DiskUsageOptions.builder()
+                    .withWalkerMode(mode)
+                    .withThreadCount(4)
+                    .withCompactTree(compact);
+            FileTree tree = FileTree.calculateTree(root, builder.build());
+            assertEquals(3010, tree.getBaseFile().getSize(), "Hard links are counted once without the option");
+            assertEquals(4, countFiles(tree.getBaseFile()), "Hard links are lost without the option");
+
+            tree = FileTree.calculateTree(root, builder.withDedupHardLinks(true).build());
+            assertFalse(tree.hasErrors(), "Has error in FileTree");
+            assertEquals(1010, tree.getBaseFile().getSize(), "Hard links are counted several times");
+            assertEquals(2, countFiles(tree.getBaseFile()), "Repeated hard links are kept in the tree");
+        }
+    }
+
+    private static int countFiles(DUFileView file) {
+        int count = 0;
+        if (file instanceof ParentDUFileView parent)
+            for (DUFileView child : parent.getChildren())
+                count += countFiles(child);
+        else
+            count++;
+        return count;
+    }
+
+}
@@ -0,0 +1,211 @@
+package ru.nsu.sidey383.lab1.tree.file;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.model.compact.CompactTreeStorage;
+import ru.nsu.sidey383.lab1.model.compact.SnapshotFileTree;
+import ru.nsu.sidey383.lab1.model.file.DUFileType;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFileView;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.options.WalkerMode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DUIncrementalFileTreeTest {
+
+    private static final FileTime SAVED_TIME = FileTime.fromMillis(1_000_000_000_000L);
+
+    private static final FileTime CHANGED_TIME = FileTime.fromMillis(1_100_000_000_000L);
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Unchanged directories are taken from the snapshot")
+    public void unchangedTreeTest(WalkerMode mode) throws IOException {
+        Path root = createTree();
+        for (boolean compact : new boolean[]{false, true}) {
+            DiskUsageOptions options = options(mode, compact);
+            SnapshotFileTree snapshot = saveSnapshot(FileTree.calculateTree(root, options), "unchanged" + compact);
+
+            FileTree tree = FileTree.calculateTree(root, options, snapshot);
+            assertEquals(4, tree.getReusedDirectoryCount(), "Wrong reused directory count");
+            assertEquals(collectFiles(snapshot.getRootFile()), collectFiles(tree.getBaseFile()), "Different trees");
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Changed directory is listed again")
+    public void changedDirectoryTest(WalkerMode mode) throws IOException {
+        Path root = createTree();
+        DiskUsageOptions options = options(mode, false);
+        SnapshotFileTree snapshot = saveSnapshot(FileTree.calculateTree(root, options), "changed");
+
+        Files.write(root.resolve("a").resolve("new"), new byte[100]);
+        Files.setLastModifiedTime(root.resolve("a"), CHANGED_TIME);
+        FileTree tree = FileTree.calculateTree(root, options, snapshot);
+        assertEquals(3, tree.getReusedDirectoryCount(), "Wrong reused directory count");
+        Map<String, FileInfo> files = collectFiles(tree.getBaseFile());
+        assertTrue(files.containsKey(root.resolve("a").resolve("new").toString()), "New file is lost");
+        assertEquals(collectFiles(FileTree.calculateTree(root, options).getBaseFile()), files, "Different trees");
+    }
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Directory with the restored modified time is listed again")
+    public void changeTimeTest(WalkerMode mode) throws IOException, InterruptedException {
+        Path root = createTree();
+        // the change times of the directories are read for the saved snapshot
+        DiskUsageOptions options = DiskUsageOptions.builder()
+                .withWalkerMode(mode)
+                .withThreadCount(4)
+                .withSaveSnapshotPath(tempDir.resolve("ctime.snapshot"))
+                .build();
+        SnapshotFileTree snapshot = saveSnapshot(FileTree.calculateTree(root, options), "ctime");
+        assertNotEquals(CompactTreeStorage.NO_TIME, snapshot.getChangeTime(findNode(snapshot, Path.of("a"))), "Change time isn't saved");
+
+        // the change time is taken from a coarse clock
+        Thread.sleep(50);
+        Files.write(root.resolve("a").resolve("new"), new byte[100]);
+        Files.setLastModifiedTime(root.resolve("a"), SAVED_TIME);
+        FileTree tree = FileTree.calculateTree(root, options, snapshot);
+        assertEquals(3, tree.getReusedDirectoryCount(), "Wrong reused directory count");
+        Map<String, FileInfo> files = collectFiles(tree.getBaseFile());
+        assertTrue(files.containsKey(root.resolve("a").resolve("new").toString()), "New file is lost");
+    }
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Changed file in unchanged directory is read again")
+    public void changedFileTest(WalkerMode mode) throws IOException {
+        Path root = createTree();
+        DiskUsageOptions options = options(mode, false);
+        SnapshotFileTree snapshot = saveSnapshot(FileTree.calculateTree(root, options), "file");
+
+        // the directory isn't changed by the rewrite of its file
+        Files.write(root.resolve("a").resolve("b").resolve("file2"), new byte[5000]);
+        FileTree tree = FileTree.calculateTree(root, options, snapshot);
+        assertEquals(4, tree.getReusedDirectoryCount(), "Wrong reused directory count");
+        assertEquals(collectFiles(FileTree.calculateTree(root, options).getBaseFile()), collectFiles(tree.getBaseFile()), "Different trees");
+    }
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Directory that can't be opened and its parent are saved without time")
+    public void openErrorTest(WalkerMode mode) throws IOException, InterruptedException {
+        Path parent = createLongPath();
+        // the directory is read relative to its parent, but its own path is too long to open it
+        String name = "unopenable";
+        run(parent, "mkdir", name);
+        try {
+            for (boolean compact : new boolean[]{false, true}) {
+                FileTree tree = FileTree.calculateTree(tempDir, options(mode, compact));
+                assertTrue(tree.hasErrors(), "The directory is opened");
+                SnapshotFileTree snapshot = saveSnapshot(tree, "error" + compact);
+                int parentNode = findNode(snapshot, tempDir.relativize(parent));
+                assertEquals(CompactTreeStorage.NO_TIME, snapshot.getModifiedTime(parentNode), "Parent time is saved with compact=" + compact);
+                int node = findChild(snapshot, parentNode, name);
+                if (node != CompactTreeStorage.NO_NODE)
+                    assertEquals(CompactTreeStorage.NO_TIME, snapshot.getModifiedTime(node), "Directory time is saved with compact=" + compact);
+                assertNotEquals(CompactTreeStorage.NO_TIME, snapshot.getModifiedTime(0), "Time of the root is lost");
+            }
+        } finally {
+            // the temporary directory can't be deleted by the absolute path
+            run(parent, "rmdir", name);
+        }
+    }
+
+    private static DiskUsageOptions options(WalkerMode mode, boolean compact) {
+        return DiskUsageOptions.builder()
+                .withWalkerMode(mode)
+                .withThreadCount(4)
+                .withCompactTree(compact)
+                .build();
+    }
+
+    private SnapshotFileTree saveSnapshot(FileTree tree, String name) throws IOException {
+        Path snapshotPath = tempDir.resolve(name + ".snapshot");
+        SnapshotFileTree.write(tree.toCompactTree(), snapshotPath);
+        return SnapshotFileTree.open(snapshotPath);
+    }
+
+    /**
+     * Directory times are fixed, so the test doesn't depend on the file system time granularity
+     * **/
+    private Path createTree() throws IOException {
+        Path root = Files.createDirectory(tempDir.resolve("tree"));
+        Files.createDirectories(root.resolve("a").resolve("b"));
+        Files.createDirectory(root.resolve("c"));
+        Files.write(root.resolve("a").resolve("file1"), new byte[10]);
+        Files.write(root.resolve("a").resolve("b").resolve("file2"), new byte[20]);
+        Files.write(root.resolve("c").resolve("file3"), new byte[30]);
+        Files.write(root.resolve("file4"), new byte[40]);
+        setTimes(root);
+        return root;
+    }
+
+    /**
+     * @return directory, whose path is a bit shorter than PATH_MAX
+     * **/
+    private Path createLongPath() throws IOException {
+        Path path = tempDir;
+        while (path.toString().length() < 4090 - 256)
+            path = Files.createDirectory(path.resolve("d".repeat(200)));
+        return Files.createDirectory(path.resolve("d".repeat(4090 - path.toString().length() - 1)));
+    }
+
+    private static void run(Path directory, String... command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).directory(directory.toFile()).inheritIO().start();
+        assertEquals(0, process.waitFor(), "Failed " + String.join(" ", command));
+    }
+
+    private static int findNode(CompactTreeStorage tree, Path relative) {
+        int node = 0;
+        for (Path name : relative) {
+            node = findChild(tree, node, name.toString());
+            assertNotEquals(CompactTreeStorage.NO_NODE, node, "No node " + relative);
+        }
+        return node;
+    }
+
+    private static int findChild(CompactTreeStorage tree, int node, String name) {
+        for (int child = tree.getFirstChild(node); child != CompactTreeStorage.NO_NODE; child = tree.getNextSibling(child))
+            if (tree.getName(child).equals(name))
+                return child;
+        return CompactTreeStorage.NO_NODE;
+    }
+
+    private static void setTimes(Path root) throws IOException {
+        for (Path dir : List.of(root, root.resolve("a"), root.resolve("a").resolve("b"), root.resolve("c")))
+            Files.setLastModifiedTime(dir, SAVED_TIME);
+    }
+
+    private record FileInfo(DUFileType type, long size) {}
+
+    private static Map<String, FileInfo> collectFiles(DUFileView root) {
+        Map<String, FileInfo> files = new HashMap<>();
+        collectFiles(root, files);
+        return files;
+    }
+
+    private static void collectFiles(DUFileView file, Map<String, FileInfo> files) {
+        assertNull(files.put(file.getPath().toString(), new FileInfo(file.getFileType(), file.getSize())), "File " + file + " visited twice");
+        if (file instanceof ParentDUFileView parent)
+            parent.getChildren().forEach(f -> collectFiles(f, files));
+    }
+
+}
@@ -0,0 +1,64 @@
+package ru.nsu.sidey383.lab1.tree.file;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.model.file.UnixFileAttributes;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFileView;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.options.WalkerMode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DULinkTargetFileTreeTest {
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Directory reached by several links is walked once")
+    public void linkTargetTest(WalkerMode mode) throws IOException {
+        Assumptions.assumeTrue(UnixFileAttributes.isSupported(tempDir), "File system doesn't support unix attributes");
+        Path data = Files.createDirectory(tempDir.resolve("data"));
+        Files.write(data.resolve("file"), new byte[100]);
+        Path root = Files.createDirectory(tempDir.resolve("tree"));
+        for (String name : new String[]{"first", "second", "third"})
+            Files.createSymbolicLink(root.resolve(name), data);
+        // loops to the target itself and to the root
+        Files.createSymbolicLink(data.resolve("self"), data);
+        Files.createSymbolicLink(data.resolve("up"), root);
+
+        for (boolean compact : new boolean[]{false, true}) {
+            DiskUsageOptions options = DiskUsageOptions.builder()
+                    .withWalkerMode(mode)
+                    .withThreadCount(4)
+                    .withFollowLinks(true)
+                    .withCompactTree(compact)
+                    .build();
+            FileTree tree = FileTree.calculateTree(root, options);
+            assertFalse(tree.hasErrors(), "Has error in FileTree");
+            assertEquals(1, count(tree.getBaseFile(), Path.of("file")), "Wrong number of walks of the target with compact=" + compact);
+        }
+    }
+
+    /**
+     * The compact tree builds the paths from the names, so the files are compared by name
+     * **/
+    private static int count(DUFileView file, Path name) {
+        int count = name.equals(file.getPath().getFileName()) ? 1 : 0;
+        if (file instanceof ParentDUFileView parent)
+            for (DUFileView child : parent.getChildren())
+                count += count(child, name);
+        return count;
+    }
+
+}
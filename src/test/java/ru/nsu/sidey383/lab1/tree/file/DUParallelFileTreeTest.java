@@ -0,0 +1,70 @@
+package ru.nsu.sidey383.lab1.tree.file;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFileView;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.options.WalkerMode;
+import ru.nsu.sidey383.lab1.tree.TreeTestFileSystem;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DUParallelFileTreeTest {
+
+    @RegisterExtension
+    public static final TreeTestFileSystem fileSystem = new TreeTestFileSystem();
+
+    @Test
+    @DisplayName("Checking that the parallel walker builds the same tree as the sequential one")
+    public void sameTreeTest() {
+        FileTree expected = FileTree.calculateTree(fileSystem.getRoot(), false);
+        for (int threads = 2; threads <= 8; threads *= 2) {
+            FileTree actual = FileTree.calculateTree(fileSystem.getRoot(),
+                    DiskUsageOptions.builder()
+                            .withWalkerMode(WalkerMode.FORK_JOIN)
+                            .withThreadCount(threads)
+                            .build());
+            assertFalse(actual.hasErrors(), "Has error in FileTree");
+            assertNotNull(actual.getBaseFile(), "Base file can't be null for correct path");
+            assertEquals(collectSizes(expected.getBaseFile()), collectSizes(actual.getBaseFile()),
+                    "Different trees for " + threads + " threads");
+        }
+    }
+
+    @Test
+    @DisplayName("Checking that the virtual thread walker builds the same tree as the sequential one")
+    public void sameTreeVirtualThreadsTest() {
+        FileTree expected = FileTree.calculateTree(fileSystem.getRoot(), false);
+        for (int stats = 1; stats <= 64; stats *= 4) {
+            FileTree actual = FileTree.calculateTree(fileSystem.getRoot(),
+                    DiskUsageOptions.builder()
+                            .withWalkerMode(WalkerMode.VIRTUAL_THREADS)
+                            .withMaxConcurrentStats(stats)
+                            .build());
+            assertFalse(actual.hasErrors(), "Has error in FileTree");
+            assertNotNull(actual.getBaseFile(), "Base file can't be null for correct path");
+            assertEquals(collectSizes(expected.getBaseFile()), collectSizes(actual.getBaseFile()),
+                    "Different trees for " + stats + " concurrent stats");
+        }
+    }
+
+    private static Map<Path, Long> collectSizes(DUFileView root) {
+        Map<Path, Long> sizes = new HashMap<>();
+        collectSizes(root, sizes);
+        return sizes;
+    }
+
+    private static void collectSizes(DUFileView file, Map<Path, Long> sizes) {
+        assertNull(sizes.put(file.getPath(), file.getSize()), "File " + file + " visited twice");
+        if (file instanceof ParentDUFileView parent)
+            parent.getChildren().forEach(f -> collectSizes(f, sizes));
+    }
+
+}
@@ -0,0 +1,104 @@
+package ru.nsu.sidey383.lab1.tree.file;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFileView;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.options.WalkerMode;
+import ru.nsu.sidey383.lab1.stats.ScanProgress;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DUProgressFileTreeTest {
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Progress counts the walked files and is registered only during the walk")
+    public void progressTest(WalkerMode mode) throws IOException, MalformedObjectNameException {
+        Path root = createTree();
+        ObjectName pattern = new ObjectName("ru.nsu.sidey383.jdu:type=ScanProgress,*");
+        DiskUsageOptions options = DiskUsageOptions.builder()
+                .withWalkerMode(mode)
+                .withThreadCount(4)
+                .build();
+        ScanProgress progress = new ScanProgress();
+        AtomicInteger registered = new AtomicInteger();
+        FileTree tree = FileTree.calculateTree(root, options, null,
+                subtree -> registered.set(ManagementFactory.getPlatformMBeanServer().queryNames(pattern, null).size()),
+                progress);
+
+        assertFalse(tree.hasErrors(), "Has error in FileTree");
+        assertEquals(1, registered.get(), "Progress isn't registered during the walk");
+        assertTrue(ManagementFactory.getPlatformMBeanServer().queryNames(pattern, null).isEmpty(), "Progress is registered after the walk");
+        assertEquals(count(tree.getBaseFile()), progress.getEntriesVisited(), "Wrong entry count");
+        assertEquals(tree.getBaseFile().getSize(), progress.getBytesAccounted(), "Wrong size");
+        assertEquals(0, progress.getOpenDirectories(), "Directories are open after the walk");
+        assertFalse(progress.getCurrentPath().isEmpty(), "No current path");
+    }
+
+    @Test
+    @DisplayName("Progress is registered without the progress option")
+    public void registeredByDefaultTest() throws IOException, MalformedObjectNameException {
+        Path root = createTree();
+        ObjectName pattern = new ObjectName("ru.nsu.sidey383.jdu:type=ScanProgress,*");
+        AtomicInteger registered = new AtomicInteger();
+        FileTree.calculateTree(root, DiskUsageOptions.builder().build(), null,
+                subtree -> registered.set(ManagementFactory.getPlatformMBeanServer().queryNames(pattern, null).size()));
+
+        assertEquals(1, registered.get(), "Progress isn't registered during the walk");
+        assertTrue(ManagementFactory.getPlatformMBeanServer().queryNames(pattern, null).isEmpty(), "Progress is registered after the walk");
+    }
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Size of the previous tree is expected")
+    public void expectedBytesTest(WalkerMode mode) throws IOException {
+        Path root = createTree();
+        DiskUsageOptions options = DiskUsageOptions.builder()
+                .withWalkerMode(mode)
+                .withThreadCount(4)
+                .build();
+        FileTree previous = FileTree.calculateTree(root, options);
+        Files.write(root.resolve("new"), new byte[500]);
+        ScanProgress progress = new ScanProgress();
+        FileTree.calculateTree(root, options, previous.toCompactTree(), null, progress);
+
+        assertEquals(previous.getBaseFile().getSize(), progress.getExpectedBytes(), "Wrong expected size");
+        assertEquals(-1, progress.getEtaSeconds(), "Time is left after the walk");
+    }
+
+    private Path createTree() throws IOException {
+        Path root = Files.createDirectory(tempDir.resolve("tree"));
+        Path src = Files.createDirectories(root.resolve("src").resolve("main"));
+        Files.write(src.resolve("Main.java"), new byte[100]);
+        Files.write(root.resolve("src").resolve("build.gradle"), new byte[200]);
+        Files.createDirectory(root.resolve("empty"));
+        Files.write(root.resolve("README"), new byte[300]);
+        return root;
+    }
+
+    private static long count(DUFileView file) {
+        long count = 1;
+        if (file instanceof ParentDUFileView parent)
+            for (DUFileView child : parent.getChildren())
+                count += count(child);
+        return count;
+    }
+
+}
@@ -0,0 +1,155 @@
+package ru.nsu.sidey383.lab1.tree.file;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.model.compact.SnapshotFileTree;
+import ru.nsu.sidey383.lab1.model.file.DUFileType;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFileView;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.tree.TreeTestFileSystem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DUSnapshotFileTreeTest {
+
+    @RegisterExtension
+    public static final TreeTestFileSystem fileSystem = new TreeTestFileSystem();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Snapshot of the object tree contains the same files")
+    public void objectTreeSnapshotTest() throws IOException {
+        FileTree tree = FileTree.calculateTree(fileSystem.getRoot(), false);
+        Path snapshotPath = tempDir.resolve("objects.snapshot");
+        SnapshotFileTree.write(tree.toCompactTree(), snapshotPath);
+        SnapshotFileTree snapshot = SnapshotFileTree.open(snapshotPath);
+        assertEquals(collectFiles(tree.getBaseFile()), collectFiles(snapshot.getRootFile()), "Different trees");
+    }
+
+    @Test
+    @DisplayName("Snapshot of the compact tree contains the same files")
+    public void compactTreeSnapshotTest() throws IOException {
+        FileTree tree = FileTree.calculateTree(fileSystem.getRoot(), DiskUsageOptions.builder().withCompactTree(true).build());
+        Path snapshotPath = tempDir.resolve("compact.snapshot");
+        SnapshotFileTree.write(tree.toCompactTree(), snapshotPath);
+        SnapshotFileTree snapshot = SnapshotFileTree.open(snapshotPath);
+        assertEquals(tree.getCompactTree().getNodeCount(), snapshot.getNodeCount(), "Wrong node count");
+        assertEquals(collectFiles(tree.getBaseFile()), collectFiles(snapshot.getRootFile()), "Different trees");
+    }
+
+    @Test
+    @DisplayName("Not a snapshot file is rejected")
+    public void wrongFileTest() throws IOException {
+        Path wrongPath = tempDir.resolve("wrong.snapshot");
+        Files.write(wrongPath, new byte[64]);
+        assertThrows(IOException.class, () -> SnapshotFileTree.open(wrongPath), "Wrong snapshot is opened");
+        Path shortPath = tempDir.resolve("short.snapshot");
+        Files.write(shortPath, new byte[3]);
+        assertThrows(IOException.class, () -> SnapshotFileTree.open(shortPath), "Truncated snapshot is opened");
+    }
+
+    @Test
+    @DisplayName("Snapshot with wrong sections is rejected on open")
+    public void corruptedSnapshotTest() throws IOException {
+        byte[] valid = writeSnapshot();
+        assertRejected(Arrays.copyOf(valid, valid.length + 1), "Snapshot with trailing bytes is opened");
+        assertRejected(Arrays.copyOf(valid, valid.length - 1), "Truncated snapshot is opened");
+        assertRejected(withInt(valid, 4, 1), "Snapshot of the old version is opened");
+        assertRejected(withInt(valid, 8, Integer.MAX_VALUE), "Snapshot with wrong node count is opened");
+    }
+
+    @Test
+    @DisplayName("Snapshot with wrong node indexes fails on the access to the node")
+    public void corruptedNodeTest() throws IOException {
+        byte[] valid = writeSnapshot();
+        ByteBuffer header = ByteBuffer.wrap(valid).order(ByteOrder.LITTLE_ENDIAN);
+        int count = header.getInt(8);
+        // header, root path, sizes, modified and change times
+        int parents = align(align(align(align(24 + header.getInt(12)) + 8 * count) + 8 * count) + 8 * count);
+        int firstChildren = align(parents + 4 * count);
+        int nextSiblings = align(firstChildren + 4 * count);
+        int nameOffsets = align(nextSiblings + 4 * count);
+        int types = align(nameOffsets + 8 * (count + 1));
+        int directory = 1;
+        while (valid[types + directory] != DUFileType.DIRECTORY.ordinal())
+            directory++;
+        // the last node is a leaf
+        int leaf = count - 1;
+
+        assertBroken(withInt(valid, parents + 4, count), "Wrong parent is read");
+        assertBroken(withInt(valid, firstChildren, -2), "Wrong child is read");
+        assertBroken(withInt(valid, firstChildren + 4 * directory, 0), "Cycle through the child is walked");
+        assertBroken(withInt(valid, nextSiblings + 4 * leaf, leaf), "Cycle through the sibling is walked");
+        assertBroken(withLong(valid, nameOffsets + 8 * count, Long.MAX_VALUE), "Wrong name offset is read");
+    }
+
+    private byte[] writeSnapshot() throws IOException {
+        FileTree tree = FileTree.calculateTree(fileSystem.getRoot(), false);
+        Path snapshotPath = tempDir.resolve("valid.snapshot");
+        SnapshotFileTree.write(tree.toCompactTree(), snapshotPath);
+        return Files.readAllBytes(snapshotPath);
+    }
+
+    private void assertRejected(byte[] snapshot, String message) throws IOException {
+        Path path = tempDir.resolve("corrupted.snapshot");
+        Files.write(path, snapshot);
+        assertThrows(IOException.class, () -> SnapshotFileTree.open(path), message);
+    }
+
+    private void assertBroken(byte[] snapshot, String message) throws IOException {
+        Path path = tempDir.resolve("corrupted.snapshot");
+        Files.write(path, snapshot);
+        SnapshotFileTree tree = SnapshotFileTree.open(path);
+        assertThrows(UncheckedIOException.class, () -> collectFiles(tree.getRootFile()), message);
+    }
+
+    private static byte[] withInt(byte[] snapshot, int offset, int value) {
+        byte[] copy = snapshot.clone();
+        ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN).putInt(offset, value);
+        return copy;
+    }
+
+    private static byte[] withLong(byte[] snapshot, int offset, long value) {
+        byte[] copy = snapshot.clone();
+        ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN).putLong(offset, value);
+        return copy;
+    }
+
+    private static int align(int offset) {
+        return (offset + 7) & ~7;
+    }
+
+    private record FileInfo(DUFileType type, long size) {}
+
+    /**
+     * Paths are compared as strings, because the snapshot root is restored in the default file system
+     * **/
+    private static Map<String, FileInfo> collectFiles(DUFileView root) {
+        Map<String, FileInfo> files = new HashMap<>();
+        collectFiles(root, files);
+        return files;
+    }
+
+    private static void collectFiles(DUFileView file, Map<String, FileInfo> files) {
+        assertNull(files.put(file.getPath().toString(), new FileInfo(file.getFileType(), file.getSize())), "File " + file + " visited twice");
+        if (file instanceof ParentDUFileView parent)
+            parent.getChildren().forEach(f -> collectFiles(f, files));
+    }
+
+}
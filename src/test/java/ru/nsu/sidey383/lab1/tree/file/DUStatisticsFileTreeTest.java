@@ -0,0 +1,79 @@
+package ru.nsu.sidey383.lab1.tree.file;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFileView;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.options.WalkerMode;
+import ru.nsu.sidey383.lab1.stats.ScanOperation;
+import ru.nsu.sidey383.lab1.stats.ScanStatistics;
+import ru.nsu.sidey383.lab1.tree.TreeTestFileSystem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DUStatisticsFileTreeTest {
+
+    @RegisterExtension
+    public static final TreeTestFileSystem fileSystem = new TreeTestFileSystem();
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Every read entry and opened directory is counted")
+    public void statisticsTest(WalkerMode mode) {
+        DiskUsageOptions.DiskUsageOptionsBuilder builder = DiskUsageOptions.builder()
+                .withWalkerMode(mode)
+                .withThreadCount(4);
+        FileTree expected = FileTree.calculateTree(fileSystem.getRoot(), builder.build());
+        assertNull(expected.getStatistics(), "Statistics without the option");
+        long nodes = countNodes(expected.getBaseFile());
+        long directories = countDirectories(expected.getBaseFile());
+
+        for (boolean compact : new boolean[]{false, true}) {
+            FileTree tree = FileTree.calculateTree(fileSystem.getRoot(), builder.withStatistics(true).withCompactTree(compact).build());
+            ScanStatistics statistics = tree.getStatistics();
+            assertNotNull(statistics, "No statistics with compact=" + compact);
+            // the root isn't an entry of a directory
+            assertEquals(nodes - 1, statistics.getEntryCount(), "Wrong entry count with compact=" + compact);
+            assertEquals(nodes, statistics.getNodeCount(), "Wrong node count with compact=" + compact);
+            assertEquals(directories, statistics.getLatency(ScanOperation.OPEN_DIRECTORY).getCount(), "Wrong directory count with compact=" + compact);
+            assertTrue(statistics.getLatency(ScanOperation.BUILD_TREE).getCount() >= nodes, "Visitor calls aren't counted with compact=" + compact);
+            assertEquals(compact, statistics.isRetainedBytesExact(), "Wrong kind of memory estimate with compact=" + compact);
+            assertTrue(statistics.getErrorsByCause().isEmpty(), "Has errors with compact=" + compact);
+            if (mode == WalkerMode.SEQUENTIAL)
+                assertTrue(statistics.getPeakQueueDepth() > 1, "Queue depth isn't counted with compact=" + compact);
+
+            ByteArrayOutputStream report = new ByteArrayOutputStream();
+            statistics.printReport(new PrintStream(report, true, StandardCharsets.UTF_8));
+            for (ScanOperation operation : ScanOperation.values())
+                assertTrue(report.toString(StandardCharsets.UTF_8).contains(operation.getDisplayName()), "No " + operation + " in report");
+        }
+    }
+
+    private static long countNodes(DUFileView file) {
+        long count = 1;
+        if (file instanceof ParentDUFileView parent)
+            for (DUFileView child : parent.getChildren())
+                count += countNodes(child);
+        return count;
+    }
+
+    private static long countDirectories(DUFileView file) {
+        if (!(file instanceof DirectoryDUFile directory))
+            return 0;
+        long count = 1;
+        for (DUFile child : directory.getChildren())
+            count += countDirectories(child);
+        return count;
+    }
+
+}
@@ -0,0 +1,87 @@
+package ru.nsu.sidey383.lab1.tree.file;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.options.WalkerMode;
+import ru.nsu.sidey383.lab1.tree.TreeTestFileSystem;
+import ru.nsu.sidey383.lab1.write.FileTreePrinter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DUStreamFileTreeTest {
+
+    @RegisterExtension
+    public static final TreeTestFileSystem fileSystem = new TreeTestFileSystem();
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Every child of the root is passed once with its final size")
+    public void finishedSubtreesTest(WalkerMode mode) {
+        DiskUsageOptions options = DiskUsageOptions.builder()
+                .withWalkerMode(mode)
+                .withThreadCount(4)
+                .withStreamOutput(true)
+                .build();
+        Map<DUFile, Long> finished = Collections.synchronizedMap(new IdentityHashMap<>());
+        FileTree tree = FileTree.calculateTree(fileSystem.getRoot(), options, null,
+                subtree -> assertNull(finished.put(subtree, subtree.getSize()), "Subtree " + subtree + " passed twice"));
+
+        assertFalse(tree.hasErrors(), "Has error in FileTree");
+        ParentDUFile root = assertInstanceOf(ParentDUFile.class, tree.getBaseFile());
+        assertEquals(root.getChildren().size(), finished.size(), "Wrong number of subtrees");
+        for (DUFile child : root.getChildren()) {
+            assertTrue(finished.containsKey(child), "Child " + child + " isn't passed");
+            assertEquals(child.getSize(), finished.get(child), "Subtree " + child + " changed after it was passed");
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Streamed output contains the same lines as the full tree")
+    public void streamedOutputTest(WalkerMode mode) {
+        DiskUsageOptions options = DiskUsageOptions.builder()
+                .withWalkerMode(mode)
+                .withThreadCount(4)
+                .withMaxDepth(3)
+                .withStreamOutput(true)
+                .build();
+        FileTreePrinter printer = new FileTreePrinter(options);
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(streamed, false, StandardCharsets.UTF_8);
+        FileTree tree = FileTree.calculateTree(fileSystem.getRoot(), options, null, subtree -> {
+            synchronized (out) {
+                printer.printSubtree(out, subtree, 1);
+            }
+        });
+        printer.printFile(out, tree.getBaseFile());
+
+        ByteArrayOutputStream full = new ByteArrayOutputStream();
+        printer.printTree(new PrintStream(full, false, StandardCharsets.UTF_8), tree.getBaseFile());
+        List<String> streamedLines = lines(streamed);
+        List<String> fullLines = lines(full);
+        assertEquals(fullLines.get(0), streamedLines.get(streamedLines.size() - 1), "Root isn't printed last");
+        assertEquals(sorted(fullLines), sorted(streamedLines), "Different lines");
+    }
+
+    private static List<String> lines(ByteArrayOutputStream output) {
+        return output.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    private static List<String> sorted(List<String> lines) {
+        List<String> result = new ArrayList<>(lines);
+        Collections.sort(result);
+        return result;
+    }
+
+}
@@ -0,0 +1,99 @@
+package ru.nsu.sidey383.lab1.tree.file;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.base.DirectoryDUFile;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.options.WalkerMode;
+import ru.nsu.sidey383.lab1.write.FileTreePrinter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DUTimeBudgetFileTreeTest {
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(WalkerMode.class)
+    @DisplayName("Directories aren't opened after the time budget")
+    public void expiredBudgetTest(WalkerMode mode) throws IOException {
+        Path root = createTree();
+        DiskUsageOptions options = DiskUsageOptions.builder()
+                .withWalkerMode(mode)
+                .withThreadCount(4)
+                .withTimeBudget(Duration.ofNanos(1))
+                .build();
+        FileTree tree = FileTree.calculateTree(root, options);
+
+        assertFalse(tree.hasErrors(), "Has error in FileTree");
+        assertEquals(3, tree.getUnfinishedDirectoryCount(), "Wrong number of unfinished directories");
+        DirectoryDUFile base = assertInstanceOf(DirectoryDUFile.class, tree.getBaseFile());
+        assertTrue(base.isIncomplete(), "Root isn't incomplete");
+        for (DUFile child : base.getChildren()) {
+            if (child instanceof DirectoryDUFile directory) {
+                assertTrue(directory.isIncomplete(), "Directory " + directory + " isn't incomplete");
+                assertTrue(directory.getChildren().isEmpty(), "Directory " + directory + " is read");
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new FileTreePrinter(options).printTree(new PrintStream(out, true, StandardCharsets.UTF_8), base);
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("/a[~"), "Estimated size isn't marked:\n" + out);
+    }
+
+    @Test
+    @DisplayName("Sizes of unfinished directories are extrapolated from the finished siblings")
+    public void extrapolationTest() throws IOException {
+        Path root = createTree();
+        long fullSize = FileTree.calculateTree(root, DiskUsageOptions.builder().build()).getBaseFile().getSize();
+        DiskUsageOptions options = DiskUsageOptions.builder()
+                .withTimeBudget(Duration.ofMillis(100))
+                .build();
+        // the budget expires after the first subtree, so the other two aren't opened
+        FileTree tree = FileTree.calculateTree(root, options, null, subtree -> {
+            if (subtree instanceof ParentDUFile)
+                sleep(300);
+        });
+
+        assertEquals(2, tree.getUnfinishedDirectoryCount(), "Wrong number of unfinished directories");
+        assertEquals(fullSize, tree.getBaseFile().getSize(), "Wrong estimated size");
+        assertTrue(assertInstanceOf(DirectoryDUFile.class, tree.getBaseFile()).isIncomplete(), "Root isn't incomplete");
+    }
+
+    /**
+     * The subdirectories have the same content, so the estimates are exact
+     * **/
+    private Path createTree() throws IOException {
+        Path root = Files.createDirectory(tempDir.resolve("tree"));
+        for (String name : new String[]{"a", "b", "c"}) {
+            Path directory = Files.createDirectory(root.resolve(name));
+            Files.write(directory.resolve("data"), new byte[1000]);
+        }
+        Files.write(root.resolve("README"), new byte[10]);
+        return root;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package ru.nsu.sidey383.lab1.tree.file;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFileView;
+import ru.nsu.sidey383.lab1.model.file.base.RegularDUFile;
+import ru.nsu.sidey383.lab1.model.top.TopFilesCollector;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.options.WalkerMode;
+import ru.nsu.sidey383.lab1.tree.TreeTestFileSystem;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DUTopFilesTest {
+
+    @RegisterExtension
+    public static final TreeTestFileSystem fileSystem = new TreeTestFileSystem();
+
+    @Test
+    @DisplayName("Top files are the largest regular files of the tree")
+    public void topFilesTest() {
+        Map<Path, Long> regularFiles = new HashMap<>();
+        collectRegularFiles(FileTree.calculateTree(fileSystem.getRoot(), false).getBaseFile(), regularFiles);
+        List<Long> sizes = regularFiles.values().stream().sorted(Comparator.reverseOrder()).toList();
+        for (WalkerMode mode : WalkerMode.values()) {
+            for (int count = 1; count <= sizes.size() + 1; count += 3) {
+                FileTree tree = FileTree.calculateTree(fileSystem.getRoot(),
+                        DiskUsageOptions.builder().withWalkerMode(mode).withThreadCount(4).withTopFilesCount(count).build());
+                assertFalse(tree.hasErrors(), "Has error in FileTree");
+                List<TopFilesCollector.TopFile> topFiles = tree.getTopFiles();
+                assertEquals(sizes.subList(0, Math.min(count, sizes.size())),
+                        topFiles.stream().map(TopFilesCollector.TopFile::size).toList(),
+                        "Wrong top files sizes for " + mode + " and count " + count);
+                for (TopFilesCollector.TopFile file : topFiles)
+                    assertEquals(regularFiles.get(file.path()), file.size(), "Wrong size of " + file.path());
+                assertTrue(((ParentDUFileView) tree.getBaseFile()).getChildren().isEmpty(), "Tree is kept in top files mode");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Merged collector keeps the largest files of both")
+    public void mergeTest() {
+        TopFilesCollector first = new TopFilesCollector(3);
+        TopFilesCollector second = new TopFilesCollector(3);
+        long[] sizes = {4, 9, 1, 7, 3, 8, 2, 6};
+        for (int i = 0; i < sizes.length; i++)
+            (i % 2 == 0 ? first : second).offer(new RegularDUFile(sizes[i], Path.of("file" + i)));
+        first.merge(second);
+        assertEquals(List.of(9L, 8L, 7L), first.getTopFiles().stream().map(TopFilesCollector.TopFile::size).toList(),
+                "Wrong merged files");
+    }
+
+    private static void collectRegularFiles(DUFileView file, Map<Path, Long> files) {
+        if (file instanceof RegularDUFile)
+            files.put(file.getPath(), file.getSize());
+        if (file instanceof ParentDUFileView parent)
+            parent.getChildren().forEach(f -> collectRegularFiles(f, files));
+    }
+
+}
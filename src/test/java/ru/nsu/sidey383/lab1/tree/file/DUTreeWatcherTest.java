@@ -0,0 +1,140 @@
+package ru.nsu.sidey383.lab1.tree.file;
+
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.DUFileType;
+import ru.nsu.sidey383.lab1.model.file.DUFileView;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFileView;
+import ru.nsu.sidey383.lab1.model.file.UnixFileAttributes;
+import ru.nsu.sidey383.lab1.model.file.base.HardLinkDUFile;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.watch.TreeWatcher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class DUTreeWatcherTest {
+
+    private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Created and modified files change the sizes of all ancestors")
+    public void fileChangeTest() throws IOException, InterruptedException {
+        Path root = createTree();
+        DiskUsageOptions options = DiskUsageOptions.builder().build();
+        try (TreeWatcher watcher = new TreeWatcher(FileTree.calculateTree(root, options).getRootFile(), options)) {
+            long rootSize = watcher.getRoot().getSize();
+            Files.write(root.resolve("a").resolve("b").resolve("new"), new byte[1000]);
+            awaitTree(watcher, root, options);
+            assertEquals(rootSize + 1000, watcher.getRoot().getSize(), "Created file isn't counted");
+
+            Files.write(root.resolve("a").resolve("file1"), new byte[500]);
+            awaitTree(watcher, root, options);
+            assertEquals(rootSize + 1000 + 490, watcher.getRoot().getSize(), "Modified file isn't counted");
+        }
+    }
+
+    @Test
+    @DisplayName("Created and deleted directories are added and removed with their children")
+    public void directoryChangeTest() throws IOException, InterruptedException {
+        Path root = createTree();
+        DiskUsageOptions options = DiskUsageOptions.builder().build();
+        try (TreeWatcher watcher = new TreeWatcher(FileTree.calculateTree(root, options).getRootFile(), options)) {
+            long rootSize = watcher.getRoot().getSize();
+            Path created = Files.createDirectories(root.resolve("c").resolve("d"));
+            Files.write(created.resolve("file5"), new byte[300]);
+            awaitTree(watcher, root, options);
+            assertEquals(rootSize + 300, watcher.getRoot().getSize(), "Created directory isn't counted");
+
+            // the created directory is watched too
+            Files.write(created.resolve("file6"), new byte[200]);
+            awaitTree(watcher, root, options);
+
+            Files.delete(root.resolve("a").resolve("b").resolve("file2"));
+            Files.delete(root.resolve("a").resolve("b"));
+            awaitTree(watcher, root, options);
+            assertEquals(rootSize + 500 - 20, watcher.getRoot().getSize(), "Deleted directory is counted");
+        }
+    }
+
+    @Test
+    @DisplayName("Created files are read like the scan reads them")
+    public void hardLinkTest() throws IOException, InterruptedException {
+        Path root = createTree();
+        assumeTrue(UnixFileAttributes.isSupported(root), "File system doesn't support unix attributes");
+        DiskUsageOptions options = DiskUsageOptions.builder().withDedupHardLinks(true).build();
+        try (TreeWatcher watcher = new TreeWatcher(FileTree.calculateTree(root, options).getRootFile(), options)) {
+            Files.createLink(root.resolve("c").resolve("link"), root.resolve("file4"));
+            long deadline = System.nanoTime() + TIMEOUT;
+            DUFile link = findChild(watcher.getRoot(), "c", "link");
+            while (link == null && System.nanoTime() < deadline) {
+                watcher.processEvents(100, TimeUnit.MILLISECONDS);
+                link = findChild(watcher.getRoot(), "c", "link");
+            }
+            assertInstanceOf(HardLinkDUFile.class, link, "Hard link is read without the link count");
+        }
+    }
+
+    private Path createTree() throws IOException {
+        Path root = Files.createDirectory(tempDir.resolve("tree"));
+        Files.createDirectories(root.resolve("a").resolve("b"));
+        Files.createDirectory(root.resolve("c"));
+        Files.write(root.resolve("a").resolve("file1"), new byte[10]);
+        Files.write(root.resolve("a").resolve("b").resolve("file2"), new byte[20]);
+        Files.write(root.resolve("c").resolve("file3"), new byte[30]);
+        Files.write(root.resolve("file4"), new byte[40]);
+        return root;
+    }
+
+    /**
+     * Applies the events until the watched tree is equal to a new scan of the root
+     * **/
+    private static void awaitTree(TreeWatcher watcher, Path root, DiskUsageOptions options) throws InterruptedException {
+        Map<String, FileInfo> expected = collectFiles(FileTree.calculateTree(root, options).getBaseFile());
+        long deadline = System.nanoTime() + TIMEOUT;
+        while (!expected.equals(collectFiles(watcher.getRoot())) && System.nanoTime() < deadline)
+            watcher.processEvents(100, TimeUnit.MILLISECONDS);
+        assertEquals(expected, collectFiles(watcher.getRoot()), "Watched tree differs from the file system");
+        assertTrue(watcher.pollErrors().isEmpty(), "Unexpected errors");
+    }
+
+    @Nullable
+    private static DUFile findChild(DUFile root, String directory, String name) {
+        for (DUFile child : ((ParentDUFile) root).getChildren())
+            if (child.getPath().getFileName().toString().equals(directory))
+                for (DUFile file : ((ParentDUFile) child).getChildren())
+                    if (file.getPath().getFileName().toString().equals(name))
+                        return file;
+        return null;
+    }
+
+    private record FileInfo(DUFileType type, long size) {}
+
+    private static Map<String, FileInfo> collectFiles(DUFileView root) {
+        Map<String, FileInfo> files = new HashMap<>();
+        collectFiles(root, files);
+        return files;
+    }
+
+    private static void collectFiles(DUFileView file, Map<String, FileInfo> files) {
+        assertNull(files.put(file.getPath().toString(), new FileInfo(file.getFileType(), file.getSize())), "File " + file + " visited twice");
+        if (file instanceof ParentDUFileView parent)
+            parent.getChildren().forEach(f -> collectFiles(f, files));
+    }
+
+}
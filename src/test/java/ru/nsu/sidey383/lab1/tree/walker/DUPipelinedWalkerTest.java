@@ -0,0 +1,101 @@
+package ru.nsu.sidey383.lab1.tree.walker;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
+import ru.nsu.sidey383.lab1.walker.DUAction;
+import ru.nsu.sidey383.lab1.walker.DUFileVisitor;
+import ru.nsu.sidey383.lab1.walker.DUPipelinedFileWalker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DUPipelinedWalkerTest {
+
+    private static final int DIRECTORIES = 200;
+
+    private static final int WORKERS = 4;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Walk stopped by the visitor waits for the read ahead")
+    public void stopTest() throws IOException, InterruptedException {
+        Path root = createTree();
+        List<Throwable> uncaught = new CopyOnWriteArrayList<>();
+        Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> uncaught.add(e));
+        try {
+            // only the root is walked, the read ahead of its children is dropped
+            DUPipelinedFileWalker.walkFiles(root, new StoppingVisitor(root, false), WORKERS);
+            assertNoWorkers();
+            assertThrows(IllegalStateException.class,
+                    () -> DUPipelinedFileWalker.walkFiles(root, new StoppingVisitor(root, true), WORKERS),
+                    "Exception of the visitor is lost");
+            assertNoWorkers();
+            // the workers would fail after the walk
+            Thread.sleep(200);
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+        assertEquals(List.of(), uncaught, "Workers failed after the walk");
+    }
+
+    private static void assertNoWorkers() {
+        for (Thread thread : Thread.getAllStackTraces().keySet())
+            assertFalse(thread.getName().equals("du-prefetch") && thread.isAlive(), "Worker is running after the walk");
+    }
+
+    /**
+     * Directories with subdirectories, so the workers read ahead while the visitor stops
+     * **/
+    private Path createTree() throws IOException {
+        Path root = Files.createDirectory(tempDir.resolve("tree"));
+        for (int i = 0; i < DIRECTORIES; i++) {
+            Path directory = Files.createDirectory(root.resolve("dir" + i));
+            for (int j = 0; j < 5; j++)
+                Files.createDirectory(directory.resolve("sub" + j));
+        }
+        return root;
+    }
+
+    /**
+     * Stops every directory under the root or throws on the first one
+     * **/
+    private record StoppingVisitor(Path root, boolean fail) implements DUFileVisitor {
+
+        @Override
+        public void visitFile(DUFile file) {}
+
+        @Override
+        public DUAction preVisitParentFile(ParentDUFile directory) {
+            if (directory.getPath().equals(root))
+                return DUAction.CONTINUE;
+            if (fail)
+                throw new IllegalStateException("Visitor failed on " + directory.getPath());
+            return DUAction.STOP;
+        }
+
+        @Override
+        public void postVisitParentFile(ParentDUFile directory) {}
+
+        @Override
+        public void pathVisitError(@Nullable Path path, @NotNull DUPathException e) {}
+
+        @Override
+        public void directoryCloseError(@NotNull Path path, @NotNull DUPathException e) {}
+
+    }
+
+}
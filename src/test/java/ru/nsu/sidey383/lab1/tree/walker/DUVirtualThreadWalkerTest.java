@@ -0,0 +1,60 @@
+package ru.nsu.sidey383.lab1.tree.walker;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.nsu.sidey383.lab1.Main;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class DUVirtualThreadWalkerTest {
+
+    private static final int DIRECTORIES = 3000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Virtual thread walk of a wide tree doesn't run out of file descriptors")
+    public void openDirectoryLimitTest() throws IOException, InterruptedException {
+        assumeTrue(Files.isExecutable(Path.of("/bin/sh")), "No shell");
+        Path root = Files.createDirectory(tempDir.resolve("tree"));
+        for (int i = 0; i < DIRECTORIES; i++)
+            Files.write(Files.createDirectory(root.resolve("dir" + i)).resolve("file"), new byte[6]);
+
+        String expected = scan(root, "-s");
+        String virtual = scan(root, "--virtual-threads", "64", "-s");
+        assertFalse(virtual.contains("Too many open files"), "Descriptors are exhausted");
+        assertEquals(expected, virtual, "Different trees");
+    }
+
+    /**
+     * Runs the scan in a process with a small limit of descriptors
+     * **/
+    private static String scan(Path root, String... args) throws IOException, InterruptedException {
+        StringBuilder command = new StringBuilder("ulimit -n 200 && exec \"$0\" -cp \"$1\" \"$2\"");
+        for (int i = 0; i < args.length; i++)
+            command.append(" \"$").append(i + 4).append('"');
+        command.append(" \"$3\"");
+        String[] argv = new String[4 + args.length + 3];
+        argv[0] = "/bin/sh";
+        argv[1] = "-c";
+        argv[2] = command.toString();
+        argv[3] = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        argv[4] = System.getProperty("java.class.path");
+        argv[5] = Main.class.getName();
+        argv[6] = root.toString();
+        System.arraycopy(args, 0, argv, 7, args.length);
+        Process process = new ProcessBuilder(argv).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(0, process.waitFor(), "Process failed:\n" + output);
+        return output;
+    }
+
+}
@@ -11,9 +11,12 @@ import ru.nsu.sidey383.lab1.model.file.exception.DUPathException;
 import ru.nsu.sidey383.lab1.tree.TreeTestFileSystem;
 import ru.nsu.sidey383.lab1.walker.DUAction;
 import ru.nsu.sidey383.lab1.walker.DUFileVisitor;
+import ru.nsu.sidey383.lab1.walker.DUPipelinedFileWalker;
 import ru.nsu.sidey383.lab1.walker.DUSystemFileWalker;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -30,6 +33,28 @@ public class DUWalkerTest {
         assertEquals(fileSystem.getRoot(), walker.getRootFile().getPath(), "Walker return wrong root file");
     }
 
+    @Test
+    @DisplayName("Checking the pipelined passage through files without clicking on links")
+    public void pipelinedVisitTest() {
+        for (int workers : new int[]{1, 4}) {
+            DUPipelinedFileWalker walker = DUPipelinedFileWalker.walkFiles(fileSystem.getRoot(), new SimpleFileVisitorChecker(fileSystem), workers);
+            assertNotNull(walker.getRootFile(), "Walker return null root file");
+            assertEquals(fileSystem.getRoot(), walker.getRootFile().getPath(), "Walker return wrong root file");
+        }
+    }
+
+    @Test
+    @DisplayName("Pipelined walker calls the visitor in one thread in the order of the sequential walker")
+    public void pipelinedOrderTest() {
+        List<String> expected = new ArrayList<>();
+        DUSystemFileWalker.walkFiles(fileSystem.getRoot(), new RecordingVisitor(expected));
+        for (int workers : new int[]{1, 2, 8}) {
+            List<String> events = new ArrayList<>();
+            DUPipelinedFileWalker.walkFiles(fileSystem.getRoot(), new RecordingVisitor(events), workers);
+            assertEquals(expected, events, "Wrong callbacks with " + workers + " workers");
+        }
+    }
+
     @Test
     @DisplayName("Checking a tree from a single file")
     public void fileVisitTest() {
@@ -128,4 +153,41 @@ public class DUWalkerTest {
         }
     }
 
+    /**
+     * Records the callbacks and checks that they are called in the thread of the walk
+     * **/
+    private static class RecordingVisitor extends SimpleFileVisitorChecker {
+
+        private final Thread thread = Thread.currentThread();
+
+        private final List<String> events;
+
+        private RecordingVisitor(List<String> events) {
+            super(fileSystem);
+            this.events = events;
+        }
+
+        @Override
+        public void visitFile(DUFile file) {
+            assertSame(thread, Thread.currentThread(), "Visitor is called in other thread");
+            events.add("file " + file.getPath());
+            super.visitFile(file);
+        }
+
+        @Override
+        public DUAction preVisitParentFile(ParentDUFile directory) {
+            assertSame(thread, Thread.currentThread(), "Visitor is called in other thread");
+            events.add("pre " + directory.getPath());
+            return super.preVisitParentFile(directory);
+        }
+
+        @Override
+        public void postVisitParentFile(ParentDUFile directory) {
+            assertSame(thread, Thread.currentThread(), "Visitor is called in other thread");
+            events.add("post " + directory.getPath());
+            super.postVisitParentFile(directory);
+        }
+
+    }
+
 }
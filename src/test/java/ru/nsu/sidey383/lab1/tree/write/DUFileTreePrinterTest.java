@@ -4,6 +4,8 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.base.RegularDUFile;
 import ru.nsu.sidey383.lab1.options.FilesPrintOptions;
 import ru.nsu.sidey383.lab1.tree.TreeTestFileSystem;
 import ru.nsu.sidey383.lab1.write.FileTreePrinter;
@@ -14,7 +16,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -157,4 +161,36 @@ public class DUFileTreePrinterTest {
         }
     }
 
+    @Test
+    @DisplayName("Printer reused for several streams writes each output only to its stream")
+    public void reusedPrinterTest() {
+        FileTree tree = FileTree.calculateTree(fileSystem.getRoot(), false);
+        FileTreePrinter printer = new FileTreePrinter(getOptions(100, 100));
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        printer.printTree(new PrintStream(first), tree.getBaseFile());
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        printer.printFile(new PrintStream(file), tree.getBaseFile());
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        printer.printTree(new PrintStream(second), tree.getBaseFile());
+        String tree1 = first.toString(Charset.defaultCharset());
+        assertEquals(tree1, second.toString(Charset.defaultCharset()), "Different output of the same tree");
+        assertEquals(tree1.lines().findFirst().orElseThrow(), file.toString(Charset.defaultCharset()).strip(), "Wrong line of the root");
+    }
+
+    @Test
+    @DisplayName("Limited selection keeps the sorted order")
+    public void largestChildrenTest() {
+        List<DUFile> children = new ArrayList<>();
+        long[] sizes = {5, 1, 7, 5, 0, 7, 3, 5, 1, 9, 0, 3};
+        for (int i = 0; i < sizes.length; i++)
+            children.add(new RegularDUFile(sizes[i], Path.of("file" + i)));
+        List<DUFile> sorted = new ArrayList<>(children);
+        sorted.sort((f1, f2) -> Long.compare(f2.getSize(), f1.getSize()));
+        for (int limit = 1; limit <= sizes.length + 1; limit++) {
+            FileTreePrinter printer = new FileTreePrinter(getOptions(1, limit));
+            assertEquals(sorted.subList(0, Math.min(limit, sorted.size())), printer.largestChildren(children),
+                    "Wrong selection for limit " + limit);
+        }
+    }
+
 }
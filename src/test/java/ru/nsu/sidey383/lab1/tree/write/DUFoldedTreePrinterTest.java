@@ -0,0 +1,67 @@
+package ru.nsu.sidey383.lab1.tree.write;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import ru.nsu.sidey383.lab1.FileTree;
+import ru.nsu.sidey383.lab1.model.file.DUFile;
+import ru.nsu.sidey383.lab1.model.file.ParentDUFile;
+import ru.nsu.sidey383.lab1.options.DiskUsageOptions;
+import ru.nsu.sidey383.lab1.tree.TreeTestFileSystem;
+import ru.nsu.sidey383.lab1.write.FileTreePrinter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DUFoldedTreePrinterTest {
+
+    @RegisterExtension
+    public static final TreeTestFileSystem fileSystem = new TreeTestFileSystem();
+
+    private static String print(DiskUsageOptions options) {
+        FileTree tree = FileTree.calculateTree(fileSystem.getRoot(), options);
+        assertFalse(tree.hasErrors(), "Has error in FileTree");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new FileTreePrinter(options).printTree(new PrintStream(outputStream), tree.getBaseFile());
+        return outputStream.toString(Charset.defaultCharset());
+    }
+
+    @Test
+    @DisplayName("Folded tree is printed the same way as the full tree")
+    public void foldHiddenTest() {
+        for (int depth = 1; depth < 5; depth++) {
+            String expected = print(DiskUsageOptions.builder().withMaxDepth(depth).build());
+            String actual = print(DiskUsageOptions.builder().withMaxDepth(depth).withFoldHidden(true).build());
+            assertEquals(expected, actual, "Different output for depth " + depth);
+        }
+    }
+
+    @Test
+    @DisplayName("Folded tree doesn't keep hidden files")
+    public void foldHiddenRetainTest() {
+        FileTree tree = FileTree.calculateTree(fileSystem.getRoot(),
+                DiskUsageOptions.builder().withMaxDepth(1).withFoldHidden(true).build());
+        FileTree fullTree = FileTree.calculateTree(fileSystem.getRoot(), false);
+        assertEquals(fullTree.getBaseFile().getSize(), tree.getBaseFile().getSize(), "Wrong size of folded tree");
+        assertInstanceOf(ParentDUFile.class, tree.getBaseFile(), "Root isn't ParentDUFile");
+        for (DUFile child : ((ParentDUFile) tree.getBaseFile()).getChildren()) {
+            if (child instanceof ParentDUFile parent)
+                assertTrue(parent.getChildren().isEmpty(), "Hidden files of " + parent + " are kept");
+        }
+    }
+
+    @Test
+    @DisplayName("Summarized tree keeps only the root")
+    public void summarizeTest() {
+        DiskUsageOptions options = DiskUsageOptions.builder().withSummarize(true).build();
+        FileTree tree = FileTree.calculateTree(fileSystem.getRoot(), options);
+        FileTree fullTree = FileTree.calculateTree(fileSystem.getRoot(), false);
+        assertEquals(fullTree.getBaseFile().getSize(), tree.getBaseFile().getSize(), "Wrong size of summarized tree");
+        assertTrue(((ParentDUFile) tree.getBaseFile()).getChildren().isEmpty(), "Summarized tree keeps children");
+        assertEquals(1, print(options).lines().count(), "Summarized tree prints more than one line");
+    }
+
+}
@@ -0,0 +1,48 @@
+package ru.nsu.sidey383.lab1.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentFileKeySetTest {
+
+    @Test
+    @DisplayName("Every key is added by one thread only")
+    public void concurrentAddTest() throws InterruptedException, ExecutionException {
+        ConcurrentFileKeySet set = new ConcurrentFileKeySet();
+        AtomicInteger added = new AtomicInteger();
+        int threads = 4;
+        int keys = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CyclicBarrier start = new CyclicBarrier(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    // every thread adds the same keys
+                    for (int i = 0; i < keys; i++)
+                        if (set.add(i % 3, i))
+                            added.incrementAndGet();
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(keys, added.get(), "Keys are added several times or lost");
+        assertEquals(keys, set.size(), "Wrong size");
+        for (int i = 0; i < keys; i++)
+            assertTrue(set.contains(i % 3, i), "Key " + i + " is lost");
+        assertFalse(set.contains(0, 1), "Key of other device is found");
+    }
+
+}
@@ -0,0 +1,47 @@
+package ru.nsu.sidey383.lab1.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileKeySetTest {
+
+    private record FileKey(long device, long inode) {}
+
+    @Test
+    @DisplayName("File key set behaves like HashSet")
+    public void hashSetTest() {
+        FileKeySet set = new FileKeySet();
+        Set<FileKey> expected = new HashSet<>();
+        Random random = new Random(383);
+        for (int i = 0; i < 200_000; i++) {
+            // few devices and a narrow inode range to get repeated keys
+            FileKey key = new FileKey(random.nextInt(3), random.nextInt(100_000));
+            assertEquals(expected.add(key), set.add(key.device(), key.inode()), "Wrong add result for " + key);
+        }
+        assertEquals(expected.size(), set.size(), "Wrong size");
+        for (int i = 0; i < 10_000; i++) {
+            FileKey key = new FileKey(random.nextInt(4), random.nextInt(120_000));
+            assertEquals(expected.contains(key), set.contains(key.device(), key.inode()), "Wrong contains result for " + key);
+        }
+    }
+
+    @Test
+    @DisplayName("Zero and negative keys are stored")
+    public void specialKeysTest() {
+        FileKeySet set = new FileKeySet();
+        for (long key : new long[]{0, -1, Long.MIN_VALUE, Long.MAX_VALUE}) {
+            assertFalse(set.contains(key, key), "Key " + key + " is in empty set");
+            assertTrue(set.add(key, key), "Key " + key + " isn't added");
+            assertFalse(set.add(key, key), "Key " + key + " is added twice");
+            assertTrue(set.contains(key, key), "Key " + key + " is lost");
+        }
+        assertEquals(4, set.size(), "Wrong size");
+    }
+
+}
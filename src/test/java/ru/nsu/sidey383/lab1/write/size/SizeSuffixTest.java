@@ -4,7 +4,9 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.text.DecimalFormat;
 import java.util.List;
+import java.util.SplittableRandom;
 
 public class SizeSuffixTest {
 
@@ -133,4 +135,42 @@ public class SizeSuffixTest {
         }
     }
 
+    @Test
+    public void decimalFormatTest() {
+        DecimalFormat format = new DecimalFormat("0.00");
+        SplittableRandom random = new SplittableRandom(17);
+        for (DefaultSizeSuffix suffix : List.of(SizeSuffixIEC.BYTE, SizeSuffixISU.BYTE, SizeSuffixIEC.KILOBYTE, SizeSuffixISU.MEGABYTE)) {
+            for (long size = 0; size < 1 << 16; size++)
+                assertDecimalFormat(format, suffix, size);
+            for (int i = 0; i < 1 << 14; i++) {
+                long size = random.nextLong(1L << random.nextInt(1, 63));
+                assertDecimalFormat(format, suffix, size);
+                // the remainder of the last division is exactly in the middle of two hundredths
+                long unit = suffix.getNextSize();
+                long middle = unit == 1024 ? 128 + 256 * random.nextInt(4) : 5 + 10 * random.nextInt(100);
+                long scale = 1;
+                for (int level = random.nextInt(3); level > 0; level--)
+                    scale *= unit;
+                assertDecimalFormat(format, suffix, (random.nextLong(1, 1L << 20) * unit + middle) * scale + random.nextLong(scale));
+            }
+            assertDecimalFormat(format, suffix, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * The formatter that was used before the fixed-point one
+     * **/
+    private static void assertDecimalFormat(DecimalFormat format, DefaultSizeSuffix suffix, long size) {
+        double prevPart = 0;
+        DefaultSizeSuffix now = suffix;
+        long value = size;
+        while (now.getNextSuffix() != null && value >= now.getNextSize()) {
+            prevPart = (double) (value % now.getNextSize()) / now.getNextSize();
+            value /= now.getNextSize();
+            now = now.getNextSuffix();
+        }
+        String expected = (now.isIsAtomic() ? String.valueOf(value) : format.format(value + prevPart)) + " " + now.getSuffix();
+        assertEquals(expected, suffix.getValue(size), "Wrong size string for " + size + " by object " + suffix);
+    }
+
 }